@@ -1,10 +1,11 @@
-from flask import Flask, request, jsonify
+from flask import Flask, Response, request, jsonify
 from flask_cors import CORS
 import requests
 from bs4 import BeautifulSoup
 import json
+import os
+import threading
 import time
-import random
 from urllib.parse import quote_plus
 import logging
 
@@ -15,6 +16,64 @@ logger = logging.getLogger(__name__)
 app = Flask(__name__)
 CORS(app)  # 允許跨域請求
 
+class ThrottledError(Exception):
+    """Google Scholar 回應 429 / 503 或 CAPTCHA 頁面"""
+    pass
+
+class AdaptiveRateLimiter:
+    """令牌桶限流器：被限流時降低速率並暫停，成功時逐步恢復（與 Java 端 HostRateLimiter 相同策略）
+
+    只負責本服務送出的各頁請求之間的間隔；經由 Java 應用程式呼叫時，整體額度以 Java 端的
+    HostRateLimiter 為準（呼叫前已預支對應頁數的許可）。限流狀態只存在此 process 內，
+    因此 gunicorn 只能啟動一個 worker（見 Dockerfile），多個 worker 會讓實際速率成倍增加
+    """
+
+    def __init__(self):
+        self.min_rate = float(os.environ.get('CRAWL_MIN_RATE_PER_SECOND', '0.05'))
+        self.max_rate = float(os.environ.get('CRAWL_MAX_RATE_PER_SECOND', '2.0'))
+        self.rate = min(self.max_rate, max(self.min_rate,
+                        float(os.environ.get('CRAWL_RATE_PER_SECOND', '0.5'))))
+        self.burst = max(1.0, float(os.environ.get('CRAWL_BURST', '2')))
+        self.increase_step = float(os.environ.get('CRAWL_RATE_INCREASE_STEP', '0.05'))
+        self.decrease_factor = float(os.environ.get('CRAWL_RATE_DECREASE_FACTOR', '0.5'))
+        self.penalty_seconds = float(os.environ.get('CRAWL_PENALTY_SECONDS', '30'))
+        self.tokens = self.burst
+        self.last_refill = time.monotonic()
+        self.lock = threading.Lock()
+
+    def _refill(self, now):
+        self.tokens = min(self.burst, self.tokens + (now - self.last_refill) * self.rate)
+        self.last_refill = now
+
+    def acquire(self):
+        # 先預約令牌再睡眠，並行請求會依序排開而不是同時醒來
+        with self.lock:
+            now = time.monotonic()
+            self._refill(now)
+            self.tokens -= 1
+            wait = 0.0 if self.tokens >= 0 else -self.tokens / self.rate
+        if wait > 0:
+            time.sleep(wait)
+
+    def on_success(self):
+        with self.lock:
+            self._refill(time.monotonic())
+            self.rate = min(self.max_rate, self.rate + self.increase_step)
+
+    def on_throttled(self):
+        with self.lock:
+            self._refill(time.monotonic())
+            self.rate = max(self.min_rate, self.rate * self.decrease_factor)
+            # 以負債的方式暫停，暫停結束後仍依新速率逐一放行
+            self.tokens = min(self.tokens, 0) - self.rate * self.penalty_seconds
+        logger.warning(f"Google Scholar 限流，速率降為 {self.rate:.3f} 次/秒")
+
+rate_limiter = AdaptiveRateLimiter()
+
+# 每頁固定 10 筆；單次爬取最多抓取的頁數
+RESULTS_PER_PAGE = 10
+MAX_PAGES = int(os.environ.get('CRAWL_MAX_PAGES', '10'))
+
 class GoogleScholarCrawler:
     def __init__(self):
         self.session = requests.Session()
@@ -27,31 +86,37 @@ class GoogleScholarCrawler:
             'Upgrade-Insecure-Requests': '1',
         })
     
-    def crawl_papers(self, keyword, max_results=10):
-        """爬取 Google Scholar 論文"""
+    def crawl_papers(self, keyword, max_results=10, usage=None):
+        """爬取 Google Scholar 論文；max_results 超過一頁時依序抓取後續頁面（start=10*n）
+
+        usage 不為 None 時，每送出一頁請求就把 usage['pages'] 加一，呼叫端據此回報實際用掉的頁數
+        """
         papers = []
+        seen_titles = set()
         try:
-            # 建立搜尋 URL
-            search_url = self._build_search_url(keyword)
-            logger.info(f"開始爬取: {search_url}")
-            
-            # 發送請求
-            response = self.session.get(search_url, timeout=30)
-            response.raise_for_status()
-            
-            # 解析 HTML
-            soup = BeautifulSoup(response.content, 'html.parser')
-            
-            # 提取論文資訊
-            paper_elements = soup.select('.gs_r')
-            
-            for element in paper_elements:
-                if len(papers) >= max_results:
+            page_count = min(MAX_PAGES, max(1, -(-max_results // RESULTS_PER_PAGE)))
+            for page in range(page_count):
+                if usage is not None:
+                    usage['pages'] += 1
+                try:
+                    page_papers, result_count = self._crawl_page(keyword, page * RESULTS_PER_PAGE)
+                except Exception:
+                    # 第一頁失敗視為整次失敗，之後的頁面失敗則回傳已取得的部分
+                    if page == 0:
+                        raise
+                    logger.warning(f"關鍵字 '{keyword}' 第 {page + 1} 頁爬取失敗，回傳前 {page} 頁的結果")
                     break
                 
-                paper = self._extract_paper_info(element)
-                if paper and paper.get('title'):
-                    papers.append(paper)
+                for paper in page_papers:
+                    # 相鄰頁面可能因排名變動而重複出現同一篇
+                    title_key = paper['title'].strip().lower()
+                    if len(papers) < max_results and title_key not in seen_titles:
+                        seen_titles.add(title_key)
+                        papers.append(paper)
+                
+                # 已湊滿或已是最後一頁；以頁面上的結果數判斷，個別項目解析失敗不代表沒有下一頁
+                if len(papers) >= max_results or result_count < RESULTS_PER_PAGE:
+                    break
             
             logger.info(f"成功爬取 {len(papers)} 篇論文")
             
@@ -61,10 +126,46 @@ class GoogleScholarCrawler:
         
         return papers
     
-    def _build_search_url(self, keyword):
+    def _crawl_page(self, keyword, start):
+        """爬取單一結果頁，回傳 (論文, 頁面上的 .gs_r 數量)"""
+        search_url = self._build_search_url(keyword, start)
+        logger.info(f"開始爬取: {search_url}")
+        
+        # 發送請求（先取得限流器許可）
+        rate_limiter.acquire()
+        response = self.session.get(search_url, timeout=30)
+        if response.status_code in (429, 503):
+            rate_limiter.on_throttled()
+            raise ThrottledError(f"Google Scholar 回應 {response.status_code}")
+        response.raise_for_status()
+        
+        # 解析 HTML
+        soup = BeautifulSoup(response.content, 'html.parser')
+        if self._is_blocked(soup):
+            rate_limiter.on_throttled()
+            raise ThrottledError("Google Scholar 要求 CAPTCHA 驗證")
+        rate_limiter.on_success()
+        
+        # 提取論文資訊
+        papers = []
+        elements = soup.select('.gs_r')
+        for element in elements:
+            paper = self._extract_paper_info(element)
+            if paper and paper.get('title'):
+                papers.append(paper)
+        return papers, len(elements)
+    
+    def _is_blocked(self, soup):
+        """Google Scholar 判定為異常流量時會回傳 CAPTCHA 頁面（HTTP 200）"""
+        if soup.select_one('#gs_captcha_f, #captcha-form, form[action*=sorry]'):
+            return True
+        return 'unusual traffic' in soup.get_text()
+
+    def _build_search_url(self, keyword, start=0):
         """建立 Google Scholar 搜尋 URL"""
         encoded_keyword = quote_plus(keyword)
-        return f"https://scholar.google.com/scholar?q={encoded_keyword}&hl=en&as_sdt=0,5"
+        url = f"https://scholar.google.com/scholar?q={encoded_keyword}&hl=en&as_sdt=0,5"
+        return f"{url}&start={start}" if start > 0 else url
     
     def _extract_paper_info(self, element):
         """從 HTML 元素中提取論文資訊"""
@@ -173,7 +274,8 @@ def health_check():
 
 @app.route('/crawl', methods=['POST'])
 def crawl_papers():
-    """爬取論文端點"""
+    """爬取論文端點；回應中的 pages 為實際送出的頁數，Java 端據此歸還預支的限流額度"""
+    usage = {'pages': 0}
     try:
         data = request.get_json()
         
@@ -189,7 +291,7 @@ def crawl_papers():
             return jsonify({'error': '關鍵字不能為空'}), 400
         
         # 爬取論文
-        papers = crawler.crawl_papers(keyword, max_results)
+        papers = crawler.crawl_papers(keyword, max_results, usage)
         
         # 根據年份過濾
         if year_from or year_to:
@@ -199,14 +301,24 @@ def crawl_papers():
             'success': True,
             'papers': papers,
             'count': len(papers),
-            'keyword': keyword
+            'keyword': keyword,
+            'pages': usage['pages']
         })
         
+    except ThrottledError as e:
+        logger.warning(f"爬取請求被限流: {str(e)}")
+        return jsonify({
+            'success': False,
+            'throttled': True,
+            'error': str(e),
+            'pages': usage['pages']
+        }), 429
     except Exception as e:
         logger.error(f"爬取請求失敗: {str(e)}")
         return jsonify({
             'success': False,
-            'error': str(e)
+            'error': str(e),
+            'pages': usage['pages']
         }), 500
 
 def filter_papers_by_year(papers, year_from, year_to):
@@ -231,9 +343,50 @@ def filter_papers_by_year(papers, year_from, year_to):
     
     return filtered_papers
 
+def crawl_keyword(keyword, max_results, usage):
+    """爬取單一關鍵字；被限流時往外拋出，其他錯誤視為該關鍵字沒有結果"""
+    try:
+        return crawler.crawl_papers(keyword, max_results, usage)
+    except ThrottledError:
+        raise
+    except Exception as e:
+        logger.error(f"爬取關鍵字 '{keyword}' 失敗: {str(e)}")
+        return []
+
+def generate_batch(keywords, max_results_per_keyword, first_papers, usage):
+    """
+    逐個關鍵字輸出 JSON：{"papers": [...], "count": n, "keywords": [...], "pages": n, "success": true}
+    每爬完一個關鍵字就送出該批論文，呼叫端可以邊收邊處理
+    """
+    yield '{"papers": ['
+    count = 0
+    error = None
+    
+    # 請求間隔由 rate_limiter 控制；被限流時停止其餘關鍵字
+    for index, keyword in enumerate(keywords):
+        try:
+            papers = first_papers if index == 0 else crawl_keyword(keyword, max_results_per_keyword, usage)
+        except ThrottledError as e:
+            logger.warning(f"批量爬取在關鍵字 '{keyword}' 被限流: {str(e)}")
+            error = str(e)
+            break
+        
+        # keywordIndex 讓呼叫端在串流中斷時知道哪些關鍵字已經完整送達
+        for paper in papers:
+            yield (', ' if count else '') + json.dumps(dict(paper, keywordIndex=index), ensure_ascii=False)
+            count += 1
+    
+    # 狀態碼已經送出，中途被限流改由 success / throttled 欄位告知
+    tail = {'count': count, 'keywords': keywords, 'pages': usage['pages'], 'success': error is None}
+    if error is not None:
+        tail['throttled'] = True
+        tail['error'] = error
+    yield '], ' + json.dumps(tail, ensure_ascii=False)[1:]
+
 @app.route('/crawl/batch', methods=['POST'])
 def crawl_batch():
     """批量爬取多個關鍵字"""
+    usage = {'pages': 0}
     try:
         data = request.get_json()
         
@@ -243,33 +396,29 @@ def crawl_batch():
         keywords = data['keywords']
         max_results_per_keyword = data.get('maxResultsPerKeyword', 5)
         
-        all_papers = []
-        
-        for keyword in keywords:
-            try:
-                papers = crawler.crawl_papers(keyword, max_results_per_keyword)
-                all_papers.extend(papers)
-                
-                # 避免請求過於頻繁
-                time.sleep(random.uniform(1, 3))
-                
-            except Exception as e:
-                logger.error(f"爬取關鍵字 '{keyword}' 失敗: {str(e)}")
-                continue
+        # 第一個關鍵字在送出回應標頭前爬取，一開始就被限流時仍能回傳 429
+        first_papers = crawl_keyword(keywords[0], max_results_per_keyword, usage) if keywords else []
         
+    except ThrottledError as e:
+        logger.warning(f"批量爬取被限流: {str(e)}")
         return jsonify({
-            'success': True,
-            'papers': all_papers,
-            'count': len(all_papers),
-            'keywords': keywords
-        })
-        
+            'success': False,
+            'throttled': True,
+            'error': str(e),
+            'papers': [],
+            'count': 0,
+            'pages': usage['pages']
+        }), 429
     except Exception as e:
         logger.error(f"批量爬取失敗: {str(e)}")
         return jsonify({
             'success': False,
-            'error': str(e)
+            'error': str(e),
+            'pages': usage['pages']
         }), 500
+    
+    return Response(generate_batch(keywords, max_results_per_keyword, first_papers, usage),
+                    mimetype='application/json')
 
 if __name__ == '__main__':
     app.run(host='0.0.0.0', port=5000, debug=False) 
\ No newline at end of file
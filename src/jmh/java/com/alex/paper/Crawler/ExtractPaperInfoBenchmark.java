@@ -0,0 +1,73 @@
+package com.alex.paper.Crawler;
+
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * GoogleScholarCrawler 解析錄製的搜尋結果頁的吞吐量。
+ * 經由 fetchWithSelenium 量測，借出的瀏覽器直接回傳錄製的頁面，限流器不等待
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ExtractPaperInfoBenchmark {
+
+    private String html;
+    private GoogleScholarCrawler crawler;
+
+    @Setup
+    public void setUp() throws Exception {
+        try (InputStream in = ExtractPaperInfoBenchmark.class.getResourceAsStream("/scholar-results.html")) {
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        WebDriver driver = mock(WebDriver.class);
+        when(driver.getPageSource()).thenReturn(html);
+        when(driver.findElement(any(By.class))).thenReturn(mock(WebElement.class));
+        WebDriverPool.Lease lease = mock(WebDriverPool.Lease.class);
+        when(lease.driver()).thenReturn(driver);
+        WebDriverPool webDriverPool = mock(WebDriverPool.class);
+        when(webDriverPool.lease()).thenReturn(lease);
+
+        crawler = new GoogleScholarCrawler();
+        ReflectionTestUtils.setField(crawler, "webDriverPool", webDriverPool);
+        ReflectionTestUtils.setField(crawler, "hostRateLimiter", new HostRateLimiter() {
+            @Override
+            public void acquire(String host) {
+            }
+
+            @Override
+            public void onSuccess(String host) {
+            }
+        });
+        ReflectionTestUtils.setField(crawler, "maxPages", 1);
+    }
+
+    // 只解析整頁 HTML，作為扣除解析成本、估算欄位抽取成本的基準
+    @Benchmark
+    public Object parse() {
+        return Jsoup.parse(html);
+    }
+
+    // 解析整頁 HTML + CAPTCHA 檢查 + 抽取，對應一次 Jsoup / Selenium 爬取的 CPU 成本
+    @Benchmark
+    public Object parseAndExtract() throws IOException, InterruptedException {
+        return crawler.fetchWithSelenium("deep learning", 10);
+    }
+}
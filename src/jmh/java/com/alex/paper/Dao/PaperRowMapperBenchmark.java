@@ -0,0 +1,69 @@
+package com.alex.paper.Dao;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaperDaoImpl 對嵌入式 H2 的查詢 + 映射成本，經由 findPage 比較完整欄位與投影欄位
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class PaperRowMapperBenchmark {
+
+    private static final Set<String> LIST_FIELDS = Set.of("id", "title", "year");
+
+    @Param({"1000", "100000"})
+    private int rowCount;
+
+    private SingleConnectionDataSource dataSource;
+    private PaperDaoImpl paperDao;
+
+    @Setup
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource(
+            "jdbc:h2:mem:paper_bench;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS paper");
+        jdbcTemplate.execute("CREATE TABLE paper ("
+            + "id BIGINT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(500) NOT NULL, author VARCHAR(500) NOT NULL, "
+            + "journal VARCHAR(500), year INT, abstractText TEXT, fingerprint CHAR(64), version INT NOT NULL DEFAULT 0)");
+
+        String abstractText = "A".repeat(1500);
+        List<Object[]> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new Object[]{"Paper title " + i, "A Author, B Author", "Journal " + (i % 100), 1990 + i % 30, abstractText});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO paper (title, author, journal, year, abstractText) VALUES (?, ?, ?, ?, ?)", rows);
+
+        paperDao = new PaperDaoImpl();
+        ReflectionTestUtils.setField(paperDao, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(paperDao, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public Object allColumns() {
+        return paperDao.findPage(null, rowCount, null);
+    }
+
+    @Benchmark
+    public Object projectedColumns() {
+        return paperDao.findPage(null, rowCount, LIST_FIELDS);
+    }
+}
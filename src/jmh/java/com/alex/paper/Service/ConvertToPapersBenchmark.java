@@ -0,0 +1,103 @@
+package com.alex.paper.Service;
+
+import ch.qos.logback.classic.Level;
+import com.alex.paper.Crawler.HostRateLimiter;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PythonCrawlerService 解碼大型回應的成本：串流解碼成 Paper，對照先解碼成 Map 的舊做法。
+ * 經由 crawlWithPython 量測，RestTemplate 直接回傳錄製的回應內容，限流器不等待
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ConvertToPapersBenchmark {
+
+    @Param({"100", "10000"})
+    private int paperCount;
+
+    private final PythonCrawlerService pythonCrawlerService = new PythonCrawlerService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private byte[] responseBody;
+    private CrawlerRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<Map<String, Object>> papersData = new ArrayList<>(paperCount);
+        for (int i = 0; i < paperCount; i++) {
+            Map<String, Object> paper = new HashMap<>();
+            paper.put("title", "Recorded paper title number " + i + " about deep learning");
+            paper.put("author", "A Author, B Author, C Author");
+            paper.put("journal", "Journal of Benchmarks");
+            paper.put("year", i % 2 == 0 ? (Object) (1990 + i % 30) : String.valueOf(1990 + i % 30));
+            paper.put("abstractText", "An abstract of moderate length that mimics what the Python crawler returns for each result.");
+            paper.put("citations", i);
+            paper.put("pdfUrl", "https://example.org/" + i + ".pdf");
+            papersData.add(paper);
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("papers", papersData);
+        response.put("count", paperCount);
+        responseBody = objectMapper.writeValueAsBytes(response);
+
+        RestTemplate restTemplate = new RestTemplate((uri, method) -> {
+            MockClientHttpRequest httpRequest = new MockClientHttpRequest(method, uri);
+            httpRequest.setResponse(new MockClientHttpResponse(responseBody, HttpStatus.OK));
+            return httpRequest;
+        });
+        ReflectionTestUtils.setField(pythonCrawlerService, "pythonCrawlerUrl", "http://localhost:5000");
+        ReflectionTestUtils.setField(pythonCrawlerService, "restTemplate", restTemplate);
+        ReflectionTestUtils.setField(pythonCrawlerService, "hostRateLimiter", new HostRateLimiter() {
+            @Override
+            public void acquireForRemote(String host, int permits) {
+            }
+
+            @Override
+            public void onSuccess(String host) {
+            }
+        });
+        // 每次呼叫都會記錄開始與完成，避免日誌輸出主導量測結果
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PythonCrawlerService.class)).setLevel(Level.WARN);
+        request = new CrawlerRequest("deep learning", paperCount);
+    }
+
+    // 與目前實作相同：逐篇解碼後直接交給 consumer
+    @Benchmark
+    public Object streamDecode() {
+        return pythonCrawlerService.crawlWithPython(request);
+    }
+
+    // 逐篇解碼但不保留結果，對應邊解析邊儲存的批量爬取
+    @Benchmark
+    public void streamDecodeDiscard(Blackhole blackhole) {
+        pythonCrawlerService.crawlWithPython(request, blackhole::consume);
+    }
+
+    // 舊做法的解碼部分：整個回應先建成 Map（尚未轉換成 Paper）
+    @Benchmark
+    public Object decodeToMap() throws Exception {
+        return objectMapper.readValue(responseBody, Map.class);
+    }
+}
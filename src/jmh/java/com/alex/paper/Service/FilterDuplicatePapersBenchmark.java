@@ -0,0 +1,83 @@
+package com.alex.paper.Service;
+
+import ch.qos.logback.classic.Level;
+import com.alex.paper.Cache.CrawlResultCache;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Model.Paper;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CrawlerService 過濾重複論文在不同資料表大小下的成本
+ * 每次過濾 100 篇候選論文，其中一半已存在、另有同批次內的重複；新論文另需查詢近似重複索引。
+ * 經由 crawlGoogleScholar 量測，爬取結果固定由快取取得，不對外發出請求
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class FilterDuplicatePapersBenchmark {
+
+    private static final int CANDIDATES = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int tableSize;
+
+    private CrawlerService crawlerService;
+    private CrawlerRequest request;
+    private List<Paper> candidates;
+
+    @Setup
+    public void setUp() {
+        PaperFingerprintIndex fingerprintIndex = new PaperFingerprintIndex();
+        PaperNearDuplicateIndex nearDuplicateIndex = new PaperNearDuplicateIndex();
+        for (int i = 0; i < tableSize; i++) {
+            Paper paper = paper(i);
+            fingerprintIndex.add(paper);
+            paper.setId((long) i);
+            nearDuplicateIndex.add(paper);
+        }
+        crawlerService = new CrawlerService();
+        ReflectionTestUtils.setField(crawlerService, "paperFingerprintIndex", fingerprintIndex);
+        ReflectionTestUtils.setField(crawlerService, "paperNearDuplicateIndex", nearDuplicateIndex);
+        ReflectionTestUtils.setField(crawlerService, "crawlResultCache", new CrawlResultCache() {
+            @Override
+            public List<Paper> get(CrawlerRequest ignored) {
+                return candidates;
+            }
+        });
+        // 每次呼叫都會記錄一行快取命中，避免日誌輸出主導量測結果
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(CrawlerService.class)).setLevel(Level.WARN);
+        request = new CrawlerRequest("recorded paper", CANDIDATES);
+
+        candidates = new ArrayList<>(CANDIDATES);
+        for (int i = 0; i < CANDIDATES / 2; i++) {
+            candidates.add(paper(i));                 // 已存在於資料表
+        }
+        for (int i = 0; i < CANDIDATES / 2; i++) {
+            candidates.add(paper(tableSize + i % 40)); // 新論文，含同批次重複
+        }
+    }
+
+    @Benchmark
+    public Object filter() {
+        return crawlerService.crawlGoogleScholar(request);
+    }
+
+    private static Paper paper(int i) {
+        Paper paper = new Paper();
+        // 標題帶入雜湊值，讓不同論文之間不會被判定為近似重複
+        paper.setTitle("Recorded paper " + Long.toHexString(i * 0x9E3779B97F4A7C15L));
+        paper.setAuthor("A Author, B Author");
+        return paper;
+    }
+}
@@ -1,32 +1,238 @@
 package com.alex.paper.Controller;
 
+import com.alex.paper.Cache.PaperListResponseCache;
+import com.alex.paper.Cache.TtlLruCache;
+import com.alex.paper.DTO.ImportProgress;
+import com.alex.paper.DTO.PaperFacets;
+import com.alex.paper.DTO.PaperSearchHit;
+import com.alex.paper.Dao.PaperFields;
+import com.alex.paper.Feed.PaperChangeFeed;
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Service.PaperImportService;
 import com.alex.paper.Service.PaperService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/papers")// API route under this controller will be /papers
 public class PaperController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private PaperService paperService;
 
-    // 取得所有論文
+    @Autowired
+    private PaperImportService paperImportService;
+
+    @Autowired
+    private PaperChangeFeed paperChangeFeed;
+
+    @Autowired
+    private PaperListResponseCache paperListResponseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // 取得論文：帶 after/limit 時回傳 keyset 分頁，否則以串流方式輸出整張表；fields 指定要輸出的欄位
+    // 帶 author 時只回傳該作者的論文（走 author.normalized_name 索引，同樣以 after/limit 分頁）
+    // 序列化後的回應會被快取，資料未變動時直接回傳快取的位元組，If-None-Match 相符時回傳 304
     @GetMapping
-    public ResponseEntity<List<Paper>> getAllPapers() {
-        List<Paper> papers = paperService.getAllPapers();
-        return ResponseEntity.ok(papers);
+    public ResponseEntity<?> getAllPapers(@RequestParam(required = false) String author,
+                                          @RequestParam(required = false) Long after,
+                                          @RequestParam(required = false) Integer limit,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                          WebRequest webRequest) throws IOException {
+        Set<String> selectedFields;
+        try {
+            selectedFields = PaperFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        long generation = paperListResponseCache.generation();
+        if (webRequest.checkNotModified(paperListResponseCache.etag(generation))) {
+            return null;
+        }
+
+        if (author != null || after != null || limit != null) {
+            int pageSize = limit != null ? Math.max(1, Math.min(limit, MAX_PAGE_SIZE)) : DEFAULT_PAGE_SIZE;
+            String cacheKey = listCacheKey(author != null ? "author:" + author : "page", after, pageSize, selectedFields);
+            PaperListResponseCache.Entry cached = paperListResponseCache.get(cacheKey);
+            if (cached != null) {
+                return cachedResponse(cached, acceptEncoding);
+            }
+
+            List<Paper> papers = author != null
+                ? paperService.getPapersByAuthor(author, after, pageSize, selectedFields)
+                : paperService.getPapersAfter(after, pageSize, selectedFields);
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (papers.size() == pageSize) {
+                // 下一頁的游標，客戶端帶入 ?after= 即可繼續
+                headers.put("X-Next-After", String.valueOf(papers.get(papers.size() - 1).getId()));
+            }
+            byte[] body = objectMapper.writer(fieldFilter(selectedFields)).writeValueAsBytes(papers);
+            return cachedResponse(paperListResponseCache.put(cacheKey, generation, body,
+                MediaType.APPLICATION_JSON_VALUE, headers), acceptEncoding);
+        }
+
+        return streamCached(listCacheKey("list", null, 0, selectedFields), generation, selectedFields,
+            false, MediaType.APPLICATION_JSON, acceptEncoding);
+    }
+
+    // 以 NDJSON（每行一筆）串流匯出所有論文
+    @GetMapping("/export")
+    public ResponseEntity<?> exportPapers(@RequestParam(required = false) String fields,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                          WebRequest webRequest) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = PaperFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        long generation = paperListResponseCache.generation();
+        if (webRequest.checkNotModified(paperListResponseCache.etag(generation))) {
+            return null;
+        }
+        return streamCached(listCacheKey("export", null, 0, selectedFields), generation, selectedFields,
+            true, NDJSON, acceptEncoding);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<PaperSearchHit>> searchPapers(@RequestParam("q") String query,
+                                                             @RequestParam(defaultValue = "20") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(paperService.searchPapers(query, size));
+    }
+
+    // 年份 / 期刊 / 作者的分面統計（由記憶體中的欄式快照計算）
+    @GetMapping("/facets")
+    public ResponseEntity<PaperFacets> getFacets(@RequestParam(required = false) Integer yearFrom,
+                                                 @RequestParam(required = false) Integer yearTo,
+                                                 @RequestParam(defaultValue = "20") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return ResponseEntity.ok(paperService.getFacets(yearFrom, yearTo, size));
+    }
+
+    // 論文變更推播（SSE）：新增 / 更新 / 刪除事件；斷線重連時以 Last-Event-ID 或 since 補齊錯過的事件
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                    @RequestParam(required = false) String since) {
+        String resumeToken = since;
+        if (resumeToken == null && lastEventId != null && !lastEventId.isBlank()) {
+            resumeToken = lastEventId;
+        }
+        return ResponseEntity.ok()
+            .header("X-Accel-Buffering", "no") // 避免反向代理緩衝事件
+            .body(paperChangeFeed.subscribe(resumeToken));
+    }
+
+    // 批次匯入論文檔案（JSONL / CSV / BibTeX），立即回傳匯入 ID（202），解析與寫入在背景進行
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportProgress> importPapers(@RequestParam("file") MultipartFile file,
+                                                       @RequestParam(required = false) String format) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return submitImport(in, format, file.getOriginalFilename());
+        }
+    }
+
+    // 直接以 request body 上傳檔案內容，須指定 Content-Type，例如
+    // curl -H 'Content-Type: application/x-ndjson' --data-binary @papers.jsonl '/papers/import?format=jsonl'；
+    // 未指定時 curl 會送出 application/x-www-form-urlencoded，body 會被當成表單參數讀走
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-bibtex", "application/x-ndjson",
+        "application/jsonl", MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE,
+        MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ImportProgress> importPapersFromBody(@RequestParam String format,
+                                                              HttpServletRequest request) throws IOException {
+        try (InputStream in = request.getInputStream()) {
+            return submitImport(in, format, null);
+        }
+    }
+
+    // 查詢匯入進度
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ImportProgress> getImportProgress(@PathVariable String importId) {
+        ImportProgress progress = paperImportService.getProgress(importId);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
     }
 
-    // 依 ID 取得論文
+    // 列出進行中與最近完成的匯入
+    @GetMapping("/import")
+    public ResponseEntity<Collection<ImportProgress>> getAllImportProgress() {
+        return ResponseEntity.ok(paperImportService.getAllProgress());
+    }
+
+    // 依 ID 取得論文；ETag 由 ID 與版本號組成，If-None-Match 相符時回傳 304
     @GetMapping("/{id}")
-    public ResponseEntity<Paper> getPaperById(@PathVariable Long id) {
-        Paper paper = paperService.getPaperById(id);
-        return paper != null ? ResponseEntity.ok(paper) : ResponseEntity.notFound().build();
+    public ResponseEntity<?> getPaperById(@PathVariable Long id,
+                                          @RequestParam(required = false) String fields) {
+        Set<String> selectedFields;
+        try {
+            selectedFields = PaperFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        // 版本號一律查詢以產生 ETag，但只在有指定時輸出
+        Set<String> queryFields = selectedFields;
+        if (queryFields != null) {
+            queryFields = new HashSet<>(selectedFields);
+            queryFields.add("version");
+        }
+        Paper paper = paperService.getPaperById(id, queryFields);
+        if (paper == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().eTag(paper.getId() + "-" + paper.getVersion()).body(project(paper, selectedFields));
+    }
+
+    // 論文快取的命中統計
+    @GetMapping("/cache/stats")
+    public ResponseEntity<TtlLruCache.Stats> getCacheStats() {
+        return ResponseEntity.ok(paperService.getPaperCacheStats());
+    }
+
+    // 列表回應快取的使用情況
+    @GetMapping("/cache/list-stats")
+    public ResponseEntity<TtlLruCache.Stats> getListCacheStats() {
+        return ResponseEntity.ok(paperListResponseCache.stats());
     }
 
     // 新增論文
@@ -50,6 +256,49 @@ public class PaperController {
         }
     }
 
+    // 部分更新論文：只寫入有提供的欄位，並以 If-Match（或 body 中的 version）做樂觀鎖檢查
+    @PatchMapping("/{id}")
+    public ResponseEntity<String> patchPaper(@PathVariable Long id,
+                                             @RequestBody Map<String, Object> body,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Map<String, Object> changes = new LinkedHashMap<>(body);
+        Object bodyVersion = changes.remove("version");
+        Integer expectedVersion = null;
+        // If-Match: * 不指定版本，改用 body 中的 version；其他值必須是這篇論文的 ETag
+        if (ifMatch != null && !ifMatch.trim().equals("*")) {
+            expectedVersion = parseVersion(ifMatch, id);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .body("If-Match 不是這篇論文的 ETag");
+            }
+        }
+        if (expectedVersion == null && bodyVersion != null) {
+            expectedVersion = parseBodyVersion(bodyVersion);
+            if (expectedVersion == null) {
+                return ResponseEntity.badRequest().body("version 必須是整數");
+            }
+        }
+        if (expectedVersion == null) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_REQUIRED)
+                .body("請以 If-Match 標頭或 version 欄位提供目前的版本號");
+        }
+
+        try {
+            switch (paperService.patchPaper(id, changes, expectedVersion)) {
+                case UPDATED:
+                    return ResponseEntity.ok().eTag(id + "-" + (expectedVersion + 1)).body("論文更新成功");
+                case NOT_FOUND:
+                    return ResponseEntity.notFound().build();
+                case CONFLICT:
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("論文已被其他人修改，請重新取得最新版本");
+                default:
+                    return ResponseEntity.status(HttpStatus.CONFLICT).body("修改後的論文與既有論文重複");
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     // 刪除論文
     @DeleteMapping("/{id}")
     public ResponseEntity<String> deletePaper(@PathVariable Long id) {
@@ -59,4 +308,173 @@ public class PaperController {
             return ResponseEntity.badRequest().body("論文刪除失敗");
         }
     }
+
+    // body 中的 version 可以是數字或數字字串（部分客戶端一律以字串送出），其他型別回傳 null
+    private static Integer parseBodyVersion(Object version) {
+        if (version instanceof Integer || version instanceof Long || version instanceof Short) {
+            return ((Number) version).intValue();
+        }
+        if (version instanceof String) {
+            try {
+                return Integer.valueOf(((String) version).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    // 解析 If-Match 中的 ETag（格式 "id-version"），ID 不符或格式錯誤時回傳 null
+    private static Integer parseVersion(String ifMatch, Long id) {
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        String prefix = id + "-";
+        if (!tag.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(tag.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 快取命中時直接回傳位元組；否則邊查詢邊串流輸出，並把輸出內容複製一份存入快取
+     */
+    private ResponseEntity<?> streamCached(String cacheKey, long generation, Set<String> fields,
+                                           boolean ndjson, MediaType contentType, String acceptEncoding) {
+        PaperListResponseCache.Entry cached = paperListResponseCache.get(cacheKey);
+        if (cached != null) {
+            return cachedResponse(cached, acceptEncoding);
+        }
+        StreamingResponseBody body = out -> {
+            PaperListResponseCache.Capture capture = paperListResponseCache.capture(out);
+            writePapers(capture, fields, ndjson);
+            paperListResponseCache.put(cacheKey, generation, capture.toByteArray(), contentType.toString(), null);
+        };
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .eTag(paperListResponseCache.etag(generation))
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .body(body);
+    }
+
+    private static ResponseEntity<byte[]> cachedResponse(PaperListResponseCache.Entry entry, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(entry.getContentType()))
+            .eTag(entry.getEtag())
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        entry.getHeaders().forEach(builder::header);
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.getGzipBody());
+        }
+        return builder.body(entry.getBody());
+    }
+
+    /**
+     * Accept-Encoding 是否允許 gzip：gzip（或 x-gzip）的 q 值大於 0；沒有列出 gzip 時看 * 的 q 值
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = gzipQuality == null ? quality : Math.max(gzipQuality, quality);
+            } else if (name.equals("*")) {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static String listCacheKey(String kind, Long after, int limit, Set<String> fields) {
+        String fieldKey = fields == null ? "*" : String.join(",", new TreeSet<>(fields));
+        return kind + "|" + after + "|" + limit + "|" + fieldKey;
+    }
+
+    // 依 fields 只序列化指定欄位；未指定時原樣回傳
+    private static Object project(Object body, Set<String> fields) {
+        if (fields == null) {
+            return body;
+        }
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(fieldFilter(fields));
+        return value;
+    }
+
+    private static FilterProvider fieldFilter(Set<String> fields) {
+        SimpleBeanPropertyFilter filter = fields == null
+            ? SimpleBeanPropertyFilter.serializeAll()
+            : SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+        return new SimpleFilterProvider().addFilter(Paper.FIELD_FILTER, filter);
+    }
+
+    private ResponseEntity<ImportProgress> submitImport(InputStream in, String format, String filename) {
+        ImportProgress progress;
+        try {
+            progress = paperImportService.submit(in, format, filename);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+        }
+        if ("FAILED".equals(progress.getStatus())) {
+            return ResponseEntity.badRequest().body(progress);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .header(HttpHeaders.LOCATION, "/papers/import/" + progress.getImportId())
+            .body(progress);
+    }
+
+    /**
+     * 邊讀資料庫邊寫出回應，記憶體用量與資料表大小無關
+     */
+    private void writePapers(OutputStream out, Set<String> fields, boolean ndjson) throws IOException {
+        // 每筆都 flush 會造成大量小封包，交給容器緩衝區決定何時送出
+        ObjectWriter writer = objectMapper.writer(fieldFilter(fields))
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!ndjson) {
+                generator.writeStartArray();
+            }
+            paperService.streamAllPapers(fields, paper -> {
+                try {
+                    writer.writeValue(generator, paper);
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
 }
@@ -0,0 +1,10 @@
+package com.alex.paper.Dao;
+
+import com.alex.paper.Model.Paper;
+import java.util.List;
+
+public interface AuthorDao {
+    void linkAuthors(List<Paper> papers);
+    void relinkAuthors(Paper paper);
+    int backfillAuthors();
+}
@@ -2,11 +2,24 @@ package com.alex.paper.Dao;
 
 import com.alex.paper.Model.Paper;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface PaperDao {
     List<Paper> findAll();
+    List<Paper> findPage(Long afterId, int limit);
+    List<Paper> findPage(Long afterId, int limit, Set<String> fields);
+    List<Paper> findPageByAuthor(String normalizedAuthor, Long afterId, int limit, Set<String> fields);
+    void streamAll(Consumer<Paper> consumer);
+    void streamAll(Set<String> fields, Consumer<Paper> consumer);
     Paper findById(Long id);
+    Paper findById(Long id, Set<String> fields);
+    List<Paper> findByIds(List<Long> ids);
     int save(Paper paper);
+    int saveAll(List<Paper> papers);
     int update(Paper paper);
+    int patch(Long id, Map<String, Object> changes, String fingerprint, int expectedVersion);
     int deleteById(Long id);
+    int backfillFingerprints();
 }
@@ -1,14 +1,32 @@
 package com.alex.paper.Dao;
 
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.PaperFingerprint;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Component;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Component
 public class PaperDaoImpl implements PaperDao {
@@ -16,48 +34,297 @@ public class PaperDaoImpl implements PaperDao {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    // RowMapper 來轉換 ResultSet 為 Paper 物件
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 串流匯出時每次從資料庫取回的筆數（MySQL 需搭配 useCursorFetch=true 才會生效）
+    @Value("${paper.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    // 批次寫入時每個 executeBatch 的筆數
+    @Value("${paper.batch.size:500}")
+    private int batchSize;
+
+    private static final String INSERT_SQL =
+        "INSERT INTO paper (title, author, journal, year, abstractText, fingerprint) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // RowMapper 來轉換 ResultSet 為 Paper 物件；指定 fields 時只讀取投影的欄位
     private static final class PaperRowMapper implements RowMapper<Paper> {
+        private final Set<String> fields;
+
+        PaperRowMapper() {
+            this(null);
+        }
+
+        PaperRowMapper(Set<String> fields) {
+            this.fields = fields;
+        }
+
         @Override
         public Paper mapRow(ResultSet rs, int rowNum) throws SQLException {
             Paper paper = new Paper();
             paper.setId(rs.getLong("id"));
-            paper.setTitle(rs.getString("title"));
-            paper.setAuthor(rs.getString("author"));
-            paper.setJournal(rs.getString("journal"));
-            paper.setYear(rs.getObject("year") != null ? rs.getInt("year") : null);
-            paper.setAbstractText(rs.getString("abstractText"));
+            if (has("title")) {
+                paper.setTitle(rs.getString("title"));
+            }
+            if (has("author")) {
+                paper.setAuthor(rs.getString("author"));
+            }
+            if (has("journal")) {
+                paper.setJournal(rs.getString("journal"));
+            }
+            if (has("year")) {
+                paper.setYear(rs.getObject("year") != null ? rs.getInt("year") : null);
+            }
+            if (has("abstractText")) {
+                paper.setAbstractText(rs.getString("abstractText"));
+            }
+            if (has("version")) {
+                paper.setVersion(rs.getInt("version"));
+            }
             return paper;
         }
+
+        private boolean has(String field) {
+            return fields == null || fields.contains(field);
+        }
     }
 
     @Override
+    @Timed(value = "paper.dao", histogram = true)
     public List<Paper> findAll() {
-        String sql = "SELECT * FROM paper";
-        return jdbcTemplate.query(sql, new PaperRowMapper());
+        String sql = "SELECT " + PaperFields.selectList(null) + " FROM paper";
+        List<Paper> papers = jdbcTemplate.query(sql, new PaperRowMapper());
+        recordRows("findAll", papers.size());
+        return papers;
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public List<Paper> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, null);
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public List<Paper> findPage(Long afterId, int limit, Set<String> fields) {
+        // keyset 分頁：以主鍵作為游標，避免 OFFSET 越翻越慢
+        String sql = "SELECT " + PaperFields.selectList(fields) + " FROM paper WHERE id > ? ORDER BY id LIMIT ?";
+        List<Paper> papers = jdbcTemplate.query(sql, new PaperRowMapper(fields), afterId != null ? afterId : 0L, limit);
+        recordRows("findPage", papers.size());
+        return papers;
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public List<Paper> findPageByAuthor(String normalizedAuthor, Long afterId, int limit, Set<String> fields) {
+        // 先在 paper_author 的 (author_id, paper_id) 主鍵上取出一頁論文 id，再回表讀取論文
+        String sql = "SELECT " + PaperFields.selectList(fields) + " FROM paper p JOIN ("
+            + "SELECT pa.paper_id FROM author a JOIN paper_author pa ON pa.author_id = a.id "
+            + "WHERE a.normalized_name = ? AND pa.paper_id > ? ORDER BY pa.paper_id LIMIT ?"
+            + ") ids ON p.id = ids.paper_id ORDER BY p.id";
+        List<Paper> papers = jdbcTemplate.query(sql, new PaperRowMapper(fields),
+            normalizedAuthor, afterId != null ? afterId : 0L, limit);
+        recordRows("findPageByAuthor", papers.size());
+        return papers;
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public void streamAll(Consumer<Paper> consumer) {
+        streamAll(null, consumer);
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public void streamAll(Set<String> fields, Consumer<Paper> consumer) {
+        // 逐列讀取並交給 consumer，不在記憶體中累積整張表
+        String sql = "SELECT " + PaperFields.selectList(fields) + " FROM paper ORDER BY id";
+        PaperRowMapper rowMapper = new PaperRowMapper(fields);
+        int[] rows = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(exportFetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            consumer.accept(rowMapper.mapRow(rs, rows[0]));
+            rows[0]++;
+        });
+        recordRows("streamAll", rows[0]);
     }
 
     @Override
+    @Timed(value = "paper.dao", histogram = true)
     public Paper findById(Long id) {
-        String sql = "SELECT * FROM paper WHERE id = ?";
-        return jdbcTemplate.queryForObject(sql, new Object[]{id}, new PaperRowMapper());
+        return findById(id, null);
     }
 
     @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public Paper findById(Long id, Set<String> fields) {
+        String sql = "SELECT " + PaperFields.selectList(fields) + " FROM paper WHERE id = ?";
+        List<Paper> papers = jdbcTemplate.query(sql, new PaperRowMapper(fields), id);
+        return papers.isEmpty() ? null : papers.get(0);
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public List<Paper> findByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT " + PaperFields.selectList(null) + " FROM paper WHERE id IN (" + placeholders + ")";
+        return jdbcTemplate.query(sql, new PaperRowMapper(), ids.toArray());
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
     public int save(Paper paper) {
-        String sql = "INSERT INTO paper (title, author, journal, year, abstractText) VALUES (?, ?, ?, ?, ?)";
-        return jdbcTemplate.update(sql, paper.getTitle(), paper.getAuthor(), paper.getJournal(), paper.getYear(), paper.getAbstractText());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            bindInsert(ps, paper);
+            return ps;
+        }, keyHolder);
+
+        // 回填自動產生的主鍵，讓呼叫端拿到完整的論文
+        Number key = keyHolder.getKey();
+        if (key != null) {
+            paper.setId(key.longValue());
+            paper.setVersion(0);
+        }
+        return rows;
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public int saveAll(List<Paper> papers) {
+        if (papers.isEmpty()) {
+            return 0;
+        }
+        // 以 JDBC batch 分段送出，並依序回填每筆的自動產生主鍵
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            // 在交易中失敗時回到 savepoint：先前各段與失敗這段已寫入的列一併撤銷，
+            // 回填的主鍵也清除，呼叫端才能逐筆重試整批而不會漏掉已寫入但沒有主鍵的列
+            Savepoint savepoint = con.getAutoCommit() ? null : con.setSavepoint();
+            int inserted = 0;
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < papers.size(); from += batchSize) {
+                    List<Paper> chunk = papers.subList(from, Math.min(from + batchSize, papers.size()));
+                    for (Paper paper : chunk) {
+                        bindInsert(ps, paper);
+                        ps.addBatch();
+                    }
+                    for (int count : ps.executeBatch()) {
+                        if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                            inserted++;
+                        }
+                    }
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = 0;
+                        while (keys.next() && i < chunk.size()) {
+                            Paper paper = chunk.get(i++);
+                            paper.setId(keys.getLong(1));
+                            paper.setVersion(0);
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (savepoint != null) {
+                    con.rollback(savepoint);
+                    for (Paper paper : papers) {
+                        paper.setId(null);
+                        paper.setVersion(null);
+                    }
+                }
+                throw e;
+            }
+            if (savepoint != null) {
+                con.releaseSavepoint(savepoint);
+            }
+            return inserted;
+        });
     }
 
     @Override
+    @Timed(value = "paper.dao", histogram = true)
     public int update(Paper paper) {
-        String sql = "UPDATE paper SET title = ?, author = ?, journal = ?, year = ?, abstractText = ? WHERE id = ?";
-        return jdbcTemplate.update(sql, paper.getTitle(), paper.getAuthor(), paper.getJournal(), paper.getYear(), paper.getAbstractText(), paper.getId());
+        String sql = "UPDATE paper SET title = ?, author = ?, journal = ?, year = ?, abstractText = ?, fingerprint = ?, version = version + 1 WHERE id = ?";
+        return jdbcTemplate.update(sql, paper.getTitle(), paper.getAuthor(), paper.getJournal(), paper.getYear(), paper.getAbstractText(),
+            PaperFingerprint.of(paper), paper.getId());
     }
 
     @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public int patch(Long id, Map<String, Object> changes, String fingerprint, int expectedVersion) {
+        // 只更新有提供的欄位；WHERE 帶入版本號做樂觀鎖，版本不符時影響 0 列
+        StringBuilder sql = new StringBuilder("UPDATE paper SET ");
+        List<Object> args = new ArrayList<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            if (!PaperFields.PATCHABLE.contains(change.getKey())) {
+                throw new IllegalArgumentException("不可修改的欄位: " + change.getKey());
+            }
+            sql.append(change.getKey()).append(" = ?, ");
+            args.add(change.getValue());
+        }
+        if (fingerprint != null) {
+            sql.append("fingerprint = ?, ");
+            args.add(fingerprint);
+        }
+        sql.append("version = version + 1 WHERE id = ? AND version = ?");
+        args.add(id);
+        args.add(expectedVersion);
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
     public int deleteById(Long id) {
         String sql = "DELETE FROM paper WHERE id = ?";
         return jdbcTemplate.update(sql, id);
     }
+
+    @Override
+    @Timed(value = "paper.dao", histogram = true)
+    public int backfillFingerprints() {
+        // 為加入 fingerprint 欄位前的舊資料補上指紋；與既有資料重複者以 IGNORE 略過並保持 NULL
+        String selectSql = "SELECT id, title, author FROM paper WHERE fingerprint IS NULL AND id > ? ORDER BY id LIMIT ?";
+        String updateSql = "UPDATE IGNORE paper SET fingerprint = ? WHERE id = ?";
+        int updated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> batch = jdbcTemplate.query(selectSql, (rs, rowNum) -> new Object[]{
+                PaperFingerprint.of(rs.getString("title"), rs.getString("author")),
+                rs.getLong("id")
+            }, lastId, batchSize);
+            if (batch.isEmpty()) {
+                return updated;
+            }
+            for (int count : jdbcTemplate.batchUpdate(updateSql, batch)) {
+                if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+                    updated++;
+                }
+            }
+            lastId = (Long) batch.get(batch.size() - 1)[1];
+        }
+    }
+
+    private static void bindInsert(PreparedStatement ps, Paper paper) throws SQLException {
+        ps.setString(1, paper.getTitle());
+        ps.setString(2, paper.getAuthor());
+        ps.setString(3, paper.getJournal());
+        ps.setObject(4, paper.getYear(), Types.INTEGER);
+        ps.setString(5, paper.getAbstractText());
+        ps.setString(6, PaperFingerprint.of(paper));
+    }
+
+    // 各查詢回傳列數的分佈，用來觀察 findAll 等全表查詢隨資料量的成長
+    private void recordRows(String method, int rows) {
+        DistributionSummary.builder("paper.dao.rows")
+            .tag("method", method)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(rows);
+    }
 }
@@ -0,0 +1,54 @@
+package com.alex.paper.Dao;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 論文欄位白名單，用於 ?fields= 投影：欄位名稱與資料表欄位名稱相同
+ */
+public final class PaperFields {
+
+    public static final List<String> ALL = Collections.unmodifiableList(
+        Arrays.asList("id", "title", "author", "journal", "year", "abstractText", "version"));
+
+    // PATCH 可修改的欄位（id 與 version 由系統管理）
+    public static final List<String> PATCHABLE = Collections.unmodifiableList(
+        Arrays.asList("title", "author", "journal", "year", "abstractText"));
+
+    private PaperFields() {}
+
+    /**
+     * 解析 ?fields=id,title,year；未指定時回傳 null 代表全部欄位，id 一律包含（分頁游標需要）
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(name)) {
+                throw new IllegalArgumentException("不支援的欄位: " + name);
+            }
+            selected.add(name);
+        }
+        return selected;
+    }
+
+    /**
+     * 組出 SELECT 欄位清單，順序固定以利資料庫重用執行計畫
+     */
+    public static String selectList(Set<String> fields) {
+        return ALL.stream()
+            .filter(field -> fields == null || fields.contains(field))
+            .collect(Collectors.joining(", "));
+    }
+}
@@ -1,12 +1,28 @@
 package com.alex.paper.Model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// ?fields= 投影時以此 filter 只輸出指定欄位；未設定 filter 時輸出全部欄位
+@JsonFilter(Paper.FIELD_FILTER)
 public class Paper {
+    public static final String FIELD_FILTER = "paperFields";
+
     private Long id;
     private String title;
     private String author;
     private String abstractText; // abstract 為保留字，故用 abstractText
     private String journal; // 期刊
     private Integer year;   // 出版年份
+    private Integer version; // 版本號，每次更新遞增（用於 ETag）
+
+    // 爬蟲入庫時偵測到的近似重複論文 id（不存入資料庫，僅在回應中標示）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long nearDuplicateOf;
+
+    // 近似重複的對象是同一次請求中的另一篇論文（尚未寫入時沒有 id 可標示）
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean nearDuplicateInBatch;
 
     // Constructors
     public Paper() {}
@@ -68,4 +84,28 @@ public class Paper {
     public void setYear(Integer year) {
         this.year = year;
     }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
+    public Long getNearDuplicateOf() {
+        return nearDuplicateOf;
+    }
+
+    public void setNearDuplicateOf(Long nearDuplicateOf) {
+        this.nearDuplicateOf = nearDuplicateOf;
+    }
+
+    public Boolean getNearDuplicateInBatch() {
+        return nearDuplicateInBatch;
+    }
+
+    public void setNearDuplicateInBatch(Boolean nearDuplicateInBatch) {
+        this.nearDuplicateInBatch = nearDuplicateInBatch;
+    }
 }
@@ -1,12 +1,34 @@
 package com.alex.paper.Service;
 
+import com.alex.paper.Cache.TtlLruCache;
+import com.alex.paper.DTO.PaperFacets;
+import com.alex.paper.DTO.PaperSearchHit;
 import com.alex.paper.Model.Paper;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface PaperService {
     List<Paper> getAllPapers();
+    List<Paper> getPapersAfter(Long afterId, int limit, Set<String> fields);
+    List<Paper> getPapersByAuthor(String author, Long afterId, int limit, Set<String> fields);
+    void streamAllPapers(Set<String> fields, Consumer<Paper> consumer);
     Paper getPaperById(Long id);
+    Paper getPaperById(Long id, Set<String> fields);
+    TtlLruCache.Stats getPaperCacheStats();
+    List<PaperSearchHit> searchPapers(String query, int limit);
+    PaperFacets getFacets(Integer yearFrom, Integer yearTo, int limit);
     boolean createPaper(Paper paper);
+    List<Paper> saveAll(List<Paper> papers);
     boolean updatePaper(Paper paper);
+    PatchResult patchPaper(Long id, Map<String, Object> changes, int expectedVersion);
     boolean deletePaper(Long id);
+
+    enum PatchResult {
+        UPDATED,
+        NOT_FOUND,
+        CONFLICT,   // 版本號不符，已被其他人修改
+        DUPLICATE   // 修改後與既有論文重複
+    }
 }
@@ -1,40 +1,426 @@
 package com.alex.paper.Service;
 
+import com.alex.paper.Cache.PaperListResponseCache;
+import com.alex.paper.Cache.TtlLruCache;
+import com.alex.paper.DTO.PaperFacets;
+import com.alex.paper.DTO.PaperSearchHit;
+import com.alex.paper.Dao.AuthorDao;
 import com.alex.paper.Dao.PaperDao;
+import com.alex.paper.Dao.PaperFields;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Feed.PaperChangeFeed;
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Search.PaperFacetSnapshot;
+import com.alex.paper.Search.PaperSearchIndex;
+import com.alex.paper.Util.PaperFingerprint;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Component
 public class PaperServiceImpl implements com.alex.paper.Service.PaperService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PaperServiceImpl.class);
+
     @Autowired
     private PaperDao paperDao;
 
+    @Autowired
+    private AuthorDao authorDao;
+
+    @Autowired
+    private PaperFingerprintIndex paperFingerprintIndex;
+
+    @Autowired
+    private PaperNearDuplicateIndex paperNearDuplicateIndex;
+
+    @Autowired
+    private PaperSearchIndex paperSearchIndex;
+
+    @Autowired
+    private PaperFacetSnapshot paperFacetSnapshot;
+
+    @Autowired
+    private PaperChangeFeed paperChangeFeed;
+
+    @Autowired
+    private PaperListResponseCache paperListResponseCache;
+
+    @Value("${paper.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${paper.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    // getPaperById 的讀穿快取，由 updatePaper / patchPaper / deletePaper 在提交後失效
+    private TtlLruCache<Long, Paper> paperCache;
+
+    @PostConstruct
+    public void initCache() {
+        paperCache = new TtlLruCache<>(cacheMaxSize, cacheTtlSeconds * 1000);
+    }
+
     @Override
+    @Timed(value = "paper.service", histogram = true)
     public List<Paper> getAllPapers() {
         return paperDao.findAll();
     }
 
     @Override
+    @Timed(value = "paper.service", histogram = true)
+    public List<Paper> getPapersAfter(Long afterId, int limit, Set<String> fields) {
+        return paperDao.findPage(afterId, limit, fields);
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    public List<Paper> getPapersByAuthor(String author, Long afterId, int limit, Set<String> fields) {
+        // 與寫入 author.normalized_name 時相同的正規化，查詢才會命中索引
+        String normalized = PaperFingerprint.normalize(author);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return paperDao.findPageByAuthor(normalized, afterId, limit, fields);
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    public void streamAllPapers(Set<String> fields, Consumer<Paper> consumer) {
+        paperDao.streamAll(fields, consumer);
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
     public Paper getPaperById(Long id) {
-        return paperDao.findById(id);
+        return paperCache.get(id, paperDao::findById);
     }
 
     @Override
+    @Timed(value = "paper.service", histogram = true)
+    public Paper getPaperById(Long id, Set<String> fields) {
+        if (fields == null) {
+            return getPaperById(id);
+        }
+        // 快取中已有完整資料就直接使用，否則只查詢投影的欄位（不寫入快取）
+        Paper cached = paperCache.getIfPresent(id);
+        return cached != null ? cached : paperDao.findById(id, fields);
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    public TtlLruCache.Stats getPaperCacheStats() {
+        return paperCache.stats();
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    public List<PaperSearchHit> searchPapers(String query, int limit) {
+        List<PaperSearchIndex.Hit> hits = paperSearchIndex.search(query, limit);
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 只以主鍵取回命中的論文，再依分數順序排列
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (PaperSearchIndex.Hit hit : hits) {
+            ids.add(hit.getPaperId());
+        }
+        Map<Long, Paper> papersById = new HashMap<>();
+        for (Paper paper : paperDao.findByIds(ids)) {
+            papersById.put(paper.getId(), paper);
+        }
+
+        List<PaperSearchHit> results = new ArrayList<>(hits.size());
+        for (PaperSearchIndex.Hit hit : hits) {
+            Paper paper = papersById.get(hit.getPaperId());
+            if (paper != null) {
+                results.add(new PaperSearchHit(paper, hit.getScore()));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    public PaperFacets getFacets(Integer yearFrom, Integer yearTo, int limit) {
+        return paperFacetSnapshot.facets(yearFrom, yearTo, limit);
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    @Transactional
     public boolean createPaper(Paper paper) {
-        return paperDao.save(paper) > 0;
+        if (paperFingerprintIndex.contains(paper)) {
+            return false;
+        }
+        try {
+            if (paperDao.save(paper) > 0) {
+                authorDao.linkAuthors(Collections.singletonList(paper));
+                onPaperSaved(null, paper);
+                paperChangeFeed.inserted(paper);
+                return true;
+            }
+        } catch (DuplicateKeyException e) {
+            logger.warn("論文已存在，略過新增: {}", paper.getTitle());
+        }
+        return false;
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    @Transactional
+    public List<Paper> saveAll(List<Paper> papers) {
+        // 先以指紋過濾已存在與同批次內重複的論文
+        Set<String> seen = new HashSet<>();
+        List<Paper> newPapers = new ArrayList<>(papers.size());
+        for (Paper paper : papers) {
+            String fingerprint = PaperFingerprint.of(paper);
+            if (seen.add(fingerprint) && !paperFingerprintIndex.contains(fingerprint)) {
+                newPapers.add(paper);
+            }
+        }
+        if (newPapers.isEmpty()) {
+            return newPapers;
+        }
+
+        try {
+            paperDao.saveAll(newPapers);
+        } catch (DuplicateKeyException e) {
+            // 與其他請求同時寫入了相同論文：DAO 已撤銷整批並清除主鍵，改為逐筆寫入並略過重複者
+            logger.warn("批次寫入遇到重複論文，改為逐筆寫入: {}", e.getMessage());
+            for (Paper paper : newPapers) {
+                if (paper.getId() == null) {
+                    try {
+                        paperDao.save(paper);
+                    } catch (DuplicateKeyException duplicate) {
+                        logger.debug("略過重複論文: {}", paper.getTitle());
+                    }
+                }
+            }
+        }
+
+        List<Paper> savedPapers = new ArrayList<>(newPapers.size());
+        for (Paper paper : newPapers) {
+            if (paper.getId() != null) {
+                savedPapers.add(paper);
+            }
+        }
+        authorDao.linkAuthors(savedPapers);
+        for (Paper paper : savedPapers) {
+            onPaperSaved(null, paper);
+            paperChangeFeed.inserted(paper);
+        }
+        return savedPapers;
     }
 
     @Override
+    @Timed(value = "paper.service", histogram = true)
+    @Transactional
     public boolean updatePaper(Paper paper) {
-        return paperDao.update(paper) > 0;
+        Paper existing = paperDao.findById(paper.getId());
+        if (existing == null) {
+            return false;
+        }
+        try {
+            if (paperDao.update(paper) > 0) {
+                authorDao.relinkAuthors(paper);
+                // 重新讀取以取得遞增後的版本號，推送與索引都使用資料庫中的內容
+                Paper updated = paperDao.findById(paper.getId());
+                if (updated == null) {
+                    updated = paper;
+                }
+                onPaperSaved(existing, updated);
+                paperChangeFeed.updated(updated);
+                return true;
+            }
+        } catch (DuplicateKeyException e) {
+            logger.warn("更新後的論文與既有論文重複: {}", paper.getTitle());
+        }
+        return false;
+    }
+
+    @Override
+    @Timed(value = "paper.service", histogram = true)
+    @Transactional
+    public PatchResult patchPaper(Long id, Map<String, Object> changes, int expectedVersion) {
+        Map<String, Object> columns = normalizePatch(changes);
+        if (columns.isEmpty()) {
+            // 沒有任何修改時版本號不會遞增，直接拒絕以免回傳錯誤的 ETag
+            throw new IllegalArgumentException("沒有要修改的欄位");
+        }
+
+        // 被覆寫的欄位不必讀取（例如只修改摘要時不載入原本的摘要）；原本的標題與作者用於移除舊指紋
+        Set<String> fields = new HashSet<>(PaperFields.ALL);
+        fields.removeAll(columns.keySet());
+        fields.add("title");
+        fields.add("author");
+        Paper existing = paperDao.findById(id, fields);
+        if (existing == null) {
+            return PatchResult.NOT_FOUND;
+        }
+        if (existing.getVersion() == null || existing.getVersion() != expectedVersion) {
+            return PatchResult.CONFLICT;
+        }
+
+        Paper patched = applyPatch(existing, columns);
+        // 標題或作者有變動時才需要重算指紋
+        String fingerprint = columns.containsKey("title") || columns.containsKey("author")
+            ? PaperFingerprint.of(patched) : null;
+        if (fingerprint != null && !fingerprint.equals(PaperFingerprint.of(existing))
+            && paperFingerprintIndex.contains(fingerprint)) {
+            return PatchResult.DUPLICATE;
+        }
+
+        try {
+            if (paperDao.patch(id, columns, fingerprint, expectedVersion) == 0) {
+                return PatchResult.CONFLICT;
+            }
+        } catch (DuplicateKeyException e) {
+            return PatchResult.DUPLICATE;
+        }
+
+        patched.setVersion(expectedVersion + 1);
+        if (columns.containsKey("author")) {
+            authorDao.relinkAuthors(patched);
+        }
+        onPaperSaved(existing, patched);
+        paperChangeFeed.updated(patched);
+        return PatchResult.UPDATED;
     }
 
     @Override
+    @Timed(value = "paper.service", histogram = true)
     public boolean deletePaper(Long id) {
-        return paperDao.deleteById(id) > 0;
+        Paper existing = paperDao.findById(id);
+        if (existing != null && paperDao.deleteById(id) > 0) {
+            afterCommit(() -> {
+                paperCache.invalidate(id);
+                paperFingerprintIndex.remove(existing);
+                paperSearchIndex.remove(id);
+                paperFacetSnapshot.remove(id);
+                paperNearDuplicateIndex.remove(id);
+                paperListResponseCache.invalidate();
+            });
+            paperChangeFeed.deleted(id);
+            return true;
+        }
+        return false;
+    }
+
+    // 論文寫入資料庫後，更新記憶體中的索引並使列表回應快取失效；previous 為修改前的內容（新增時為 null）
+    private void onPaperSaved(Paper previous, Paper paper) {
+        afterCommit(() -> {
+            if (previous != null) {
+                paperCache.invalidate(paper.getId());
+                paperFingerprintIndex.remove(previous);
+            }
+            paperFingerprintIndex.add(paper);
+            paperSearchIndex.index(paper);
+            paperFacetSnapshot.upsert(paper);
+            paperNearDuplicateIndex.add(paper);
+            paperListResponseCache.invalidate();
+        });
+    }
+
+    // 在交易中（createPaper / saveAll / updatePaper / patchPaper）時等提交後才執行，回滾的寫入不會留在索引裡被當成重複
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 檢查 PATCH 內容的欄位與型別，回傳可直接寫入資料表的欄位值
+     */
+    private static Map<String, Object> normalizePatch(Map<String, Object> changes) {
+        Map<String, Object> columns = new HashMap<>();
+        for (Map.Entry<String, Object> change : changes.entrySet()) {
+            String field = change.getKey();
+            Object value = change.getValue();
+            switch (field) {
+                case "title":
+                case "author":
+                    if (!(value instanceof String) || ((String) value).isBlank()) {
+                        throw new IllegalArgumentException(field + " 不能為空");
+                    }
+                    columns.put(field, value);
+                    break;
+                case "journal":
+                case "abstractText":
+                    if (value != null && !(value instanceof String)) {
+                        throw new IllegalArgumentException(field + " 必須是字串");
+                    }
+                    columns.put(field, value);
+                    break;
+                case "year":
+                    if (value instanceof Number) {
+                        columns.put(field, toYear((Number) value));
+                    } else if (value == null) {
+                        columns.put(field, null);
+                    } else {
+                        throw new IllegalArgumentException("year 必須是數字");
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("不可修改的欄位: " + field);
+            }
+        }
+        return columns;
+    }
+
+    // 只接受整數值（2020 或 2020.0），2020.7 之類的小數不截斷而是拒絕
+    private static Integer toYear(Number value) {
+        double year = value.doubleValue();
+        if (year != Math.rint(year) || year < Integer.MIN_VALUE || year > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("year 必須是整數");
+        }
+        return (int) year;
+    }
+
+    private static Paper applyPatch(Paper existing, Map<String, Object> columns) {
+        Paper patched = new Paper(existing.getId(), existing.getTitle(), existing.getAuthor(),
+            existing.getAbstractText(), existing.getJournal(), existing.getYear());
+        if (columns.containsKey("title")) {
+            patched.setTitle((String) columns.get("title"));
+        }
+        if (columns.containsKey("author")) {
+            patched.setAuthor((String) columns.get("author"));
+        }
+        if (columns.containsKey("journal")) {
+            patched.setJournal((String) columns.get("journal"));
+        }
+        if (columns.containsKey("abstractText")) {
+            patched.setAbstractText((String) columns.get("abstractText"));
+        }
+        if (columns.containsKey("year")) {
+            patched.setYear((Integer) columns.get("year"));
+        }
+        patched.setVersion(existing.getVersion());
+        return patched;
     }
 }
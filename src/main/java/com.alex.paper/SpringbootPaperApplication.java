@@ -2,12 +2,16 @@ package com.alex.paper;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class SpringbootPaperApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(SpringbootPaperApplication.class, args);
+		SpringApplication application = new SpringApplication(SpringbootPaperApplication.class);
+		// 記錄每個 bean 的初始化時間，可由 /actuator/startup 查詢啟動時間軸
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,265 @@
+package com.alex.paper.Cache;
+
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 爬取結果快取：以 CrawlerRequest 的查詢參數為鍵，保存爬蟲回傳的原始論文列表。
+ * 記憶體層為 LRU + TTL，磁碟層每個查詢一個 JSON 檔，重啟後仍可使用；
+ * 去重與年份過濾依資料庫現況決定，因此在取出快取後才進行
+ */
+@Component
+public class CrawlResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlResultCache.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${crawler.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.cache.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${crawler.cache.memory-max-entries:500}")
+    private int memoryMaxEntries;
+
+    @Value("${crawler.cache.disk-max-entries:5000}")
+    private int diskMaxEntries;
+
+    @Value("${crawler.cache.dir:./data/crawl-cache}")
+    private String cacheDir;
+
+    private TtlLruCache<String, CachedCrawl> memory;
+    private Path directory;
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder diskWrites = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        memory = new TtlLruCache<>(memoryMaxEntries, ttlSeconds * 1000);
+        if (!enabled) {
+            return;
+        }
+        try {
+            directory = Files.createDirectories(Paths.get(cacheDir));
+        } catch (IOException e) {
+            logger.warn("無法建立爬取結果快取目錄 {}，只使用記憶體快取: {}", cacheDir, e.getMessage());
+        }
+    }
+
+    /**
+     * 取得快取的爬取結果（回傳複本，呼叫端可自由修改），沒有或已過期時回傳 null
+     */
+    public List<Paper> get(CrawlerRequest request) {
+        if (!enabled) {
+            return null;
+        }
+        String key = key(request);
+        CachedCrawl cached = memory.getIfPresent(key);
+        if (cached == null || isExpired(cached.createdAt)) {
+            cached = readDisk(key);
+            if (cached == null) {
+                return null;
+            }
+            diskHits.increment();
+            memory.put(key, cached);
+        }
+        return copy(cached.papers);
+    }
+
+    /**
+     * 保存爬取結果；沒有結果時不快取（多半是被限流或暫時失敗）
+     */
+    public void put(CrawlerRequest request, List<Paper> papers) {
+        if (!enabled || papers.isEmpty()) {
+            return;
+        }
+        String key = key(request);
+        CachedCrawl cached = new CachedCrawl(System.currentTimeMillis(), copy(papers));
+        memory.put(key, cached);
+        writeDisk(key, cached);
+    }
+
+    public void invalidateAll() {
+        memory.invalidateAll();
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(CrawlResultCache::deleteQuietly);
+        } catch (IOException e) {
+            logger.warn("清除爬取結果快取目錄失敗: {}", e.getMessage());
+        }
+    }
+
+    public TtlLruCache.Stats memoryStats() {
+        return memory.stats();
+    }
+
+    public long getDiskHits() {
+        return diskHits.sum();
+    }
+
+    public long getDiskWrites() {
+        return diskWrites.sum();
+    }
+
+    /**
+     * 快取鍵：關鍵字去除頭尾空白、轉小寫並合併連續空白後加上筆數、年份範圍與排序方式。
+     * 標點保留：C++ / C#、"exact phrase"、author:smith 對 Google Scholar 是不同的查詢
+     */
+    static String key(CrawlerRequest request) {
+        String keyword = request.getKeyword() != null ? request.getKeyword() : "";
+        return WHITESPACE.matcher(keyword.trim().toLowerCase(Locale.ROOT)).replaceAll(" ")
+            + "|" + request.getMaxResults()
+            + "|" + request.getYearFrom()
+            + "|" + request.getYearTo()
+            + "|" + (request.getSortBy() != null ? request.getSortBy() : "relevance");
+    }
+
+    private CachedCrawl readDisk(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(fileName(key));
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(file.toFile());
+            long createdAt = root.path("createdAt").asLong();
+            // 檔名是雜湊值，再比對一次原始鍵避免碰撞
+            if (!key.equals(root.path("key").asText()) || isExpired(createdAt)) {
+                deleteQuietly(file);
+                return null;
+            }
+            List<Paper> papers = new ArrayList<>();
+            for (JsonNode node : root.path("papers")) {
+                papers.add(objectMapper.treeToValue(node, Paper.class));
+            }
+            return new CachedCrawl(createdAt, papers);
+        } catch (IOException e) {
+            logger.warn("讀取爬取結果快取檔失敗，刪除後重新爬取: {}", e.getMessage());
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, CachedCrawl cached) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            ObjectNode root = objectMapper.createObjectNode();
+            root.put("key", key);
+            root.put("createdAt", cached.createdAt);
+            ArrayNode papers = root.putArray("papers");
+            for (Paper paper : cached.papers) {
+                papers.add(objectMapper.valueToTree(paper));
+            }
+            // 先寫暫存檔再原子性取代，避免讀到寫到一半的檔案
+            Path file = directory.resolve(fileName(key));
+            Path temp = Files.createTempFile(directory, "crawl", ".tmp");
+            Files.write(temp, objectMapper.writeValueAsBytes(root));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            diskWrites.increment();
+            evictDisk();
+        } catch (IOException e) {
+            logger.warn("寫入爬取結果快取檔失敗: {}", e.getMessage());
+        }
+    }
+
+    // 檔案數超過上限時，刪除最舊的檔案
+    private void evictDisk() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(path -> path.toString().endsWith(".json")).toList();
+        }
+        if (files.size() <= diskMaxEntries) {
+            return;
+        }
+        files.stream()
+            .sorted(Comparator.comparingLong(CrawlResultCache::lastModified))
+            .limit(files.size() - diskMaxEntries)
+            .forEach(CrawlResultCache::deleteQuietly);
+    }
+
+    private boolean isExpired(long createdAt) {
+        return System.currentTimeMillis() - createdAt > ttlSeconds * 1000;
+    }
+
+    private static String fileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8))) + ".json";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    private static List<Paper> copy(List<Paper> papers) {
+        List<Paper> copies = new ArrayList<>(papers.size());
+        for (Paper paper : papers) {
+            copies.add(new Paper(null, paper.getTitle(), paper.getAuthor(), paper.getAbstractText(),
+                paper.getJournal(), paper.getYear()));
+        }
+        return copies;
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // 刪除失敗時下次再處理
+        }
+    }
+
+    private static final class CachedCrawl {
+        private final long createdAt;
+        private final List<Paper> papers;
+
+        private CachedCrawl(long createdAt, List<Paper> papers) {
+            this.createdAt = createdAt;
+            this.papers = papers;
+        }
+    }
+}
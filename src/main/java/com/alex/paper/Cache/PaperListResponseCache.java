@@ -0,0 +1,225 @@
+package com.alex.paper.Cache;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 論文列表回應的序列化結果快取：保存 JSON 與 gzip 後的位元組，重複請求只需複製記憶體。
+ * 每次寫入都遞增世代號並清空快取；ETag 由啟動時間與世代號組成，不需查詢資料庫即可回應 304。
+ * 筆數與總位元組數都有上限，大型回應（例如整張表）超過單筆上限時只串流輸出、不快取
+ */
+@Component
+public class PaperListResponseCache {
+
+    @Value("${paper.list-cache.max-entries:256}")
+    private int maxEntries;
+
+    // 單筆回應（未壓縮）的上限；產生回應時超過就不再複製，不會先緩衝整份再丟棄
+    @Value("${paper.list-cache.max-entry-bytes:4194304}")
+    private int maxEntryBytes;
+
+    // 所有快取回應（JSON 與 gzip 副本合計）的位元組上限，超過時淘汰最久未使用者
+    @Value("${paper.list-cache.max-total-bytes:67108864}")
+    private long maxTotalBytes;
+
+    @Value("${paper.list-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    // 區分不同次啟動，避免重啟後世代號重複而誤回 304
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong generation = new AtomicLong();
+    private TtlLruCache<String, Entry> entries;
+
+    @PostConstruct
+    public void init() {
+        entries = new TtlLruCache<>(maxEntries, maxTotalBytes, ttlSeconds * 1000, Entry::weight);
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    public String etag(long generation) {
+        return "W/\"" + epoch + "-" + generation + "\"";
+    }
+
+    /**
+     * 取得目前世代的快取回應，沒有或已過期時回傳 null
+     */
+    public Entry get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry != null && entry.generation == generation.get() ? entry : null;
+    }
+
+    /**
+     * 存入回應並回傳；產生回應期間若資料已變動（世代號不同）或超過單筆上限，則只回傳而不快取
+     */
+    public Entry put(String key, long generation, byte[] body, String contentType, Map<String, String> headers) {
+        if (body == null) {
+            return null;
+        }
+        Entry entry = new Entry(generation, etag(generation), body, gzip(body), contentType, headers);
+        if (body.length > maxEntryBytes || generation != this.generation.get()) {
+            return entry;
+        }
+        entries.put(key, entry);
+        // put 之後再確認一次，避免與 invalidate 交錯而留下舊資料
+        if (generation != this.generation.get()) {
+            entries.invalidate(key);
+        }
+        return entry;
+    }
+
+    /**
+     * 資料變動時呼叫；在交易中時於提交後再失效一次，避免提交前被讀取的舊資料留在快取中
+     */
+    public void invalidate() {
+        bump();
+        // 同一交易只註冊一次（批次寫入會對每筆論文呼叫 invalidate）
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+            && !TransactionSynchronizationManager.hasResource(this)) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(PaperListResponseCache.this);
+                    bump();
+                }
+            });
+        }
+    }
+
+    public TtlLruCache.Stats stats() {
+        return entries.stats();
+    }
+
+    /**
+     * 包裝輸出串流：寫給客戶端的同時複製一份，超過單筆上限就放棄複製
+     */
+    public Capture capture(OutputStream out) {
+        return new Capture(out, maxEntryBytes);
+    }
+
+    private void bump() {
+        generation.incrementAndGet();
+        entries.invalidateAll();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public static final class Entry {
+        private final long generation;
+        private final String etag;
+        private final byte[] body;
+        private final byte[] gzipBody;
+        private final String contentType;
+        private final Map<String, String> headers;
+
+        private Entry(long generation, String etag, byte[] body, byte[] gzipBody,
+                      String contentType, Map<String, String> headers) {
+            this.generation = generation;
+            this.etag = etag;
+            this.body = body;
+            this.gzipBody = gzipBody;
+            this.contentType = contentType;
+            this.headers = headers != null ? headers : Collections.emptyMap();
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public byte[] getGzipBody() {
+            return gzipBody;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        // 快取佔用的位元組數，兩份內容都計入
+        private long weight() {
+            return (long) body.length + gzipBody.length;
+        }
+    }
+
+    public static final class Capture extends OutputStream {
+        private final OutputStream out;
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        private Capture(OutputStream out, int limit) {
+            this.out = out;
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (fits(1)) {
+                copy.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (fits(len)) {
+                copy.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        /**
+         * 已寫出內容的副本；超過上限時回傳 null
+         */
+        public byte[] toByteArray() {
+            return copy != null ? copy.toByteArray() : null;
+        }
+
+        // 寫入前先檢查，超過上限就立即釋放已複製的內容
+        private boolean fits(int len) {
+            if (copy != null && copy.size() + len > limit) {
+                copy = null;
+            }
+            return copy != null;
+        }
+    }
+}
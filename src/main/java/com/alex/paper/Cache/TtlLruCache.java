@@ -0,0 +1,221 @@
+package com.alex.paper.Cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 有容量上限（LRU 淘汰）與存活時間（TTL）的記憶體快取，並統計命中率
+ * 不快取 null：查無資料時每次都會交給 loader。
+ * 指定 weigher 時另有總權重上限（例如位元組數），超過時同樣從最久未使用者開始淘汰。
+ * 未命中時的載入帶有每個鍵各自的 token，載入期間被 invalidate 或 put 過的鍵不會被舊資料蓋回
+ */
+public class TtlLruCache<K, V> {
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long weight; // 目前所有項目的權重總和，在 synchronized 內更新
+    private final Map<K, Object> loads = new HashMap<>(); // 進行中的載入，invalidate / put 時移除
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TtlLruCache(int maxSize, long ttlMillis) {
+        this(maxSize, Long.MAX_VALUE, ttlMillis, value -> 0);
+    }
+
+    public TtlLruCache(int maxSize, long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        // accessOrder = true：最近讀取的項目移到尾端，超過上限時淘汰最久未使用者
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlLruCache.this.maxSize) {
+                    weight -= eldest.getValue().weight;
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 讀取快取，未命中或已過期時呼叫 loader 並寫回快取
+     */
+    public V get(K key, Function<K, V> loader) {
+        Object token = new Object();
+        synchronized (this) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+            loads.put(key, token);
+        }
+        V value = null;
+        try {
+            value = loader.apply(key);
+            return value;
+        } finally {
+            synchronized (this) {
+                // 載入期間沒有 invalidate / put，也沒有較晚開始的載入時才寫回
+                if (loads.get(key) == token) {
+                    loads.remove(key);
+                    if (value != null) {
+                        put(key, value);
+                    }
+                }
+            }
+        }
+    }
+
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            weight -= entry.weight;
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * 存入快取；單一項目的權重就超過總上限時不存入
+     */
+    public synchronized void put(K key, V value) {
+        loads.remove(key);
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maxWeight) {
+            invalidate(key);
+            return;
+        }
+        Entry<V> previous = entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis, valueWeight));
+        weight += valueWeight - (previous != null ? previous.weight : 0);
+        // 超過總權重時從最久未使用者開始淘汰（剛存入的項目在尾端，最後才會輪到）
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight;
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        loads.remove(key);
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        loads.clear();
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * 主動清除已過期的項目（過期項目平常只會在被讀到時移除）
+     */
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int purged = 0;
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next();
+            if (entry.expiresAt < now) {
+                iterator.remove();
+                weight -= entry.weight;
+                purged++;
+            }
+        }
+        evictions.add(purged);
+        return purged;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 目前所有項目的權重總和；未指定 weigher 時為 0
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size(), maxSize);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+        private final long weight;
+
+        private Entry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+        private final int maxSize;
+
+        public Stats(long hits, long misses, long evictions, int size, int maxSize) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+            this.maxSize = maxSize;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
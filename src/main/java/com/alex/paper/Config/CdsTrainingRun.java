@@ -0,0 +1,28 @@
+package com.alex.paper.Config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 建置容器映像時的 AppCDS 訓練執行：context 啟動完成後立即結束程式，
+ * 讓 JVM 以 -XX:ArchiveClassesAtExit 把載入過的類別寫成共享封存檔。
+ * 在 ApplicationReadyEvent 之前結束，因此不會執行需要資料庫的索引載入
+ */
+@Component
+@ConditionalOnProperty(name = "paper.cds.training", havingValue = "true")
+public class CdsTrainingRun {
+
+    private static final Logger logger = LoggerFactory.getLogger(CdsTrainingRun.class);
+
+    // ApplicationStartedEvent 在 refresh 完成後才發布，此時結束不會與 context 關閉流程互相等待
+    @EventListener(ApplicationStartedEvent.class)
+    public void exitAfterStartup(ApplicationStartedEvent event) {
+        logger.info("AppCDS 訓練執行完成，結束程式");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
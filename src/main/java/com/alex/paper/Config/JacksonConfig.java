@@ -0,0 +1,18 @@
+package com.alex.paper.Config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Paper 標註了 @JsonFilter，沒有指定 filter 的序列化（一般回應）要照常輸出全部欄位
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer paperFieldFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider().setFailOnUnknownId(false));
+    }
+}
@@ -0,0 +1,162 @@
+package com.alex.paper.Config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Python 爬蟲微服務專用的 HTTP client：keep-alive 連線池，/crawl、/crawl/batch 與 /health 共用連線
+ */
+@Configuration
+public class PythonCrawlerClientConfig {
+
+    // 建立 TCP 連線的上限
+    @Value("${python.crawler.connect-timeout:2000}")
+    private long connectTimeoutMs;
+
+    // 兩次讀到資料之間的最長間隔
+    @Value("${python.crawler.timeout:30000}")
+    private long readTimeoutMs;
+
+    // 單次請求從借連線到讀完回應的總上限，超過時直接中止
+    @Value("${python.crawler.total-timeout:120000}")
+    private long totalTimeoutMs;
+
+    @Value("${python.crawler.pool.max-connections:20}")
+    private int maxConnections;
+
+    // 閒置連線保留時間，需短於 Python 端 gunicorn --keep-alive，避免拿到已被對方關閉的連線
+    @Value("${python.crawler.pool.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+
+    // 不註冊成 bean，避免被 Spring 當成 @Scheduled 的預設排程器
+    private final ScheduledExecutorService deadlineScheduler = createDeadlineScheduler();
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager pythonCrawlerConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            // 只連到單一主機，每個 route 可用滿整個池
+            .setMaxConnPerRoute(maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .setTimeToLive(TimeValue.ofMinutes(5))
+                .build())
+            .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient pythonCrawlerHttpClient(
+            @Qualifier("pythonCrawlerConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // 池滿時等待可用連線的上限
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .addExecInterceptorFirst("total-timeout", totalTimeout())
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+            // 爬取請求不是冪等的，失敗交給呼叫端的備用方案處理
+            .disableAutomaticRetries()
+            .build();
+    }
+
+    @Bean
+    public RestTemplate pythonCrawlerRestTemplate(
+            @Qualifier("pythonCrawlerHttpClient") CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+    }
+
+    /**
+     * read timeout 只限制單次讀取的間隔，總時間由排程的 cancel() 保證。
+     * 回應關閉（或請求失敗）時取消排程，完成的請求不會在排程佇列中留到 total-timeout 才移除
+     */
+    private ExecChainHandler totalTimeout() {
+        return (request, scope, chain) -> {
+            // httpclient 5.2 的 Scope 沒有 cancellableDependency，改用原始請求（HttpUriRequestBase）本身取消
+            if (totalTimeoutMs <= 0 || !(scope.originalRequest instanceof CancellableDependency cancellable)) {
+                return chain.proceed(request, scope);
+            }
+            ScheduledFuture<?> deadline = deadlineScheduler.schedule(cancellable::cancel, totalTimeoutMs, TimeUnit.MILLISECONDS);
+            ClassicHttpResponse response;
+            try {
+                response = chain.proceed(request, scope);
+            } catch (IOException | HttpException | RuntimeException e) {
+                deadline.cancel(false);
+                throw e;
+            }
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                deadline.cancel(false);
+                return response;
+            }
+            // 回應內容讀完之前仍受總時間限制（例如串流的 /crawl/batch）
+            response.setEntity(new HttpEntityWrapper(entity) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deadline.cancel(false);
+                    }
+                }
+            });
+            return response;
+        };
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineScheduler.shutdownNow();
+    }
+
+    private static ScheduledExecutorService createDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "python-crawler-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 取消的排程立即移出佇列，否則仍會佔著佇列直到原本的時間
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
+    /**
+     * 連線池指標：httpcomponents.httpclient.pool.total.max / connections / pending 等，以 httpclient=python-crawler 標記
+     */
+    @Bean
+    public MeterBinder pythonCrawlerPoolMetrics(
+            @Qualifier("pythonCrawlerConnectionManager") PoolingHttpClientConnectionManager connectionManager) {
+        return new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "python-crawler");
+    }
+}
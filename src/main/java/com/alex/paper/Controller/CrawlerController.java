@@ -1,15 +1,23 @@
 package com.alex.paper.Controller;
 
+import com.alex.paper.Cache.CrawlResultCache;
+import com.alex.paper.DTO.CrawlJob;
+import com.alex.paper.DTO.CrawlJobRequest;
 import com.alex.paper.DTO.CrawlerRequest;
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Service.CrawlJobService;
 import com.alex.paper.Service.CrawlerService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/crawler")
@@ -19,6 +27,12 @@ public class CrawlerController {
     @Autowired
     private CrawlerService crawlerService;
 
+    @Autowired
+    private CrawlJobService crawlJobService;
+
+    @Autowired
+    private CrawlResultCache crawlResultCache;
+
     @PostMapping("/crawl")
     public ResponseEntity<Map<String, Object>> crawlPapers(@RequestBody CrawlerRequest request) {
         try {
@@ -51,7 +65,10 @@ public class CrawlerController {
             response.put("papers", savedPapers);
             response.put("count", savedPapers.size());
             response.put("keyword", request.getKeyword());
-            response.put("message", "論文已成功爬取並儲存到資料庫");
+            boolean queued = crawlerService.isWriteBehind();
+            response.put("queued", queued);
+            // 寫入佇列模式下論文只寫入了 journal，尚未取得 id
+            response.put("message", queued ? "論文已成功爬取，已排入寫入佇列" : "論文已成功爬取並儲存到資料庫");
             
             return ResponseEntity.ok(response);
             
@@ -122,7 +139,9 @@ public class CrawlerController {
             response.put("count", savedPapers.size());
             response.put("keywords", keywords);
             response.put("maxResultsPerKeyword", maxResultsPerKeyword);
-            response.put("message", "批量論文已成功爬取並儲存到資料庫");
+            boolean queued = crawlerService.isWriteBehind();
+            response.put("queued", queued);
+            response.put("message", queued ? "批量論文已成功爬取，已排入寫入佇列" : "批量論文已成功爬取並儲存到資料庫");
             
             return ResponseEntity.ok(response);
             
@@ -144,7 +163,9 @@ public class CrawlerController {
             response.put("success", true);
             response.put("papers", savedPapers);
             response.put("count", savedPapers.size());
-            response.put("message", "選定的論文已成功儲存到資料庫");
+            boolean queued = crawlerService.isWriteBehind();
+            response.put("queued", queued);
+            response.put("message", queued ? "選定的論文已排入寫入佇列" : "選定的論文已成功儲存到資料庫");
             
             return ResponseEntity.ok(response);
             
@@ -157,6 +178,96 @@ public class CrawlerController {
         }
     }
 
+    // 建立非同步爬取工作，立即回傳工作 ID（202），爬取在背景執行緒池中進行
+    @PostMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> createCrawlJob(@RequestBody CrawlJobRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            CrawlJob job = crawlJobService.submit(request);
+            response.put("success", true);
+            response.put("jobId", job.getJobId());
+            response.put("status", job.getStatus());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.LOCATION, "/api/crawler/jobs/" + job.getJobId())
+                .body(response);
+        } catch (RejectedExecutionException e) {
+            response.put("success", false);
+            response.put("error", "爬取工作已滿，請稍後再試");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    // 所有爬取工作的狀態（不含論文內容）
+    @GetMapping("/jobs")
+    public ResponseEntity<Map<String, Object>> listCrawlJobs() {
+        List<Map<String, Object>> jobs = new ArrayList<>();
+        for (CrawlJob job : crawlJobService.getAllJobs()) {
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("jobId", job.getJobId());
+            summary.put("status", job.getStatus());
+            summary.put("totalKeywords", job.getTotalKeywords());
+            summary.put("completedKeywords", job.getCompletedKeywords());
+            summary.put("paperCount", job.getPaperCount());
+            summary.put("createdAt", job.getCreatedAt());
+            jobs.add(summary);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("jobs", jobs);
+        return ResponseEntity.ok(response);
+    }
+
+    // 工作進度與目前為止爬到的論文
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getCrawlJob(@PathVariable String jobId) {
+        CrawlJob job = crawlJobService.getJob(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+        return ResponseEntity.ok(response);
+    }
+
+    // 取消工作，已爬到的部分結果保留
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelCrawlJob(@PathVariable String jobId) {
+        CrawlJob job = crawlJobService.cancel(jobId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("job", job);
+        return ResponseEntity.ok(response);
+    }
+
+    // 爬取結果快取的命中統計（記憶體層與磁碟層）
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCrawlCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("memory", crawlResultCache.memoryStats());
+        response.put("diskHits", crawlResultCache.getDiskHits());
+        response.put("diskWrites", crawlResultCache.getDiskWrites());
+        return ResponseEntity.ok(response);
+    }
+
+    // 清除爬取結果快取，下次查詢會重新對外爬取
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> clearCrawlCache() {
+        crawlResultCache.invalidateAll();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", "爬取結果快取已清除");
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> checkHealth() {
         try {
@@ -165,6 +276,7 @@ public class CrawlerController {
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
             response.put("pythonCrawlerHealthy", pythonCrawlerHealthy);
+            response.put("backends", crawlerService.getBackendStatus());
             response.put("message", "爬蟲服務健康檢查完成");
             
             return ResponseEntity.ok(response);
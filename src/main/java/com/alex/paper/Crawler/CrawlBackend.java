@@ -0,0 +1,27 @@
+package com.alex.paper.Crawler;
+
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+
+import java.util.List;
+
+/**
+ * 一種爬取 Google Scholar 的方式（Python 微服務、Selenium、Jsoup），由 CrawlBackendRouter 依近期表現選擇
+ */
+public interface CrawlBackend {
+
+    /**
+     * 用於設定、指標與日誌的名稱，例如 python、selenium、jsoup
+     */
+    String name();
+
+    /**
+     * 爬取單一關鍵字；失敗（包含被限流）時拋出例外，不要以空結果代替
+     */
+    List<Paper> crawl(CrawlerRequest request) throws Exception;
+
+    /**
+     * 背景健康檢查，不應對 Google Scholar 發出請求以免消耗限流額度
+     */
+    boolean probe();
+}
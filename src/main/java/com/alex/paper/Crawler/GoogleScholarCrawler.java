@@ -1,141 +1,271 @@
 package com.alex.paper.Crawler;
 
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.PaperFingerprint;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
+@Lazy
 @Component
 public class GoogleScholarCrawler {
 
-    private WebDriver driver;
-    private WebDriverWait wait;
-    private boolean driverInitialized = false;
+    private static final Logger logger = LoggerFactory.getLogger(GoogleScholarCrawler.class);
 
-    public GoogleScholarCrawler() {
-        try {
-            initializeDriver();
-            driverInitialized = true;
-        } catch (Exception e) {
-            System.err.println("ChromeDriver 初始化失敗: " + e.getMessage());
-            System.err.println("沒有找到ChromeDriver");
-            driverInitialized = false;
-        }
+    // Google Scholar 的主機名稱，作為限流器的鍵
+    static final String SCHOLAR_HOST = "scholar.google.com";
+
+    // 每頁固定 10 筆，第 n 頁以 start=10*n 取得
+    private static final int RESULTS_PER_PAGE = 10;
+
+    @Autowired
+    private WebDriverPool webDriverPool;
+
+    @Autowired
+    private HostRateLimiter hostRateLimiter;
+
+    // 單次爬取最多抓取的頁數（maxResults 上限為頁數 x 10）
+    @Value("${crawler.pagination.max-pages:10}")
+    private int maxPages;
+
+    // 同時抓取的頁面數；實際請求速率仍由 HostRateLimiter 控制
+    @Value("${crawler.pagination.max-concurrency:4}")
+    private int maxConcurrency;
+
+    private ExecutorService pageExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pageExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "scholar-page-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
-    private void initializeDriver() {
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--headless"); // 無頭模式
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-        options.addArguments("--disable-gpu");
-        options.addArguments("--window-size=1920,1080");
-        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36");
-
-        driver = new ChromeDriver(options);
-        wait = new WebDriverWait(driver, Duration.ofSeconds(10));
+    /**
+     * 使用 Selenium 爬取；沒有可用的瀏覽器、頁面無法載入或被要求 CAPTCHA 驗證時拋出例外。
+     * maxResults 超過一頁時，各頁同時以不同的瀏覽器 session 載入
+     */
+    public List<Paper> fetchWithSelenium(String keyword, int maxResults) throws IOException, InterruptedException {
+        return fetchPages(keyword, maxResults, this::fetchSeleniumPage);
     }
 
-    public List<Paper> crawlPapers(String keyword, int maxResults) {
+    /**
+     * 使用 Jsoup 直接發送 HTTP 請求；回應 429 / 503、連線失敗或被要求 CAPTCHA 驗證時拋出例外。
+     * maxResults 超過一頁時，各頁同時發送（仍受限流器控制）
+     */
+    public List<Paper> fetchWithJsoup(String keyword, int maxResults) throws IOException, InterruptedException {
+        return fetchPages(keyword, maxResults, this::fetchJsoupPage);
+    }
+
+    @FunctionalInterface
+    private interface PageFetcher {
+        Page fetch(String keyword, int start) throws Exception;
+    }
+
+    /**
+     * 單一結果頁：resultCount 是頁面上的 .gs_r 數量，包含解析不出標題而被略過的項目，
+     * 用來判斷是否已是最後一頁
+     */
+    private record Page(List<Paper> papers, int resultCount) {
+    }
+
+    /**
+     * 依 maxResults 計算需要的頁數並同時抓取，再依頁序合併去重，保持 Google Scholar 的排名順序。
+     * 已湊滿 maxResults 或遇到不足一頁的最後一頁時，取消其餘尚未完成的頁面；
+     * 第一頁失敗視為整次爬取失敗，之後的頁面失敗則回傳已取得的部分
+     */
+    private List<Paper> fetchPages(String keyword, int maxResults, PageFetcher fetcher)
+            throws IOException, InterruptedException {
+        int pageCount = Math.min(maxPages, Math.max(1, (maxResults + RESULTS_PER_PAGE - 1) / RESULTS_PER_PAGE));
+        if (pageCount == 1) {
+            try {
+                return truncate(fetcher.fetch(keyword, 0).papers(), maxResults);
+            } catch (Exception e) {
+                throw rethrow(e);
+            }
+        }
+
+        List<Future<Page>> pages = new ArrayList<>(pageCount);
+        for (int page = 0; page < pageCount; page++) {
+            int start = page * RESULTS_PER_PAGE;
+            pages.add(pageExecutor.submit(() -> fetcher.fetch(keyword, start)));
+        }
+
         List<Paper> papers = new ArrayList<>();
-        
-        if (driverInitialized && driver != null) {
-            // 使用 Selenium 爬取
-            papers = crawlWithSelenium(keyword, maxResults);
-        } else {
-            // 使用 Jsoup 爬取（備用方案）
-            papers = crawlWithJsoup(keyword, maxResults);
+        Set<String> seen = new HashSet<>();
+        try {
+            for (int page = 0; page < pageCount; page++) {
+                Page pageResult;
+                try {
+                    pageResult = pages.get(page).get();
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                    if (page == 0) {
+                        throw rethrow(cause);
+                    }
+                    logger.warn("關鍵字 '{}' 第 {} 頁爬取失敗，回傳前 {} 頁的結果: {}", keyword, page + 1, page, cause.getMessage());
+                    break;
+                }
+                for (Paper paper : pageResult.papers()) {
+                    // 相鄰頁面可能因排名變動而重複出現同一篇
+                    if (papers.size() < maxResults && seen.add(PaperFingerprint.of(paper))) {
+                        papers.add(paper);
+                    }
+                }
+                // 以頁面上的結果數判斷，個別項目解析失敗不代表後面沒有下一頁
+                if (papers.size() >= maxResults || pageResult.resultCount() < RESULTS_PER_PAGE) {
+                    break;
+                }
+            }
+        } finally {
+            // 尚在排隊或等待限流許可的頁面直接取消，不再對外發出請求
+            pages.forEach(future -> future.cancel(true));
         }
-        
         return papers;
     }
 
-    private List<Paper> crawlWithSelenium(String keyword, int maxResults) {
-        List<Paper> papers = new ArrayList<>();
-        
-        try {
-            // 1. 訪問 Google Scholar
-            String searchUrl = buildSearchUrl(keyword);
-            driver.get(searchUrl);
-            
-            // 2. 等待頁面載入
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(".gs_r")));
-            
-            // 3. 解析搜尋結果
-            String pageSource = driver.getPageSource();
-            Document doc = Jsoup.parse(pageSource);
-            
-            // 4. 提取論文資訊
-            Elements paperElements = doc.select(".gs_r");
-            
-            for (Element element : paperElements) {
-                if (papers.size() >= maxResults) break;
+    private Page fetchSeleniumPage(String keyword, int start) throws InterruptedException {
+        // 從連線池借出瀏覽器，可同時進行的 Selenium 爬取數量等於池大小
+        try (WebDriverPool.Lease lease = webDriverPool.lease()) {
+            if (lease == null) {
+                throw new IllegalStateException("沒有可用的瀏覽器 session");
+            }
+            WebDriver driver = lease.driver();
+            try {
+                // 1. 訪問 Google Scholar（先取得限流器許可）
+                String searchUrl = buildSearchUrl(keyword, start);
+                hostRateLimiter.acquire(SCHOLAR_HOST);
+                driver.get(searchUrl);
+                lease.pageLoaded();
                 
-                Paper paper = extractPaperInfo(element);
-                if (paper != null) {
-                    papers.add(paper);
+                // 2. 等待頁面載入；被導向 CAPTCHA 頁面時不會出現搜尋結果
+                try {
+                    new WebDriverWait(driver, Duration.ofSeconds(10))
+                        .until(ExpectedConditions.presenceOfElementLocated(By.cssSelector(".gs_r")));
+                } catch (TimeoutException e) {
+                    // 交給下方的 CAPTCHA 檢查判斷
                 }
+                
+                // 3. 解析搜尋結果
+                Document doc = Jsoup.parse(driver.getPageSource());
+                if (isBlocked(doc)) {
+                    hostRateLimiter.onThrottled(SCHOLAR_HOST);
+                    // 被要求驗證的 session 不再重用
+                    throw new IllegalStateException("Google Scholar 要求 CAPTCHA 驗證");
+                }
+                hostRateLimiter.onSuccess(SCHOLAR_HOST);
+                
+                // 4. 提取論文資訊
+                return extractPage(doc);
+            } catch (RuntimeException e) {
+                // 瀏覽器狀態不明，歸還時直接關閉
+                lease.markBroken();
+                throw e;
             }
-            
-        } catch (Exception e) {
-            System.err.println("Selenium 爬取失敗: " + e.getMessage());
-            // 如果 Selenium 失敗，嘗試使用 Jsoup
-            papers = crawlWithJsoup(keyword, maxResults);
         }
-        
-        return papers;
     }
 
-    private List<Paper> crawlWithJsoup(String keyword, int maxResults) {
-        List<Paper> papers = new ArrayList<>();
+    private Page fetchJsoupPage(String keyword, int start) throws IOException, InterruptedException {
+        // 1. 建立搜尋 URL
+        String searchUrl = buildSearchUrl(keyword, start);
         
+        // 2. 使用 Jsoup 直接發送 HTTP 請求（先取得限流器許可）
+        hostRateLimiter.acquire(SCHOLAR_HOST);
+        Document doc;
         try {
-            // 1. 建立搜尋 URL
-            String searchUrl = buildSearchUrl(keyword);
-            
-            // 2. 使用 Jsoup 直接發送 HTTP 請求
-            Document doc = Jsoup.connect(searchUrl)
+            doc = Jsoup.connect(searchUrl)
                     .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
                     .timeout(10000)
                     .get();
-            
-            // 3. 提取論文資訊
-            Elements paperElements = doc.select(".gs_r");
-            
-            for (Element element : paperElements) {
-                if (papers.size() >= maxResults) break;
-                
-                Paper paper = extractPaperInfo(element);
-                if (paper != null) {
-                    papers.add(paper);
-                }
+        } catch (HttpStatusException e) {
+            if (e.getStatusCode() == 429 || e.getStatusCode() == 503) {
+                hostRateLimiter.onThrottled(SCHOLAR_HOST);
             }
-            
-        } catch (Exception e) {
-            System.err.println("Jsoup 爬取失敗: " + e.getMessage());
+            throw e;
         }
+        if (isBlocked(doc)) {
+            hostRateLimiter.onThrottled(SCHOLAR_HOST);
+            throw new IOException("Google Scholar 要求 CAPTCHA 驗證");
+        }
+        hostRateLimiter.onSuccess(SCHOLAR_HOST);
         
-        return papers;
+        // 3. 提取論文資訊
+        return extractPage(doc);
     }
 
-    private String buildSearchUrl(String keyword) {
-        return "https://scholar.google.com/scholar?q=" + keyword.replace(" ", "+");
+    private static List<Paper> truncate(List<Paper> papers, int maxResults) {
+        return papers.size() > maxResults ? new ArrayList<>(papers.subList(0, maxResults)) : papers;
     }
 
-    private Paper extractPaperInfo(Element element) {
+    private static IOException rethrow(Exception e) throws InterruptedException {
+        if (e instanceof InterruptedException interrupted) {
+            throw interrupted;
+        }
+        if (e instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        return e instanceof IOException io ? io : new IOException(e.getMessage(), e);
+    }
+
+    private static Page extractPage(Document doc) {
+        List<Paper> papers = new ArrayList<>();
+        Elements paperElements = doc.select(".gs_r");
+        
+        for (Element element : paperElements) {
+            if (papers.size() >= RESULTS_PER_PAGE) break;
+            
+            Paper paper = extractPaperInfo(element);
+            if (paper != null) {
+                papers.add(paper);
+            }
+        }
+        return new Page(papers, paperElements.size());
+    }
+
+    private String buildSearchUrl(String keyword, int start) {
+        String url = "https://" + SCHOLAR_HOST + "/scholar?q=" + keyword.replace(" ", "+");
+        return start > 0 ? url + "&start=" + start : url;
+    }
+
+    /**
+     * Google Scholar 判定為異常流量時會回傳 CAPTCHA 頁面（HTTP 200）
+     */
+    static boolean isBlocked(Document doc) {
+        return doc.selectFirst("#gs_captcha_f, #captcha-form, form[action*=sorry]") != null
+            || doc.text().contains("unusual traffic");
+    }
+
+    private static Paper extractPaperInfo(Element element) {
         try {
             // 提取標題
             Element titleElement = element.select(".gs_rt a").first();
@@ -207,13 +337,9 @@ public class GoogleScholarCrawler {
         return null;
     }
 
+    @PreDestroy
     public void close() {
-        if (driver != null) {
-            try {
-                driver.quit();
-            } catch (Exception e) {
-                System.err.println("關閉 ChromeDriver 時發生錯誤: " + e.getMessage());
-            }
-        }
+        pageExecutor.shutdownNow();
+        webDriverPool.close();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package com.alex.paper.Crawler;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 依主機分開的 token bucket 限流器，Jsoup、Selenium 與 Python 代理三條爬取路徑共用。
+ * 速率以 AIMD 調整：每次成功線性增加，遇到 429 / 503 / CAPTCHA 時減半並暫停一段時間。
+ * 對同一主機的總額度以這裡為準；Python 服務的限流器只負責它自己送出的各頁請求之間的間隔（見 acquireForRemote）
+ */
+@Component
+public class HostRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostRateLimiter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 每秒請求數
+    @Value("${crawler.rate-limit.initial-rate:0.5}")
+    private double initialRate;
+
+    @Value("${crawler.rate-limit.min-rate:0.05}")
+    private double minRate;
+
+    @Value("${crawler.rate-limit.max-rate:2.0}")
+    private double maxRate;
+
+    // 閒置後可累積的請求數
+    @Value("${crawler.rate-limit.burst:2}")
+    private double burst;
+
+    @Value("${crawler.rate-limit.increase-step:0.05}")
+    private double increaseStep;
+
+    @Value("${crawler.rate-limit.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    // 被限流後暫停對該主機發送請求的時間
+    @Value("${crawler.rate-limit.penalty-ms:30000}")
+    private long penaltyMs;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 取得一次對該主機發送請求的許可，必要時等待
+     */
+    public void acquire(String host) throws InterruptedException {
+        acquire(host, 1);
+    }
+
+    public void acquire(String host, int permits) throws InterruptedException {
+        Bucket bucket = bucket(host);
+        long waitMs = bucket.reserve(permits);
+        if (waitMs > 0) {
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                // 等待中被取消（例如多頁爬取已湊滿結果）的請求沒有送出，歸還預約的許可
+                bucket.refund(permits);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 呼叫會自行控制請求間隔的遠端服務（Python 爬蟲）前使用：只等待第一個許可，其餘許可直接預支，
+     * 本機的 Jsoup / Selenium 會因此讓出對應的額度；若這裡也等足全部許可，遠端又逐頁等待，延遲會加倍
+     */
+    public void acquireForRemote(String host, int permits) throws InterruptedException {
+        acquire(host, 1);
+        if (permits > 1) {
+            bucket(host).reserve(permits - 1);
+        }
+    }
+
+    /**
+     * 歸還預支但沒有用到的許可（例如遠端服務提早結束或請求沒有送達）
+     */
+    public void refund(String host, int permits) {
+        if (permits > 0) {
+            bucket(host).refund(permits);
+        }
+    }
+
+    public void onSuccess(String host) {
+        bucket(host).increase();
+    }
+
+    /**
+     * 收到 429 / 503 或 CAPTCHA 頁面時呼叫
+     */
+    public void onThrottled(String host) {
+        double rate = bucket(host).decrease();
+        logger.warn("{} 回應限流，速率降為每秒 {} 次並暫停 {} ms", host, String.format("%.3f", rate), penaltyMs);
+    }
+
+    public double currentRate(String host) {
+        return bucket(host).rate;
+    }
+
+    private Bucket bucket(String host) {
+        return buckets.computeIfAbsent(host, key -> {
+            Bucket bucket = new Bucket();
+            Gauge.builder("crawler.rate.limit", bucket, b -> b.rate)
+                .description("Current outbound request rate per second")
+                .tag("host", key)
+                .register(meterRegistry);
+            return bucket;
+        });
+    }
+
+    private final class Bucket {
+        private volatile double rate = initialRate;
+        private double tokens = Math.min(burst, 1);
+        private long lastRefill = System.nanoTime();
+
+        /**
+         * 預約 permits 個許可並回傳需等待的毫秒數；許可可以預支（tokens 為負），
+         * 讓等待中的請求依序排隊而不需要輪詢
+         */
+        synchronized long reserve(int permits) {
+            refill();
+            tokens -= permits;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / rate * 1000);
+        }
+
+        synchronized void refund(int permits) {
+            refill();
+            tokens = Math.min(burst, tokens + permits);
+        }
+
+        synchronized void increase() {
+            refill();
+            rate = Math.min(maxRate, rate + increaseStep);
+        }
+
+        synchronized double decrease() {
+            refill();
+            rate = Math.max(minRate, rate * decreaseFactor);
+            // 以預支 penaltyMs 份的許可來暫停，之後的請求仍依序間隔放行，不會在暫停結束時一起送出
+            tokens = Math.min(tokens, 0) - rate * penaltyMs / 1000.0;
+            return rate;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (now - lastRefill) / 1e9 * rate);
+            lastRefill = now;
+        }
+    }
+}
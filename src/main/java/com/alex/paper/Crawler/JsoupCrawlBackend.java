@@ -0,0 +1,36 @@
+package com.alex.paper.Crawler;
+
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class JsoupCrawlBackend implements CrawlBackend {
+
+    // 延遲載入：真正被選中時才建立爬蟲
+    @Lazy
+    @Autowired
+    private GoogleScholarCrawler googleScholarCrawler;
+
+    @Override
+    public String name() {
+        return "jsoup";
+    }
+
+    @Override
+    public List<Paper> crawl(CrawlerRequest request) throws Exception {
+        return googleScholarCrawler.fetchWithJsoup(request.getKeyword(), request.getMaxResults());
+    }
+
+    /**
+     * 沒有本地依賴，唯一的失敗來源是 Google Scholar 本身，由實際請求的結果判斷
+     */
+    @Override
+    public boolean probe() {
+        return true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.alex.paper.Crawler;
+
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class SeleniumCrawlBackend implements CrawlBackend {
+
+    // 延遲載入：真正被選中時才建立爬蟲與瀏覽器池
+    @Lazy
+    @Autowired
+    private GoogleScholarCrawler googleScholarCrawler;
+
+    @Lazy
+    @Autowired
+    private WebDriverPool webDriverPool;
+
+    @Override
+    public String name() {
+        return "selenium";
+    }
+
+    @Override
+    public List<Paper> crawl(CrawlerRequest request) throws Exception {
+        return googleScholarCrawler.fetchWithSelenium(request.getKeyword(), request.getMaxResults());
+    }
+
+    /**
+     * 只檢查瀏覽器池是否停用或最近啟動失敗，不會因此啟動 ChromeDriver
+     */
+    @Override
+    public boolean probe() {
+        return webDriverPool.isAvailable();
+    }
+}
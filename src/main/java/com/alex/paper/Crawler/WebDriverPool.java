@@ -0,0 +1,194 @@
+package com.alex.paper.Crawler;
+
+import jakarta.annotation.PreDestroy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 無頭瀏覽器的連線池：第一次需要時才啟動 ChromeDriver，每次爬取借出一個 session，
+ * 歸還前檢查是否仍可用，使用超過指定頁數就關閉重建，避免瀏覽器記憶體持續成長
+ */
+@Lazy
+@Component
+public class WebDriverPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebDriverPool.class);
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+
+    @Value("${crawler.selenium.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.selenium.pool-size:2}")
+    private int poolSize;
+
+    @Value("${crawler.selenium.max-pages-per-session:50}")
+    private int maxPagesPerSession;
+
+    @Value("${crawler.selenium.lease-timeout-ms:30000}")
+    private long leaseTimeoutMs;
+
+    // ChromeDriver 無法啟動（例如環境中沒有 Chrome）時，這段時間內不再嘗試，直接改用 Jsoup
+    @Value("${crawler.selenium.retry-after-failure-ms:300000}")
+    private long retryAfterFailureMs;
+
+    private final Deque<Session> idle = new ArrayDeque<>();
+    private Semaphore permits;
+    private volatile long unavailableUntil;
+    private volatile boolean closed;
+
+    /**
+     * 是否值得嘗試借用瀏覽器：未停用、未關閉，且最近沒有啟動失敗
+     */
+    public boolean isAvailable() {
+        return enabled && !closed && System.currentTimeMillis() >= unavailableUntil;
+    }
+
+    /**
+     * 借出一個瀏覽器 session；池已滿且等待逾時、或無法啟動 ChromeDriver 時回傳 null
+     */
+    public Lease lease() throws InterruptedException {
+        if (!isAvailable()) {
+            return null;
+        }
+        Semaphore semaphore = permits();
+        if (!semaphore.tryAcquire(leaseTimeoutMs, TimeUnit.MILLISECONDS)) {
+            logger.warn("等待瀏覽器 session 逾時（池大小 {}）", poolSize);
+            return null;
+        }
+        try {
+            Session session;
+            while ((session = pollIdle()) != null) {
+                if (isHealthy(session)) {
+                    return new Lease(session);
+                }
+                quit(session);
+            }
+            return new Lease(new Session(createDriver()));
+        } catch (RuntimeException e) {
+            semaphore.release();
+            unavailableUntil = System.currentTimeMillis() + retryAfterFailureMs;
+            logger.error("ChromeDriver 啟動失敗，{} ms 內改用 Jsoup: {}", retryAfterFailureMs, e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        synchronized (idle) {
+            for (Session session : idle) {
+                quit(session);
+            }
+            idle.clear();
+        }
+    }
+
+    private synchronized Semaphore permits() {
+        if (permits == null) {
+            permits = new Semaphore(poolSize, true);
+        }
+        return permits;
+    }
+
+    private Session pollIdle() {
+        synchronized (idle) {
+            return idle.pollFirst();
+        }
+    }
+
+    private void release(Session session, boolean broken) {
+        try {
+            if (broken || closed || session.pages >= maxPagesPerSession) {
+                quit(session);
+            } else {
+                synchronized (idle) {
+                    idle.addFirst(session); // 優先重用最近使用的 session
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static boolean isHealthy(Session session) {
+        try {
+            session.driver.getWindowHandle();
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static WebDriver createDriver() {
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless"); // 無頭模式
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--user-agent=" + USER_AGENT);
+        return new ChromeDriver(options);
+    }
+
+    private static void quit(Session session) {
+        try {
+            session.driver.quit();
+        } catch (RuntimeException e) {
+            logger.warn("關閉 ChromeDriver 時發生錯誤: {}", e.getMessage());
+        }
+    }
+
+    private static final class Session {
+        private final WebDriver driver;
+        private int pages;
+
+        private Session(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+
+    /**
+     * 借出的 session，以 try-with-resources 歸還；爬取出錯時呼叫 markBroken 讓它被關閉而非重用
+     */
+    public final class Lease implements AutoCloseable {
+        private final Session session;
+        private boolean broken;
+        private boolean released;
+
+        private Lease(Session session) {
+            this.session = session;
+        }
+
+        public WebDriver driver() {
+            return session.driver;
+        }
+
+        public void pageLoaded() {
+            session.pages++;
+        }
+
+        public void markBroken() {
+            broken = true;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(session, broken);
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.alex.paper.DTO;
+
+import com.alex.paper.Model.Paper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 非同步爬取工作的狀態與目前為止的結果，工作執行緒更新、查詢端讀取
+ */
+public class CrawlJob {
+    private final String jobId;
+    private final List<String> keywords;
+    private final int maxResultsPerKeyword;
+    private final boolean save;
+    private final long createdAt;
+    private volatile String status = "QUEUED"; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private volatile int completedKeywords;
+    private final List<String> failedKeywords = Collections.synchronizedList(new ArrayList<>());
+    private final List<Paper> papers = Collections.synchronizedList(new ArrayList<>());
+    private volatile int savedCount;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public CrawlJob(String jobId, List<String> keywords, int maxResultsPerKeyword, boolean save) {
+        this.jobId = jobId;
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(keywords));
+        this.maxResultsPerKeyword = maxResultsPerKeyword;
+        this.save = save;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public synchronized boolean start() {
+        if (!"QUEUED".equals(status)) {
+            return false;
+        }
+        startedAt = System.currentTimeMillis();
+        status = "RUNNING";
+        return true;
+    }
+
+    public void recordKeyword(List<Paper> found, int saved) {
+        papers.addAll(found);
+        savedCount += saved;
+        completedKeywords++;
+    }
+
+    public void recordFailedKeyword(String keyword) {
+        failedKeywords.add(keyword);
+        completedKeywords++;
+    }
+
+    public synchronized void complete() {
+        finish("COMPLETED");
+    }
+
+    public synchronized void fail(String error) {
+        this.error = error;
+        finish("FAILED");
+    }
+
+    /**
+     * 取消工作；已結束的工作回傳 false
+     */
+    public synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        finish("CANCELLED");
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return "CANCELLED".equals(status);
+    }
+
+    public boolean isFinished() {
+        return finishedAt > 0;
+    }
+
+    private void finish(String finalStatus) {
+        if (isFinished()) {
+            return;
+        }
+        finishedAt = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    // Getter
+    public String getJobId() {
+        return jobId;
+    }
+
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public int getMaxResultsPerKeyword() {
+        return maxResultsPerKeyword;
+    }
+
+    public boolean isSave() {
+        return save;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getTotalKeywords() {
+        return keywords.size();
+    }
+
+    public int getCompletedKeywords() {
+        return completedKeywords;
+    }
+
+    public List<String> getFailedKeywords() {
+        synchronized (failedKeywords) {
+            return new ArrayList<>(failedKeywords);
+        }
+    }
+
+    public List<Paper> getPapers() {
+        synchronized (papers) {
+            return new ArrayList<>(papers);
+        }
+    }
+
+    public int getPaperCount() {
+        return papers.size();
+    }
+
+    public int getSavedCount() {
+        return savedCount;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.alex.paper.DTO;
+
+import java.util.List;
+
+public class CrawlJobRequest {
+    private List<String> keywords;
+    private Integer maxResultsPerKeyword;
+    private Integer yearFrom;
+    private Integer yearTo;
+    private boolean save; // 是否將結果寫入資料庫
+
+    // 建構子
+    public CrawlJobRequest() {}
+
+    // Getter 和 Setter
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    public void setKeywords(List<String> keywords) {
+        this.keywords = keywords;
+    }
+
+    public Integer getMaxResultsPerKeyword() {
+        return maxResultsPerKeyword;
+    }
+
+    public void setMaxResultsPerKeyword(Integer maxResultsPerKeyword) {
+        this.maxResultsPerKeyword = maxResultsPerKeyword;
+    }
+
+    public Integer getYearFrom() {
+        return yearFrom;
+    }
+
+    public void setYearFrom(Integer yearFrom) {
+        this.yearFrom = yearFrom;
+    }
+
+    public Integer getYearTo() {
+        return yearTo;
+    }
+
+    public void setYearTo(Integer yearTo) {
+        this.yearTo = yearTo;
+    }
+
+    public boolean isSave() {
+        return save;
+    }
+
+    public void setSave(boolean save) {
+        this.save = save;
+    }
+}
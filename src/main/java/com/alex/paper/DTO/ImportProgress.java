@@ -0,0 +1,125 @@
+package com.alex.paper.DTO;
+
+/**
+ * 批次匯入的進度，匯入執行緒更新、查詢端讀取
+ */
+public class ImportProgress {
+    private final String importId;
+    private final String format;
+    private final String filename;
+    private final long submittedAt;
+    private volatile long startedAt;
+    private volatile String status = "QUEUED"; // QUEUED, RUNNING, COMPLETED, FAILED
+    private volatile long recordsRead;
+    private volatile long imported;
+    private volatile long duplicates;
+    private volatile long invalid;
+    private volatile long malformed;
+    private volatile long finishedAt;
+    private volatile String error;
+
+    public ImportProgress(String importId, String format, String filename) {
+        this.importId = importId;
+        this.format = format;
+        this.filename = filename;
+        this.submittedAt = System.currentTimeMillis();
+    }
+
+    public void start() {
+        startedAt = System.currentTimeMillis();
+        status = "RUNNING";
+    }
+
+    public void recordRead() {
+        recordsRead++;
+    }
+
+    public void recordInvalid() {
+        invalid++;
+    }
+
+    public void recordMalformed() {
+        malformed++;
+    }
+
+    public void recordBatch(int saved, int skipped) {
+        imported += saved;
+        duplicates += skipped;
+    }
+
+    public void complete() {
+        finishedAt = System.currentTimeMillis();
+        status = "COMPLETED";
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = System.currentTimeMillis();
+        status = "FAILED";
+    }
+
+    public boolean isFinished() {
+        return finishedAt > 0;
+    }
+
+    // Getter
+    public String getImportId() {
+        return importId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public long getRecordsRead() {
+        return recordsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getMalformed() {
+        return malformed;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+    }
+
+    public double getRecordsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0.0 : recordsRead * 1000.0 / elapsed;
+    }
+}
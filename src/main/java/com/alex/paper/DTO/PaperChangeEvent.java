@@ -0,0 +1,66 @@
+package com.alex.paper.DTO;
+
+import com.alex.paper.Model.Paper;
+
+public class PaperChangeEvent {
+
+    public enum Type { INSERT, UPDATE, DELETE }
+
+    private long seq; // 變更序號；SSE 的 id（續傳 token）為「epoch-序號」
+    private Type type;
+    private Long paperId;
+    private Paper paper; // DELETE 時為 null
+    private long timestamp;
+
+    // 建構子
+    public PaperChangeEvent() {}
+
+    public PaperChangeEvent(long seq, Type type, Long paperId, Paper paper, long timestamp) {
+        this.seq = seq;
+        this.type = type;
+        this.paperId = paperId;
+        this.paper = paper;
+        this.timestamp = timestamp;
+    }
+
+    // Getter 和 Setter
+    public long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(long seq) {
+        this.seq = seq;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getPaperId() {
+        return paperId;
+    }
+
+    public void setPaperId(Long paperId) {
+        this.paperId = paperId;
+    }
+
+    public Paper getPaper() {
+        return paper;
+    }
+
+    public void setPaper(Paper paper) {
+        this.paper = paper;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
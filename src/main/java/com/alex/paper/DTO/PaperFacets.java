@@ -0,0 +1,81 @@
+package com.alex.paper.DTO;
+
+import java.util.List;
+
+public class PaperFacets {
+    private int total;                   // 符合條件的論文數
+    private List<FacetCount> years;
+    private List<FacetCount> journals;
+    private List<FacetCount> authors;
+
+    // 建構子
+    public PaperFacets() {}
+
+    public PaperFacets(int total, List<FacetCount> years, List<FacetCount> journals, List<FacetCount> authors) {
+        this.total = total;
+        this.years = years;
+        this.journals = journals;
+        this.authors = authors;
+    }
+
+    // Getter 和 Setter
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public List<FacetCount> getYears() {
+        return years;
+    }
+
+    public void setYears(List<FacetCount> years) {
+        this.years = years;
+    }
+
+    public List<FacetCount> getJournals() {
+        return journals;
+    }
+
+    public void setJournals(List<FacetCount> journals) {
+        this.journals = journals;
+    }
+
+    public List<FacetCount> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<FacetCount> authors) {
+        this.authors = authors;
+    }
+
+    public static class FacetCount {
+        private String value;
+        private int count;
+
+        public FacetCount() {}
+
+        public FacetCount(String value, int count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.alex.paper.DTO;
+
+import com.alex.paper.Model.Paper;
+
+public class PaperSearchHit {
+    private Paper paper;
+    private double score; // BM25 分數
+
+    // 建構子
+    public PaperSearchHit() {}
+
+    public PaperSearchHit(Paper paper, double score) {
+        this.paper = paper;
+        this.score = score;
+    }
+
+    // Getter 和 Setter
+    public Paper getPaper() {
+        return paper;
+    }
+
+    public void setPaper(Paper paper) {
+        this.paper = paper;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public void setScore(double score) {
+        this.score = score;
+    }
+}
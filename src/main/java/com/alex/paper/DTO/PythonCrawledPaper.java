@@ -0,0 +1,68 @@
+package com.alex.paper.DTO;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Python 爬蟲服務回傳的單篇論文；citations、pdfUrl 等 Paper 沒有的欄位直接略過
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PythonCrawledPaper {
+    private String title;
+    private String author;
+    private String journal;
+    private String abstractText;
+    private String year; // 可能是數字或字串，轉換成 Paper 時再解析
+    private Integer keywordIndex; // 批量爬取時所屬關鍵字在請求中的位置
+
+    // 建構子
+    public PythonCrawledPaper() {}
+
+    // Getter 和 Setter
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public String getJournal() {
+        return journal;
+    }
+
+    public void setJournal(String journal) {
+        this.journal = journal;
+    }
+
+    public String getAbstractText() {
+        return abstractText;
+    }
+
+    public void setAbstractText(String abstractText) {
+        this.abstractText = abstractText;
+    }
+
+    public String getYear() {
+        return year;
+    }
+
+    public void setYear(String year) {
+        this.year = year;
+    }
+
+    public Integer getKeywordIndex() {
+        return keywordIndex;
+    }
+
+    public void setKeywordIndex(Integer keywordIndex) {
+        this.keywordIndex = keywordIndex;
+    }
+}
@@ -0,0 +1,91 @@
+package com.alex.paper.Dedup;
+
+/**
+ * 以 long 為鍵、物件為值的雜湊表，鍵不需包裝成 Long；非執行緒安全，由呼叫端同步
+ */
+final class LongObjectMap<V> extends LongOpenHashTable {
+
+    private Object[] values = new Object[16];
+
+    // 0 保留給空槽，鍵為 0 的項目另外存放
+    private boolean hasZeroKey;
+    private V zeroValue;
+
+    LongObjectMap() {
+        super(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : null;
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * 存入並回傳原本的值
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int i = insert(key);
+        V previous = (V) values[i];
+        values[i] = value;
+        return previous;
+    }
+
+    /**
+     * 移除並回傳原本的值
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        if (key == 0) {
+            V previous = zeroValue;
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                zeroValue = null;
+                size--;
+            }
+            return previous;
+        }
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V previous = (V) values[i];
+        removeAt(i);
+        return previous;
+    }
+
+    @Override
+    void moveValue(int from, int to) {
+        values[to] = values[from];
+    }
+
+    @Override
+    void clearValue(int i) {
+        values[i] = null;
+    }
+
+    @Override
+    Object replaceValues(int capacity) {
+        Object[] old = values;
+        values = new Object[capacity];
+        return old;
+    }
+
+    @Override
+    void copyValue(Object oldValues, int from, int to) {
+        values[to] = ((Object[]) oldValues)[from];
+    }
+}
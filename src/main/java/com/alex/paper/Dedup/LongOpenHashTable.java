@@ -0,0 +1,111 @@
+package com.alex.paper.Dedup;
+
+/**
+ * 以 long 為鍵的開放定址雜湊表（線性探測 + 刪除時往回搬移），鍵不需包裝成 Long。
+ * 這裡只管理鍵與探測，值由子類別存在與 keys 平行的陣列中；鍵 0 保留給空槽，由子類別自行處理。
+ * 非執行緒安全，由呼叫端同步
+ */
+abstract class LongOpenHashTable {
+
+    private long[] keys;
+    int size;
+
+    /**
+     * @param capacity 初始容量，必須是 2 的次方
+     */
+    LongOpenHashTable(int capacity) {
+        keys = new long[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * 鍵所在的槽位，不存在時回傳 -1
+     */
+    final int indexOf(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 鍵所在的槽位，不存在時先放入（必要時擴充）；新槽位的值為陣列的初始值
+     */
+    final int insert(long key) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize();
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        return i;
+    }
+
+    /**
+     * 移除槽位 i 的項目
+     */
+    final void removeAt(int i) {
+        int mask = keys.length - 1;
+        size--;
+
+        // 往回搬移後續元素，維持探測鏈不中斷
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = slot(keys[j], mask);
+            boolean homeBetween = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+            if (!homeBetween) {
+                keys[hole] = keys[j];
+                moveValue(j, hole);
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        clearValue(hole);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        Object oldValues = replaceValues(keys.length);
+        int mask = keys.length - 1;
+        for (int k = 0; k < oldKeys.length; k++) {
+            if (oldKeys[k] != 0) {
+                int i = slot(oldKeys[k], mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[k];
+                copyValue(oldValues, k, i);
+            }
+        }
+    }
+
+    // 同一陣列內搬移值（刪除時往回搬移用）
+    abstract void moveValue(int from, int to);
+
+    abstract void clearValue(int i);
+
+    // 配置 capacity 大小的新值陣列，回傳舊的陣列
+    abstract Object replaceValues(int capacity);
+
+    // 擴充時把舊陣列 from 位置的值放到新陣列的 to 位置
+    abstract void copyValue(Object oldValues, int from, int to);
+
+    // 鍵可能是連續的 id，先乘上黃金比例常數打散，再把高位元折疊到低位元
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,176 @@
+package com.alex.paper.Dedup;
+
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.PaperFingerprint;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 已存在論文的指紋集合，讓重複檢查在記憶體中以 O(1) 完成
+ * 資料庫上的 fingerprint 唯一索引仍是最終防線，這裡只負責擋掉絕大多數的重複。
+ * add / remove 應在交易提交後才呼叫（見 PaperServiceImpl），回滾的寫入不會留下指紋
+ */
+@Component
+public class PaperFingerprintIndex {
+
+    private LongCounts fingerprints = new LongCounts();
+
+    // 載入期間不為 null
+    private Load load;
+
+    /**
+     * 開始載入：之後的 loadRow 寫入新的計數表，載入期間的 add / remove 另外記下每篇論文的最終指紋，
+     * 於 finishLoad 時蓋過串流讀到的版本；串流與寫入的先後無法判斷，直接相加會重複計數
+     */
+    public synchronized void beginLoad() {
+        load = new Load();
+    }
+
+    /**
+     * 串流讀到的一筆，需依 id 遞增順序呼叫；只有載入執行緒會呼叫，新計數表在 finishLoad 之前不對外
+     */
+    public void loadRow(Paper paper) {
+        Load current;
+        synchronized (this) {
+            current = load;
+        }
+        if (current != null) {
+            current.row(paper.getId(), PaperFingerprint.toLong(PaperFingerprint.of(paper)));
+        }
+    }
+
+    public synchronized void finishLoad() {
+        if (load == null) {
+            return;
+        }
+        LongCounts loaded = load.counts;
+        for (Map.Entry<Long, Long> touched : load.touched.entrySet()) {
+            int row = load.indexOf(touched.getKey());
+            if (row >= 0) {
+                loaded.decrement(load.fingerprints[row]);
+            }
+            if (touched.getValue() != null) {
+                loaded.increment(touched.getValue());
+            }
+        }
+        fingerprints = loaded;
+        load = null;
+    }
+
+    // 載入失敗時保留原本的計數表
+    public synchronized void abortLoad() {
+        load = null;
+    }
+
+    public boolean contains(Paper paper) {
+        return contains(PaperFingerprint.of(paper));
+    }
+
+    public synchronized boolean contains(String fingerprint) {
+        return fingerprints.get(PaperFingerprint.toLong(fingerprint)) > 0;
+    }
+
+    public synchronized void add(Paper paper) {
+        long fingerprint = PaperFingerprint.toLong(PaperFingerprint.of(paper));
+        fingerprints.increment(fingerprint);
+        if (load != null && paper.getId() != null) {
+            load.touched.put(paper.getId(), fingerprint);
+        }
+    }
+
+    public synchronized void remove(Paper paper) {
+        fingerprints.decrement(PaperFingerprint.toLong(PaperFingerprint.of(paper)));
+        if (load != null && paper.getId() != null) {
+            load.touched.put(paper.getId(), null);
+        }
+    }
+
+    public synchronized int size() {
+        return fingerprints.size();
+    }
+
+    /**
+     * 一次載入的狀態：新的計數表、串流讀到的 (id, 指紋)（依 id 排序，供二分搜尋），
+     * 以及載入期間被寫入的論文最終指紋（null 代表已刪除）
+     */
+    private static final class Load {
+        final LongCounts counts = new LongCounts();
+        final Map<Long, Long> touched = new HashMap<>();
+        long[] ids = new long[1 << 16];
+        long[] fingerprints = new long[1 << 16];
+        int rows;
+
+        void row(long id, long fingerprint) {
+            if (rows == ids.length) {
+                ids = Arrays.copyOf(ids, rows * 2);
+                fingerprints = Arrays.copyOf(fingerprints, rows * 2);
+            }
+            ids[rows] = id;
+            fingerprints[rows] = fingerprint;
+            rows++;
+            counts.increment(fingerprint);
+        }
+
+        // 串流中該 id 的位置，沒讀到時回傳負值
+        int indexOf(long id) {
+            return Arrays.binarySearch(ids, 0, rows, id);
+        }
+    }
+
+    // 指紋 -> 論文數，計數存在原生陣列中，避免每筆指紋都配置物件
+    static final class LongCounts extends LongOpenHashTable {
+        private int[] counts = new int[1 << 16];
+
+        LongCounts() {
+            super(1 << 16);
+        }
+
+        int get(long key) {
+            int i = indexOf(nonZero(key));
+            return i < 0 ? 0 : counts[i];
+        }
+
+        void increment(long key) {
+            // insert 可能擴充並換掉 counts，先取得槽位再讀取陣列
+            int i = insert(nonZero(key));
+            counts[i]++;
+        }
+
+        void decrement(long key) {
+            int i = indexOf(nonZero(key));
+            if (i >= 0 && --counts[i] <= 0) {
+                removeAt(i);
+            }
+        }
+
+        @Override
+        void moveValue(int from, int to) {
+            counts[to] = counts[from];
+        }
+
+        @Override
+        void clearValue(int i) {
+            counts[i] = 0;
+        }
+
+        @Override
+        Object replaceValues(int capacity) {
+            int[] old = counts;
+            counts = new int[capacity];
+            return old;
+        }
+
+        @Override
+        void copyValue(Object oldValues, int from, int to) {
+            counts[to] = ((int[]) oldValues)[from];
+        }
+
+        // 0 保留給空槽
+        private static long nonZero(long key) {
+            return key == 0 ? 1 : key;
+        }
+    }
+}
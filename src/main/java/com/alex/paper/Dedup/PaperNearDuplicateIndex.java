@@ -0,0 +1,277 @@
+package com.alex.paper.Dedup;
+
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.PaperFingerprint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * 近似重複論文索引：對正規化後的標題 + 摘要取字元 shingle 計算 MinHash 簽章，
+ * 再以 LSH 分段（band）分桶。查詢時只比對與新論文落在同一桶的候選，不需與整張表兩兩比較
+ */
+@Component
+public class PaperNearDuplicateIndex {
+
+    static final int SHINGLE_SIZE = 5;
+    static final int NUM_HASHES = 128;
+    // 16 段 × 每段 8 列：相似度約 0.7 以上的論文有很高機率至少共用一個桶
+    static final int BANDS = 16;
+    static final int ROWS = NUM_HASHES / BANDS;
+
+    // 摘要只取前段：Google Scholar 的摘要片段長度不一，取太長反而降低相似度
+    private static final int MAX_ABSTRACT_CHARS = 300;
+
+    // 固定種子，讓每次啟動算出的簽章一致
+    private static final long[] HASH_A = new long[NUM_HASHES];
+    private static final long[] HASH_B = new long[NUM_HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            HASH_A[i] = random.nextLong() | 1;
+            HASH_B[i] = random.nextLong();
+        }
+    }
+
+    // 估計的 Jaccard 相似度達到此值才視為近似重複
+    @Value("${paper.dedup.near-duplicate.threshold:0.8}")
+    private double threshold = 0.8;
+
+    // 論文 id → 簽章；LSH 桶 → [數量, id...]，都以 long 為鍵，不產生 Long 物件
+    private final LongObjectMap<int[]> signatures = new LongObjectMap<>();
+    private final LongObjectMap<long[]> buckets = new LongObjectMap<>();
+
+    // 載入期間不為 null：載入期間寫入過的論文 id，串流讀到的舊版本不再套用
+    private Set<Long> touched;
+
+    /**
+     * 開始載入：之後的 loadRow 逐筆加入目前的索引
+     */
+    public synchronized void beginLoad() {
+        touched = new HashSet<>();
+    }
+
+    /**
+     * 串流讀到的一筆；簽章在鎖外計算，載入期間已被 add / remove 的論文以寫入的版本為準
+     */
+    public void loadRow(Paper paper) {
+        if (paper.getId() == null) {
+            return;
+        }
+        int[] signature = signature(paper);
+        synchronized (this) {
+            if (touched != null && !touched.contains(paper.getId())) {
+                put(paper.getId(), signature);
+            }
+        }
+    }
+
+    public synchronized void finishLoad() {
+        touched = null;
+    }
+
+    // 載入失敗時保留已載入的部分
+    public void abortLoad() {
+        finishLoad();
+    }
+
+    /**
+     * 找出最相似且超過門檻的既有論文 id，沒有則回傳 null
+     */
+    public Long findNearDuplicate(Paper paper) {
+        return findNearDuplicate(signature(paper), paper.getId());
+    }
+
+    public Long findNearDuplicate(int[] signature, Long selfId) {
+        if (signature == null) {
+            return null;
+        }
+        long best = 0;
+        boolean found = false;
+        double bestSimilarity = threshold;
+        synchronized (this) {
+            // 同一篇論文可能出現在多個桶中，收集後排序去重，每個候選只比對一次
+            long[] candidates = new long[16];
+            int count = 0;
+            for (int band = 0; band < BANDS; band++) {
+                long[] ids = buckets.get(bandKey(signature, band));
+                if (ids != null) {
+                    int bucketSize = (int) ids[0];
+                    if (count + bucketSize > candidates.length) {
+                        candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, count + bucketSize));
+                    }
+                    System.arraycopy(ids, 1, candidates, count, bucketSize);
+                    count += bucketSize;
+                }
+            }
+            Arrays.sort(candidates, 0, count);
+            for (int i = 0; i < count; i++) {
+                long candidate = candidates[i];
+                if ((i > 0 && candidate == candidates[i - 1]) || (selfId != null && candidate == selfId)) {
+                    continue;
+                }
+                double similarity = similarity(signature, signatures.get(candidate));
+                if (similarity >= bestSimilarity) {
+                    best = candidate;
+                    found = true;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return found ? best : null;
+    }
+
+    /**
+     * 兩個簽章是否達到近似重複門檻（用於同一批次內尚未寫入的論文之間）
+     */
+    public boolean isNearDuplicate(int[] left, int[] right) {
+        return left != null && right != null && similarity(left, right) >= threshold;
+    }
+
+    /**
+     * 新增或更新論文的簽章（需已有 id）
+     */
+    public void add(Paper paper) {
+        if (paper.getId() == null) {
+            return;
+        }
+        int[] signature = signature(paper);
+        synchronized (this) {
+            put(paper.getId(), signature);
+            if (touched != null) {
+                touched.add(paper.getId());
+            }
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        unlink(id);
+        if (touched != null) {
+            touched.add(id);
+        }
+    }
+
+    // 呼叫端需持有鎖
+    private void put(long id, int[] signature) {
+        unlink(id);
+        if (signature == null) {
+            return;
+        }
+        signatures.put(id, signature);
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            long[] ids = buckets.get(key);
+            if (ids == null) {
+                ids = new long[4];
+            } else if (ids[0] + 1 == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[(int) ++ids[0]] = id;
+            buckets.put(key, ids);
+        }
+    }
+
+    // 呼叫端需持有鎖
+    private void unlink(long id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) {
+            return;
+        }
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(signature, band);
+            long[] ids = buckets.get(key);
+            if (ids == null) {
+                continue;
+            }
+            int count = (int) ids[0];
+            for (int i = 1; i <= count; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[count];
+                    ids[0] = --count;
+                    break;
+                }
+            }
+            if (count == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return signatures.size();
+    }
+
+    /**
+     * 計算 MinHash 簽章；標題與摘要正規化後太短時回傳 null
+     */
+    public static int[] signature(Paper paper) {
+        String text = PaperFingerprint.normalize(paper.getTitle());
+        String abstractText = paper.getAbstractText();
+        if (abstractText != null && !abstractText.isBlank()) {
+            if (abstractText.length() > MAX_ABSTRACT_CHARS) {
+                abstractText = abstractText.substring(0, MAX_ABSTRACT_CHARS);
+            }
+            text = text + " " + PaperFingerprint.normalize(abstractText);
+        }
+        if (text.length() < SHINGLE_SIZE) {
+            return null;
+        }
+
+        int[] signature = new int[NUM_HASHES];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (int start = 0; start + SHINGLE_SIZE <= text.length(); start++) {
+            long shingle = 0;
+            for (int i = start; i < start + SHINGLE_SIZE; i++) {
+                shingle = shingle * 31 + text.charAt(i);
+            }
+            for (int h = 0; h < NUM_HASHES; h++) {
+                int value = (int) (mix(HASH_A[h] * shingle + HASH_B[h]) >>> 33);
+                if (value < signature[h]) {
+                    signature[h] = value;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static double similarity(int[] left, int[] right) {
+        int same = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (left[i] == right[i]) {
+                same++;
+            }
+        }
+        return (double) same / NUM_HASHES;
+    }
+
+    /**
+     * 簽章各段的 LSH 桶鍵，與索引使用相同的分段；供同一批次內尚未寫入的論文自行分桶
+     */
+    public static long[] bandKeys(int[] signature) {
+        long[] keys = new long[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            keys[band] = bandKey(signature, band);
+        }
+        return keys;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[i];
+        }
+        return mix(key);
+    }
+
+    // SplitMix64 的最終混合步驟
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
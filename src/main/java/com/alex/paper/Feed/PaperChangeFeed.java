@@ -0,0 +1,312 @@
+package com.alex.paper.Feed;
+
+import com.alex.paper.DTO.PaperChangeEvent;
+import com.alex.paper.Model.Paper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 論文變更的 SSE 推播：變更事件依序號存入環狀緩衝區，由派送執行緒放進每個訂閱者各自的有界佇列，
+ * 再由傳送執行緒池寫出；佇列滿了的慢速訂閱者會被關閉，不會拖住其他訂閱者。
+ * 續傳 token 為「epoch-序號」，客戶端斷線後帶上最後收到的 token 即可補齊；
+ * token 來自重啟前的 process 或序號已被覆蓋時改送 reset 事件，請客戶端重新載入列表
+ */
+@Component
+public class PaperChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaperChangeFeed.class);
+
+    @Value("${paper.changes.buffer-size:10000}")
+    private int bufferSize;
+
+    @Value("${paper.changes.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${paper.changes.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    // 每個訂閱者最多暫存的待送事件數，超過時關閉該連線，由客戶端帶 token 重新連線
+    @Value("${paper.changes.subscriber-queue-size:1000}")
+    private int subscriberQueueSize;
+
+    @Value("${paper.changes.sender-threads:4}")
+    private int senderThreads;
+
+    // 序號只在同一個 process 內有意義，重啟後以新的 epoch 區分
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Object lock = new Object();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private PaperChangeEvent[] ring;
+    private long headSeq; // 最新一筆事件的序號，0 表示尚無事件
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        ring = new PaperChangeEvent[bufferSize];
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "paper-change-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "paper-change-feed");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    public void inserted(Paper paper) {
+        publish(PaperChangeEvent.Type.INSERT, paper.getId(), paper);
+    }
+
+    public void updated(Paper paper) {
+        publish(PaperChangeEvent.Type.UPDATE, paper.getId(), paper);
+    }
+
+    public void deleted(Long id) {
+        publish(PaperChangeEvent.Type.DELETE, id, null);
+    }
+
+    /**
+     * 訂閱變更；resumeToken 為客戶端最後收到的事件 id（epoch-序號），null 表示只接收之後的新事件
+     */
+    public SseEmitter subscribe(String resumeToken) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber;
+        synchronized (lock) {
+            Long since = parseToken(resumeToken);
+            if (resumeToken == null) {
+                subscriber = new Subscriber(emitter, headSeq, false, subscriberQueueSize);
+            } else if (since == null || since > headSeq) {
+                // 其他 process（重啟前）發出的 token，客戶端手上的資料需整份重新載入
+                subscriber = new Subscriber(emitter, headSeq, true, subscriberQueueSize);
+            } else {
+                subscriber = new Subscriber(emitter, Math.max(0, since), false, subscriberQueueSize);
+            }
+            subscribers.add(subscriber);
+            lock.notifyAll();
+        }
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    // 只接受本 process 的 token；epoch 不符或格式錯誤時回傳 null
+    private Long parseToken(String token) {
+        if (token == null) {
+            return null;
+        }
+        String value = token.trim();
+        int separator = value.lastIndexOf('-');
+        if (separator <= 0 || !value.substring(0, separator).equals(epoch)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void publish(PaperChangeEvent.Type type, Long id, Paper paper) {
+        // 在交易中的變更等提交後才推送，避免推出之後被回滾的資料
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(type, id, paper);
+                }
+            });
+        } else {
+            append(type, id, paper);
+        }
+    }
+
+    private void append(PaperChangeEvent.Type type, Long id, Paper paper) {
+        synchronized (lock) {
+            long seq = ++headSeq;
+            ring[(int) (seq % ring.length)] = new PaperChangeEvent(seq, type, id, paper, System.currentTimeMillis());
+            lock.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        long heartbeatMs = heartbeatSeconds * 1000;
+        long lastHeartbeat = System.currentTimeMillis();
+        while (running) {
+            try {
+                synchronized (lock) {
+                    if (!hasPending()) {
+                        lock.wait(heartbeatMs);
+                    }
+                }
+                for (Subscriber subscriber : subscribers) {
+                    enqueuePending(subscriber);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= heartbeatMs) {
+                    // 註解行讓代理伺服器不會關閉閒置連線，也能及早發現已斷線的客戶端
+                    for (Subscriber subscriber : subscribers) {
+                        enqueue(subscriber, SseEmitter.event().comment("heartbeat"));
+                    }
+                    lastHeartbeat = now;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean hasPending() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.lastSeq < headSeq || subscriber.reset) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 把訂閱者尚未收到的事件放進它的佇列；派送執行緒只做不會阻塞的 offer
+    private void enqueuePending(Subscriber subscriber) {
+        List<PaperChangeEvent> events = new ArrayList<>();
+        boolean reset;
+        synchronized (lock) {
+            reset = subscriber.reset;
+            subscriber.reset = false;
+            long oldest = Math.max(1, headSeq - ring.length + 1);
+            long from = subscriber.lastSeq + 1;
+            if (from < oldest) {
+                // 客戶端落後超過緩衝區，缺漏的事件已被覆蓋
+                reset = true;
+                from = oldest;
+            }
+            for (long seq = from; seq <= headSeq; seq++) {
+                events.add(ring[(int) (seq % ring.length)]);
+            }
+            subscriber.lastSeq = headSeq;
+        }
+
+        if (reset && !enqueue(subscriber, SseEmitter.event().name("reset").data("{}"))) {
+            return;
+        }
+        for (PaperChangeEvent event : events) {
+            SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                .id(epoch + "-" + event.getSeq())
+                .name(event.getType().name().toLowerCase(Locale.ROOT))
+                .data(event);
+            if (!enqueue(subscriber, builder)) {
+                return;
+            }
+        }
+    }
+
+    private boolean enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed) {
+            return false;
+        }
+        if (!subscriber.outbox.offer(event)) {
+            // 消化速度跟不上：關閉連線，客戶端以最後收到的 token 重連即可從環狀緩衝區補齊
+            logger.info("變更推播訂閱者積壓超過 {} 筆事件，關閉連線", subscriberQueueSize);
+            subscribers.remove(subscriber);
+            subscriber.closed = true;
+            subscriber.outbox.clear();
+        }
+        scheduleDrain(subscriber);
+        return !subscriber.closed;
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // 在傳送執行緒上寫出佇列中的事件；emitter.send 阻塞時只影響這個訂閱者
+    private void drain(Subscriber subscriber) {
+        while (true) {
+            if (subscriber.closed) {
+                subscriber.outbox.clear();
+                subscriber.emitter.complete();
+                return;
+            }
+            SseEmitter.SseEventBuilder event;
+            while ((event = subscriber.outbox.poll()) != null) {
+                if (!send(subscriber, event)) {
+                    return;
+                }
+            }
+            subscriber.draining.set(false);
+            // 釋放之後才放進來的事件，或剛被標記關閉時，由這裡接手處理
+            if ((subscriber.outbox.isEmpty() && !subscriber.closed) || !subscriber.draining.compareAndSet(false, true)) {
+                return;
+            }
+        }
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("變更推播連線已中斷: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.closed = true;
+            subscriber.outbox.clear();
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> outbox;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private long lastSeq; // 已放進佇列的最後序號，在 lock 內更新
+        private boolean reset; // 下次派送時先送出 reset 事件
+        private volatile boolean closed;
+
+        private Subscriber(SseEmitter emitter, long lastSeq, boolean reset, int queueSize) {
+            this.emitter = emitter;
+            this.lastSeq = lastSeq;
+            this.reset = reset;
+            this.outbox = new ArrayBlockingQueue<>(queueSize);
+        }
+    }
+}
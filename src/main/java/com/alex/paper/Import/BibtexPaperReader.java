@@ -0,0 +1,216 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * BibTeX 條目逐筆解析，只取 title / author / journal（或 booktitle）/ year / abstract
+ */
+public class BibtexPaperReader implements PaperRecordReader {
+
+    private final PushbackReader reader;
+    private final int maxRecordChars;
+
+    public BibtexPaperReader(InputStream in) {
+        this(in, DEFAULT_MAX_RECORD_CHARS);
+    }
+
+    BibtexPaperReader(InputStream in, int maxRecordChars) {
+        this.reader = new PushbackReader(
+            new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024), 1);
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    @Override
+    public Paper next() throws IOException {
+        while (true) {
+            // 1. 找到下一個條目開頭 @type{ 或 @type(
+            int c;
+            while ((c = reader.read()) != -1 && c != '@') {
+                // 條目之間的文字視為註解
+            }
+            if (c == -1) {
+                return null;
+            }
+            String type = readIdentifier().toLowerCase(Locale.ROOT);
+            skipWhitespace();
+            int open = reader.read();
+            if (open != '{' && open != '(') {
+                continue;
+            }
+            int close = open == '{' ? '}' : ')';
+            if (type.equals("comment") || type.equals("string") || type.equals("preamble")) {
+                skipBalanced(open, close);
+                continue;
+            }
+
+            // 2. 跳過 citation key
+            while ((c = reader.read()) != -1 && c != ',' && c != close) {
+                // citation key 不需要
+            }
+            if (c != ',') {
+                continue; // 沒有任何欄位
+            }
+
+            // 3. 逐一讀取 name = value
+            Map<String, String> fields = new HashMap<>();
+            while (true) {
+                skipWhitespaceAndCommas();
+                c = reader.read();
+                if (c == -1 || c == close) {
+                    break;
+                }
+                reader.unread(c);
+                String name = readIdentifier().toLowerCase(Locale.ROOT);
+                skipWhitespace();
+                if (name.isEmpty() || reader.read() != '=') {
+                    skipBalanced(open, close);
+                    break;
+                }
+                skipWhitespace();
+                fields.put(name, readValue(close));
+            }
+
+            Paper paper = toPaper(fields);
+            if (paper != null) {
+                return paper;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static Paper toPaper(Map<String, String> fields) {
+        String title = fields.get("title");
+        if (title == null || title.isEmpty()) {
+            return null;
+        }
+        Paper paper = new Paper();
+        paper.setTitle(title);
+        String author = fields.get("author");
+        if (author != null) {
+            // BibTeX 以 " and " 分隔作者，轉成與爬蟲相同的逗號分隔
+            paper.setAuthor(String.join(", ", author.split("\\s+and\\s+")));
+        }
+        paper.setJournal(fields.containsKey("journal") ? fields.get("journal") : fields.get("booktitle"));
+        paper.setAbstractText(fields.get("abstract"));
+        String year = fields.get("year");
+        if (year != null && year.matches("\\d{4}")) {
+            paper.setYear(Integer.parseInt(year));
+        }
+        return paper;
+    }
+
+    /**
+     * 讀取欄位值：{...}、"..." 或未加引號的字（數字 / 巨集），並去除大括號與多餘空白。
+     * 值超過 maxRecordChars 或到檔案結尾仍未閉合時拋出 MalformedRecordException，
+     * 下一次 next() 從目前位置找下一個 @ 重新對齊
+     */
+    private String readValue(int close) throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = reader.read();
+        if (c == '{') {
+            int depth = 1;
+            while ((c = reader.read()) != -1) {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}' && --depth == 0) {
+                    break;
+                } else {
+                    append(value, c);
+                }
+            }
+            if (c == -1) {
+                throw new MalformedRecordException("欄位值的大括號未閉合");
+            }
+        } else if (c == '"') {
+            int depth = 0;
+            while ((c = reader.read()) != -1) {
+                if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                } else if (c == '"' && depth == 0) {
+                    break;
+                } else {
+                    append(value, c);
+                }
+            }
+            if (c == -1) {
+                throw new MalformedRecordException("欄位值的雙引號未閉合");
+            }
+        } else {
+            while (c != -1 && c != ',' && c != close) {
+                append(value, c);
+                c = reader.read();
+            }
+            if (c == close) {
+                reader.unread(c);
+            }
+        }
+        return value.toString().replaceAll("[{}]", "").replaceAll("\\s+", " ").trim();
+    }
+
+    private void append(StringBuilder value, int c) throws MalformedRecordException {
+        if (value.length() >= maxRecordChars) {
+            throw new MalformedRecordException("欄位值超過 " + maxRecordChars + " 個字元（可能有未閉合的大括號或雙引號）");
+        }
+        value.append((char) c);
+    }
+
+    private String readIdentifier() throws IOException {
+        StringBuilder identifier = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1 && (Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == ':')) {
+            identifier.append((char) c);
+        }
+        if (c != -1) {
+            reader.unread(c);
+        }
+        return identifier.toString();
+    }
+
+    private void skipBalanced(int open, int close) throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = reader.read()) != -1) {
+            if (c == open) {
+                depth++;
+            } else if (c == close) {
+                depth--;
+            }
+        }
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = reader.read()) != -1 && Character.isWhitespace(c)) {
+            // 略過空白
+        }
+        if (c != -1) {
+            reader.unread(c);
+        }
+    }
+
+    private void skipWhitespaceAndCommas() throws IOException {
+        int c;
+        while ((c = reader.read()) != -1 && (Character.isWhitespace(c) || c == ',')) {
+            // 略過空白與欄位間的逗號
+        }
+        if (c != -1) {
+            reader.unread(c);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * CSV（RFC 4180），第一列為標題列：title, author, journal, year, abstractText
+ */
+public class CsvPaperReader implements PaperRecordReader {
+
+    private final BufferedReader reader;
+    private final int maxRecordChars;
+    private Map<String, Integer> columns;
+
+    public CsvPaperReader(InputStream in) {
+        this(in, DEFAULT_MAX_RECORD_CHARS);
+    }
+
+    CsvPaperReader(InputStream in, int maxRecordChars) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    @Override
+    public Paper next() throws IOException {
+        if (columns == null) {
+            List<String> header = readRecord();
+            if (header == null) {
+                return null;
+            }
+            columns = mapHeader(header);
+        }
+
+        while (true) {
+            List<String> record = readRecord();
+            if (record == null) {
+                return null;
+            }
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue; // 空白列
+            }
+
+            Paper paper = new Paper();
+            paper.setTitle(field(record, "title"));
+            paper.setAuthor(field(record, "author"));
+            paper.setJournal(field(record, "journal"));
+            paper.setAbstractText(field(record, "abstractText"));
+            String year = field(record, "year");
+            if (year != null && year.matches("\\d{4}")) {
+                paper.setYear(Integer.parseInt(year));
+            }
+            return paper;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(List<String> record, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Map<String, Integer> mapHeader(List<String> header) {
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).replace("\uFEFF", "") // 去除 UTF-8 BOM
+                .trim().toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "title":
+                    columns.put("title", i);
+                    break;
+                case "author":
+                case "authors":
+                    columns.put("author", i);
+                    break;
+                case "journal":
+                    columns.put("journal", i);
+                    break;
+                case "year":
+                    columns.put("year", i);
+                    break;
+                case "abstract":
+                case "abstracttext":
+                    columns.put("abstractText", i);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * 讀取一筆紀錄：以逗號分隔，雙引號內可包含逗號與換行，"" 代表一個雙引號。
+     * 超過 maxRecordChars 時跳到下一個換行並拋出 MalformedRecordException
+     */
+    private List<String> readRecord() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        boolean readAny = false;
+        int recordChars = 0;
+        int c;
+        while ((c = reader.read()) != -1) {
+            readAny = true;
+            if (++recordChars > maxRecordChars) {
+                skipLine();
+                throw new MalformedRecordException("紀錄超過 " + maxRecordChars + " 個字元（可能有未閉合的雙引號）");
+            }
+            if (inQuotes) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!readAny) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            // 略過
+        }
+    }
+}
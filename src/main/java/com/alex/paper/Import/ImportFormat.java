@@ -0,0 +1,50 @@
+package com.alex.paper.Import;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+public enum ImportFormat {
+    JSONL,
+    CSV,
+    BIBTEX;
+
+    public PaperRecordReader open(InputStream in, ObjectMapper objectMapper) throws IOException {
+        switch (this) {
+            case JSONL:
+                return new JsonLinesPaperReader(in, objectMapper);
+            case CSV:
+                return new CsvPaperReader(in);
+            default:
+                return new BibtexPaperReader(in);
+        }
+    }
+
+    /**
+     * 依指定的格式參數決定，未指定時依副檔名判斷
+     */
+    public static ImportFormat resolve(String format, String filename) {
+        String name = format;
+        if (name == null || name.isBlank()) {
+            if (filename == null || filename.lastIndexOf('.') < 0) {
+                throw new IllegalArgumentException("無法判斷匯入格式，請指定 format 參數（jsonl / csv / bibtex）");
+            }
+            name = filename.substring(filename.lastIndexOf('.') + 1);
+        }
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "jsonl":
+            case "ndjson":
+            case "json":
+                return JSONL;
+            case "csv":
+                return CSV;
+            case "bib":
+            case "bibtex":
+                return BIBTEX;
+            default:
+                throw new IllegalArgumentException("不支援的匯入格式: " + name);
+        }
+    }
+}
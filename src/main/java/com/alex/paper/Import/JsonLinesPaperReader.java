@@ -0,0 +1,119 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JSON Lines（每行一筆）或 JSON 陣列，由 Jackson 逐筆解析。
+ * JSON Lines 以行為單位，某一行格式錯誤只影響該筆；陣列無法在錯誤後重新對齊，格式錯誤即中止
+ */
+public class JsonLinesPaperReader implements PaperRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader paperReader;
+    private final int maxRecordChars;
+    private MappingIterator<Paper> arrayIterator;
+    private boolean started;
+    private long lineNumber;
+
+    public JsonLinesPaperReader(InputStream in, ObjectMapper objectMapper) {
+        this(in, objectMapper, DEFAULT_MAX_RECORD_CHARS);
+    }
+
+    JsonLinesPaperReader(InputStream in, ObjectMapper objectMapper, int maxRecordChars) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        this.paperReader = objectMapper.readerFor(Paper.class);
+        this.maxRecordChars = maxRecordChars;
+    }
+
+    @Override
+    public Paper next() throws IOException {
+        if (!started) {
+            started = true;
+            // 最外層是陣列時交給 MappingIterator 逐一讀取陣列元素
+            if (firstNonWhitespace() == '[') {
+                arrayIterator = paperReader.readValues(reader);
+            }
+        }
+        if (arrayIterator != null) {
+            return arrayIterator.hasNextValue() ? arrayIterator.nextValue() : null;
+        }
+
+        String line;
+        while ((line = readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                return paperReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                throw new MalformedRecordException("第 " + lineNumber + " 行不是有效的 JSON: " + e.getOriginalMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * 讀取一行（不含行尾的 \n 或 \r\n），檔案結束時回傳 null；
+     * 超過 maxRecordChars 時跳到下一個換行並拋出 MalformedRecordException，不把整行讀進記憶體
+     */
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            if (line.length() >= maxRecordChars) {
+                lineNumber++;
+                skipLine();
+                throw new MalformedRecordException("第 " + lineNumber + " 行超過 " + maxRecordChars + " 個字元");
+            }
+            line.append((char) c);
+        }
+        if (c == -1 && line.length() == 0) {
+            return null;
+        }
+        lineNumber++;
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            line.setLength(end - 1);
+        }
+        return line.toString();
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = reader.read()) != -1 && c != '\n') {
+            // 略過
+        }
+    }
+
+    private int firstNonWhitespace() throws IOException {
+        int c;
+        while (true) {
+            reader.mark(1);
+            c = reader.read();
+            if (c == '\n') {
+                lineNumber++; // 開頭的空行也計入行號
+            } else if (c == -1 || !(Character.isWhitespace(c) || c == '\uFEFF')) { // 略過 UTF-8 BOM
+                break;
+            }
+        }
+        if (c != -1) {
+            reader.reset();
+        }
+        return c;
+    }
+}
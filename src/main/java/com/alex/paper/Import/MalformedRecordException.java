@@ -0,0 +1,17 @@
+package com.alex.paper.Import;
+
+import java.io.IOException;
+
+/**
+ * 單筆紀錄無法解析；讀取器已跳到下一筆，呼叫端可記為失敗後繼續讀取
+ */
+public class MalformedRecordException extends IOException {
+
+    public MalformedRecordException(String message) {
+        super(message);
+    }
+
+    public MalformedRecordException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
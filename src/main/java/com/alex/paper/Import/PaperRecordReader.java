@@ -0,0 +1,21 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 逐筆讀取匯入檔案中的論文，不會一次把整個檔案載入記憶體
+ */
+public interface PaperRecordReader extends Closeable {
+
+    // 單筆紀錄的字元上限：未閉合的引號或大括號會把檔案其餘內容都讀進同一筆紀錄
+    int DEFAULT_MAX_RECORD_CHARS = 1024 * 1024;
+
+    /**
+     * 讀取下一筆論文，檔案結束時回傳 null；單筆紀錄格式錯誤時拋出 MalformedRecordException，
+     * 之後仍可繼續呼叫讀取後續紀錄
+     */
+    Paper next() throws IOException;
+}
@@ -0,0 +1,476 @@
+package com.alex.paper.Ingest;
+
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Service.PaperService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 爬蟲與資料庫之間的寫入緩衝：論文先追加到本機 journal 並立即回應，
+ * 再由背景執行緒合併成批次寫入資料庫；重啟時從 checkpoint 之後重播 journal
+ */
+@Component
+public class PaperIngestionQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaperIngestionQueue.class);
+
+    private static final String JOURNAL_FILE = "papers.journal";
+    private static final String CHECKPOINT_FILE = "papers.checkpoint";
+    private static final String DEAD_LETTER_FILE = "papers.deadletter";
+
+    // 寫入失敗時的重試間隔上限
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    @Autowired
+    private PaperService paperService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${paper.ingest.write-behind:true}")
+    private boolean enabled;
+
+    @Value("${paper.ingest.journal-dir:./data/ingest}")
+    private String journalDir;
+
+    @Value("${paper.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${paper.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${paper.ingest.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${paper.ingest.offer-timeout-ms:5000}")
+    private long offerTimeoutMs;
+
+    @Value("${paper.ingest.journal-rotate-bytes:67108864}")
+    private long journalRotateBytes;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Object journalLock = new Object();
+    private Semaphore permits;
+    private FileChannel journal;
+    private Path journalPath;
+    private Path checkpointPath;
+    private Path deadLetterPath;
+    private long lastSeq;
+    private volatile long committedSeq;
+    private volatile boolean running;
+    // journal 無法重新開啟時不再接受新論文，已在佇列中的論文仍由背景執行緒寫入
+    private volatile boolean accepting;
+    private Thread drainer;
+
+    /**
+     * 寫入佇列是否已啟動；未啟用或啟動失敗時呼叫端應直接寫入資料庫
+     */
+    public boolean isAccepting() {
+        return running && accepting;
+    }
+
+    /**
+     * 啟動完成後開啟 journal、重播未提交的論文，並啟動背景寫入執行緒
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            openJournal();
+        } catch (IOException | RuntimeException e) {
+            logger.error("無法開啟寫入佇列 journal，改為同步寫入資料庫: {}", e.getMessage());
+            return;
+        }
+
+        Gauge.builder("paper.ingest.queue.size", queue, BlockingQueue::size)
+            .description("Papers accepted but not yet written to the database")
+            .register(meterRegistry);
+
+        running = true;
+        accepting = true;
+        drainer = new Thread(this::drainLoop, "paper-ingest-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    private void openJournal() throws IOException {
+        permits = new Semaphore(queueCapacity);
+        Path dir = Paths.get(journalDir);
+        Files.createDirectories(dir);
+        journalPath = dir.resolve(JOURNAL_FILE);
+        checkpointPath = dir.resolve(CHECKPOINT_FILE);
+        deadLetterPath = dir.resolve(DEAD_LETTER_FILE);
+
+        committedSeq = readCheckpoint();
+        lastSeq = committedSeq;
+        int replayed = replayJournal();
+        if (replayed > 0) {
+            logger.info("從 journal 重播 {} 篇尚未寫入資料庫的論文", replayed);
+        }
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * 接受一批論文：寫入 journal 並 fsync 後即回傳；佇列已滿時等待 offerTimeoutMs，仍滿則拒絕
+     */
+    public void submit(List<Paper> papers) {
+        if (papers.isEmpty()) {
+            return;
+        }
+        if (!isAccepting()) {
+            throw new IllegalStateException("寫入佇列尚未啟動");
+        }
+        try {
+            if (!permits.tryAcquire(papers.size(), offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("寫入佇列已滿，請稍後再試");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待寫入佇列時被中斷", e);
+        }
+
+        List<Pending> accepted = new ArrayList<>(papers.size());
+        synchronized (journalLock) {
+            try {
+                StringBuilder lines = new StringBuilder();
+                long seq = lastSeq;
+                for (Paper paper : papers) {
+                    seq++;
+                    ObjectNode entry = objectMapper.createObjectNode();
+                    entry.put("seq", seq);
+                    JsonNode tree = objectMapper.valueToTree(paper);
+                    entry.set("paper", tree);
+                    lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+                    // 佇列中放的是與重播時相同、由 journal 內容還原的副本：背景執行緒回填 id 等欄位不會改到呼叫端（例如回應中）的物件
+                    accepted.add(new Pending(seq, objectMapper.treeToValue(tree, Paper.class), true));
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    journal.write(buffer);
+                }
+                // 整批只 fsync 一次（group commit）
+                journal.force(false);
+                lastSeq = seq;
+                queue.addAll(accepted);
+            } catch (IOException e) {
+                permits.release(papers.size());
+                // 部分紀錄可能已寫入 journal，之後的序號不可重複使用
+                lastSeq += papers.size();
+                if (e instanceof ClosedChannelException) {
+                    // 呼叫端執行緒被中斷（ClosedByInterruptException）或 channel 已關閉：重新開啟，之後的 submit 不受影響
+                    reopenJournal();
+                }
+                throw new IllegalStateException("寫入 journal 失敗", e);
+            }
+        }
+    }
+
+    /**
+     * 重新開啟被關閉的 journal；寫到一半的最後一行先補上換行，之後的紀錄不會接在它後面。
+     * 無法開啟時停止接受新論文，呼叫端改為直接寫入資料庫。呼叫端需持有 journalLock
+     */
+    private void reopenJournal() {
+        if (!running) {
+            return;
+        }
+        // 中斷旗標仍在時新的 channel 也會立即被關閉：重新開啟期間先清除，結束後還原
+        boolean interrupted = Thread.interrupted();
+        try {
+            FileChannel reopened = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (!endsWithNewline()) {
+                reopened.write(ByteBuffer.wrap(new byte[]{'\n'}));
+            }
+            journal = reopened;
+            logger.warn("journal 被關閉，已重新開啟");
+        } catch (IOException e) {
+            accepting = false;
+            logger.error("無法重新開啟 journal，寫入佇列停止接受新論文: {}", e.getMessage());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean endsWithNewline() throws IOException {
+        try (FileChannel reader = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            long size = reader.size();
+            if (size == 0) {
+                return true;
+            }
+            ByteBuffer last = ByteBuffer.allocate(1);
+            reader.read(last, size - 1);
+            return last.get(0) == '\n';
+        }
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        accepting = false;
+        if (drainer != null) {
+            drainer.interrupt();
+            try {
+                drainer.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeJournal();
+        if (!queue.isEmpty()) {
+            logger.info("關閉時仍有 {} 篇論文未寫入資料庫，將於下次啟動時重播", queue.size());
+        }
+    }
+
+    private void drainLoop() {
+        long retryDelay = flushIntervalMs;
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                if (batch.isEmpty()) {
+                    Pending first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        rotateJournalIfIdle();
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+
+                int saved;
+                try {
+                    saved = save(batch);
+                } catch (RuntimeException e) {
+                    if (!isPermanent(e)) {
+                        throw e;
+                    }
+                    // 整批之中有資料本身無法寫入的論文：逐筆寫入，找出的論文移到 dead-letter 檔案
+                    logger.warn("寫入佇列批次寫入失敗且無法重試，改為逐筆寫入: {}", e.getMessage());
+                    saved = saveOneByOne(batch);
+                }
+                commit(batch);
+                logger.debug("寫入佇列已寫入 {} 篇論文（重複 {} 篇）", saved, batch.size() - saved);
+                batch.clear();
+                retryDelay = flushIntervalMs;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // 資料庫暫時無法寫入：保留這批資料，退避後重試
+                logger.warn("寫入佇列寫入資料庫失敗，{} ms 後重試: {}", retryDelay, e.getMessage());
+                try {
+                    Thread.sleep(retryDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryDelay = Math.min(retryDelay * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    // 寫入批次中尚未處理的論文，回傳實際新增的篇數
+    private int save(List<Pending> batch) {
+        List<Paper> papers = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            if (!pending.settled) {
+                papers.add(pending.resetGeneratedKey());
+            }
+        }
+        return papers.isEmpty() ? 0 : paperService.saveAll(papers).size();
+    }
+
+    /**
+     * 逐筆寫入；仍然失敗且無法重試的論文寫入 dead-letter 檔案。
+     * 途中遇到暫時性錯誤時直接拋出，已處理的論文標記為 settled，重試時不會再寫一次
+     */
+    private int saveOneByOne(List<Pending> batch) throws IOException {
+        int saved = 0;
+        for (Pending pending : batch) {
+            if (pending.settled) {
+                continue;
+            }
+            try {
+                saved += paperService.saveAll(List.of(pending.resetGeneratedKey())).size();
+            } catch (RuntimeException e) {
+                if (!isPermanent(e)) {
+                    throw e;
+                }
+                deadLetter(pending, e);
+            }
+            pending.settled = true;
+        }
+        return saved;
+    }
+
+    /**
+     * 判斷寫入失敗是否為資料本身的問題（欄位過長、違反約束、SQL 錯誤等），重試也不會成功；
+     * 連線失敗雖然屬於 NonTransientDataAccessResourceException，但資料庫恢復後即可寫入，視為暫時性錯誤
+     */
+    public static boolean isPermanent(Throwable e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    private void deadLetter(Pending pending, Exception cause) throws IOException {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("seq", pending.seq);
+        entry.put("error", String.valueOf(cause.getMessage()));
+        entry.set("paper", objectMapper.valueToTree(pending.paper));
+        byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(deadLetterPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        meterRegistry.counter("paper.ingest.dead.letters").increment();
+        logger.error("論文無法寫入資料庫，已移到 {}（seq={}）: {}", deadLetterPath, pending.seq, cause.getMessage());
+    }
+
+    private void commit(List<Pending> batch) throws IOException {
+        long maxSeq = committedSeq;
+        int permitted = 0;
+        for (Pending pending : batch) {
+            maxSeq = Math.max(maxSeq, pending.seq);
+            if (pending.permitted) {
+                permitted++;
+            }
+        }
+        committedSeq = maxSeq;
+        writeCheckpoint(maxSeq);
+        permits.release(permitted);
+    }
+
+    /**
+     * 佇列清空且全部已提交時，截斷過大的 journal
+     */
+    private void rotateJournalIfIdle() throws IOException {
+        synchronized (journalLock) {
+            try {
+                if (queue.isEmpty() && committedSeq == lastSeq && journal.size() > journalRotateBytes) {
+                    journal.truncate(0);
+                    journal.force(true);
+                    logger.info("journal 已全部寫入資料庫，截斷 journal 檔案");
+                }
+            } catch (ClosedChannelException e) {
+                reopenJournal();
+            }
+        }
+    }
+
+    private int replayJournal() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return 0;
+        }
+        int replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode entry;
+                try {
+                    entry = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    // 當機時可能留下寫到一半的最後一行
+                    logger.warn("略過無法解析的 journal 紀錄");
+                    continue;
+                }
+                long seq = entry.path("seq").asLong();
+                lastSeq = Math.max(lastSeq, seq);
+                if (seq > committedSeq) {
+                    Paper paper = objectMapper.treeToValue(entry.get("paper"), Paper.class);
+                    queue.add(new Pending(seq, paper, permits.tryAcquire()));
+                    replayed++;
+                }
+            }
+        }
+        return replayed;
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        String value = Files.readString(checkpointPath, StandardCharsets.UTF_8).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    // 先寫暫存檔再原子性取代，避免 checkpoint 寫到一半
+    private void writeCheckpoint(long seq) throws IOException {
+        Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(seq), StandardCharsets.UTF_8);
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void closeJournal() {
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.warn("關閉 journal 失敗: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static final class Pending {
+        private final long seq;
+        private final Paper paper;
+        private final boolean permitted; // 是否佔用了佇列容量
+        private boolean settled; // 逐筆寫入時已寫入或已移到 dead-letter
+
+        private Pending(long seq, Paper paper, boolean permitted) {
+            this.seq = seq;
+            this.paper = paper;
+            this.permitted = permitted;
+        }
+
+        // 失敗的批次已回滾，但先前回填的主鍵仍留在物件上，重試前清除
+        private Paper resetGeneratedKey() {
+            paper.setId(null);
+            paper.setVersion(null);
+            return paper;
+        }
+    }
+}
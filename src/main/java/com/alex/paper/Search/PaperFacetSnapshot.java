@@ -0,0 +1,409 @@
+package com.alex.paper.Search;
+
+import com.alex.paper.DTO.PaperFacets;
+import com.alex.paper.DTO.PaperFacets.FacetCount;
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.AuthorNames;
+import com.alex.paper.Util.PaperFingerprint;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * paper 資料表的欄式記憶體快照，供年份 / 期刊 / 作者的分面統計使用
+ * 期刊與作者以字典編碼成 int，年份存在 int[]，統計時不需要為每列建立 Paper 物件。
+ * 不限年份的統計直接使用隨寫入維護的累計數，只有指定年份範圍時才逐列掃描
+ */
+@Component
+public class PaperFacetSnapshot {
+
+    private static final int NO_YEAR = 0;
+    private static final int MAX_YEAR = 2999;
+
+    // 已刪除列超過此比例時壓縮
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_ROWS = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Columns current = new Columns();
+
+    // 載入期間不為 null：串流建立中的新快照，以及載入期間寫入的論文最終狀態（null 代表已刪除）
+    private Columns loading;
+    private Map<Long, Paper> touched;
+
+    /**
+     * 開始載入：之後的 loadRow 寫入新的快照，查詢與寫入仍使用原本的快照，載入失敗也不會留下一半的資料
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = new Columns();
+            touched = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 串流讀到的一筆；只有載入執行緒會呼叫，新快照在 finishLoad 之前不對外
+     */
+    public void loadRow(Paper paper) {
+        Columns target = loading;
+        if (target != null && paper.getId() != null) {
+            target.upsert(paper);
+        }
+    }
+
+    /**
+     * 載入期間被寫入的論文以最終狀態蓋過串流讀到的版本，再換上新快照
+     */
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            if (loading == null) {
+                return;
+            }
+            for (Map.Entry<Long, Paper> entry : touched.entrySet()) {
+                if (entry.getValue() != null) {
+                    loading.upsert(entry.getValue());
+                } else {
+                    loading.remove(entry.getKey());
+                }
+            }
+            current = loading;
+            loading = null;
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 載入失敗時保留原本的快照
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = null;
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新一篇論文
+     */
+    public void upsert(Paper paper) {
+        if (paper == null || paper.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            current.upsert(paper);
+            if (touched != null) {
+                touched.put(paper.getId(), paper);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long paperId) {
+        lock.writeLock().lock();
+        try {
+            current.remove(paperId);
+            if (touched != null) {
+                touched.put(paperId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 計算分面統計；yearFrom / yearTo 可選，指定時只統計該年份範圍內的論文
+     */
+    public PaperFacets facets(Integer yearFrom, Integer yearTo, int limit) {
+        lock.readLock().lock();
+        try {
+            return current.facets(yearFrom, yearTo, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 快照本體；載入時另建一份，完成後整份換上。呼叫端需持有對應的鎖（載入中的快照只有載入執行緒使用）
+     */
+    private static final class Columns {
+        // 每篇論文一列，以平行的原生陣列儲存；作者為多值欄位，存成 authorCodes 中的一段區間
+        private long[] ids = new long[1024];
+        private int[] years = new int[1024];
+        private int[] journals = new int[1024];
+        private int[] authorStart = new int[1024];
+        private int[] authorCount = new int[1024];
+        private int[] authorCodes = new int[4096];
+        private int authorCodeCount;
+        private BitSet deleted = new BitSet();
+        private int rowCount;
+        private int liveRowCount;
+        private final Map<Long, Integer> rowById = new HashMap<>();
+
+        private final Dictionary journalDictionary = new Dictionary();
+        private final Dictionary authorDictionary = new Dictionary();
+
+        // 所有存活列的累計數，依年份 / 字典編碼索引
+        private final int[] yearTotals = new int[MAX_YEAR + 1];
+        private int[] journalTotals = new int[256];
+        private int[] authorTotals = new int[1024];
+
+        void upsert(Paper paper) {
+            Integer row = rowById.remove(paper.getId());
+            if (row != null) {
+                deleteRow(row);
+            }
+            appendRow(paper);
+            compactIfNeeded();
+        }
+
+        void remove(Long paperId) {
+            Integer row = rowById.remove(paperId);
+            if (row != null) {
+                deleteRow(row);
+                compactIfNeeded();
+            }
+        }
+
+        PaperFacets facets(Integer yearFrom, Integer yearTo, int limit) {
+            if (yearFrom == null && yearTo == null) {
+                return toFacets(liveRowCount, yearTotals, journalTotals, authorTotals, limit);
+            }
+
+            int[] yearCounts = new int[MAX_YEAR + 1];
+            int[] journalCounts = new int[journalDictionary.size()];
+            int[] authorCounts = new int[authorDictionary.size()];
+            int total = 0;
+
+            for (int row = 0; row < rowCount; row++) {
+                if (deleted.get(row)) {
+                    continue;
+                }
+                int year = years[row];
+                if (year == NO_YEAR || (yearFrom != null && year < yearFrom) || (yearTo != null && year > yearTo)) {
+                    continue;
+                }
+                total++;
+                yearCounts[year]++;
+                if (journals[row] >= 0) {
+                    journalCounts[journals[row]]++;
+                }
+                int end = authorStart[row] + authorCount[row];
+                for (int k = authorStart[row]; k < end; k++) {
+                    authorCounts[authorCodes[k]]++;
+                }
+            }
+
+            return toFacets(total, yearCounts, journalCounts, authorCounts, limit);
+        }
+
+        private PaperFacets toFacets(int total, int[] yearCounts, int[] journalCounts, int[] authorCounts, int limit) {
+            List<FacetCount> yearFacets = new ArrayList<>();
+            for (int year = MAX_YEAR; year > NO_YEAR; year--) {
+                if (yearCounts[year] > 0) {
+                    yearFacets.add(new FacetCount(String.valueOf(year), yearCounts[year]));
+                }
+            }
+            return new PaperFacets(total, yearFacets,
+                top(journalCounts, journalDictionary, limit),
+                top(authorCounts, authorDictionary, limit));
+        }
+
+        private void appendRow(Paper paper) {
+            if (rowCount == ids.length) {
+                int capacity = rowCount * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                years = Arrays.copyOf(years, capacity);
+                journals = Arrays.copyOf(journals, capacity);
+                authorStart = Arrays.copyOf(authorStart, capacity);
+                authorCount = Arrays.copyOf(authorCount, capacity);
+            }
+            List<String> authors = AuthorNames.split(paper.getAuthor());
+            if (authorCodeCount + authors.size() > authorCodes.length) {
+                authorCodes = Arrays.copyOf(authorCodes, Math.max(authorCodes.length * 2, authorCodeCount + authors.size()));
+            }
+
+            int row = rowCount++;
+            ids[row] = paper.getId();
+            Integer year = paper.getYear();
+            years[row] = year != null && year > NO_YEAR && year <= MAX_YEAR ? year : NO_YEAR;
+            journals[row] = journalDictionary.encode(paper.getJournal());
+            authorStart[row] = authorCodeCount;
+            int count = 0;
+            for (String author : authors) {
+                int code = authorDictionary.encode(author);
+                if (code >= 0) {
+                    authorCodes[authorCodeCount++] = code;
+                    count++;
+                }
+            }
+            authorCount[row] = count;
+            rowById.put(paper.getId(), row);
+            liveRowCount++;
+
+            journalTotals = ensureCapacity(journalTotals, journalDictionary.size());
+            authorTotals = ensureCapacity(authorTotals, authorDictionary.size());
+            addTotals(row, 1);
+        }
+
+        private void deleteRow(int row) {
+            if (!deleted.get(row)) {
+                deleted.set(row);
+                liveRowCount--;
+                addTotals(row, -1);
+            }
+        }
+
+        private void addTotals(int row, int delta) {
+            if (years[row] != NO_YEAR) {
+                yearTotals[years[row]] += delta;
+            }
+            if (journals[row] >= 0) {
+                journalTotals[journals[row]] += delta;
+            }
+            int end = authorStart[row] + authorCount[row];
+            for (int k = authorStart[row]; k < end; k++) {
+                authorTotals[authorCodes[k]] += delta;
+            }
+        }
+
+        /**
+         * 已刪除列過多時，把存活列往前搬並重建 id 對應；字典同時移除已無任何論文使用的期刊與作者
+         */
+        private void compactIfNeeded() {
+            int deletedCount = rowCount - liveRowCount;
+            if (rowCount < COMPACT_MIN_ROWS || deletedCount < rowCount * COMPACT_RATIO) {
+                return;
+            }
+            int[] journalRemap = journalDictionary.compact(journalTotals);
+            int[] authorRemap = authorDictionary.compact(authorTotals);
+            journalTotals = remapTotals(journalTotals, journalRemap, journalDictionary.size());
+            authorTotals = remapTotals(authorTotals, authorRemap, authorDictionary.size());
+
+            int next = 0;
+            int nextAuthor = 0;
+            for (int row = 0; row < rowCount; row++) {
+                if (deleted.get(row)) {
+                    continue;
+                }
+                ids[next] = ids[row];
+                years[next] = years[row];
+                journals[next] = journals[row] >= 0 ? journalRemap[journals[row]] : -1;
+                int start = authorStart[row];
+                int count = authorCount[row];
+                // nextAuthor 不會超過 start，依序往前搬不會覆蓋尚未處理的編碼
+                for (int k = 0; k < count; k++) {
+                    authorCodes[nextAuthor + k] = authorRemap[authorCodes[start + k]];
+                }
+                authorStart[next] = nextAuthor;
+                authorCount[next] = count;
+                nextAuthor += count;
+                rowById.put(ids[next], next);
+                next++;
+            }
+            rowCount = next;
+            authorCodeCount = nextAuthor;
+            deleted = new BitSet();
+        }
+    }
+
+    private static int[] ensureCapacity(int[] totals, int size) {
+        return size <= totals.length ? totals : Arrays.copyOf(totals, Math.max(totals.length * 2, size));
+    }
+
+    private static int[] remapTotals(int[] totals, int[] remap, int size) {
+        int[] compacted = new int[Math.max(size, 16)];
+        for (int code = 0; code < remap.length; code++) {
+            if (remap[code] >= 0) {
+                compacted[remap[code]] = totals[code];
+            }
+        }
+        return compacted;
+    }
+
+    private static List<FacetCount> top(int[] counts, Dictionary dictionary, int limit) {
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Comparator.comparingInt(code -> counts[code]));
+        // 累計數陣列可能比字典大
+        for (int code = 0; code < dictionary.size(); code++) {
+            if (counts[code] == 0) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(code);
+            } else if (counts[code] > counts[heap.peek()]) {
+                heap.poll();
+                heap.add(code);
+            }
+        }
+        List<FacetCount> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            int code = heap.poll();
+            result.add(new FacetCount(dictionary.decode(code), counts[code]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // 字串字典：正規化後相同的字串共用一個編碼，顯示第一次出現的原文
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private List<String> keys = new ArrayList<>();
+        private List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            String key = PaperFingerprint.normalize(value);
+            if (key.isEmpty()) {
+                return -1;
+            }
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = values.size();
+                codes.put(key, code);
+                keys.add(key);
+                values.add(value.trim());
+            }
+            return code;
+        }
+
+        /**
+         * 移除 totals 為 0 的編碼並重新編號（保持原本順序），回傳舊編碼到新編碼的對應，被移除者為 -1
+         */
+        int[] compact(int[] totals) {
+            int[] remap = new int[values.size()];
+            List<String> liveKeys = new ArrayList<>();
+            List<String> liveValues = new ArrayList<>();
+            codes.clear();
+            for (int code = 0; code < remap.length; code++) {
+                if (totals[code] > 0) {
+                    remap[code] = liveValues.size();
+                    codes.put(keys.get(code), liveValues.size());
+                    liveKeys.add(keys.get(code));
+                    liveValues.add(values.get(code));
+                } else {
+                    remap[code] = -1;
+                }
+            }
+            keys = liveKeys;
+            values = liveValues;
+            return remap;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.alex.paper.Search;
+
+import com.alex.paper.Model.Paper;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 論文全文檢索索引（標題、作者、摘要），使用倒排索引 + BM25 排序
+ * 啟動時由 PaperIndexLoader 與其他索引共用一次串流建立，之後由 PaperServiceImpl 的新增/更新/刪除增量維護
+ */
+@Component
+public class PaperSearchIndex {
+
+    // BM25 參數
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // 欄位權重：標題命中比摘要命中更重要
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int ABSTRACT_WEIGHT = 1;
+
+    // 已刪除文件超過此比例時壓縮倒排列表
+    private static final double COMPACT_RATIO = 0.25;
+    private static final int COMPACT_MIN_DOCS = 1024;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "by", "for", "from",
+        "in", "is", "of", "on", "or", "the", "to", "with"
+    );
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Index current = new Index();
+
+    // 載入期間不為 null：串流建立中的新索引，以及載入期間寫入的論文最終狀態（null 代表已刪除）
+    private Index loading;
+    private Map<Long, Paper> touched;
+
+    // 查詢用的分數緩衝區，用完歸還，不必每次查詢都配置 docCount 大小的陣列
+    private final Queue<ScoreBuffer> scoreBuffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 開始載入：之後的 loadRow 寫入新的索引，查詢仍使用原本的索引，不需持有鎖
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = new Index();
+            touched = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 串流讀到的一筆；只有載入執行緒會呼叫，新索引在 finishLoad 之前不對外
+     */
+    public void loadRow(Paper paper) {
+        Index target = loading;
+        if (target != null && paper.getId() != null) {
+            target.add(paper);
+        }
+    }
+
+    /**
+     * 載入期間被寫入的論文以最終狀態蓋過串流讀到的版本，再換上新索引
+     */
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            if (loading == null) {
+                return;
+            }
+            for (Map.Entry<Long, Paper> entry : touched.entrySet()) {
+                if (entry.getValue() != null) {
+                    loading.add(entry.getValue());
+                } else {
+                    loading.remove(entry.getKey());
+                }
+            }
+            current = loading;
+            loading = null;
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 載入失敗時保留原本的索引
+    public void abortLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = null;
+            touched = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 新增或更新一篇論文的索引
+     */
+    public void index(Paper paper) {
+        if (paper == null || paper.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            current.add(paper);
+            if (touched != null) {
+                touched.put(paper.getId(), paper);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 從索引中移除一篇論文
+     */
+    public void remove(Long paperId) {
+        lock.writeLock().lock();
+        try {
+            current.remove(paperId);
+            if (touched != null) {
+                touched.put(paperId, null);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 依 BM25 分數由高到低回傳前 limit 筆結果
+     */
+    public List<Hit> search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        ScoreBuffer buffer = scoreBuffers.poll();
+        if (buffer == null) {
+            buffer = new ScoreBuffer();
+        }
+        lock.readLock().lock();
+        try {
+            return current.search(terms, limit, buffer);
+        } finally {
+            lock.readLock().unlock();
+            buffer.clear();
+            scoreBuffers.offer(buffer);
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.liveDocCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 倒排索引本體；載入時另建一份，完成後整份換上。呼叫端需持有對應的鎖（載入中的索引只有載入執行緒使用）
+     */
+    private static final class Index {
+        // 詞 -> 倒排列表；文件以內部序號表示，序號 -> 論文 ID 由 docIds 對應
+        private Map<String, Postings> postings = new HashMap<>();
+        private final Map<Long, Integer> docById = new HashMap<>();
+        private long[] docIds = new long[1024];
+        private int[] docLengths = new int[1024];
+        // 每個序號出現過的詞的倒排列表，刪除時用來扣除各詞的存活文件數
+        private Postings[][] docTerms = new Postings[1024][];
+        private BitSet deleted = new BitSet();
+        private int docCount;       // 已配置的序號數（含已刪除）
+        private int liveDocCount;   // 存活文件數
+        private long totalLength;   // 存活文件的加權長度總和
+
+        void add(Paper paper) {
+            Integer existing = docById.remove(paper.getId());
+            if (existing != null) {
+                deleteDocument(existing);
+            }
+
+            Map<String, Integer> termFreqs = new HashMap<>();
+            int length = accumulate(termFreqs, paper.getTitle(), TITLE_WEIGHT)
+                + accumulate(termFreqs, paper.getAuthor(), AUTHOR_WEIGHT)
+                + accumulate(termFreqs, paper.getAbstractText(), ABSTRACT_WEIGHT);
+
+            int doc = docCount++;
+            if (doc == docIds.length) {
+                docIds = Arrays.copyOf(docIds, doc * 2);
+                docLengths = Arrays.copyOf(docLengths, doc * 2);
+                docTerms = Arrays.copyOf(docTerms, doc * 2);
+            }
+            docIds[doc] = paper.getId();
+            docLengths[doc] = length;
+            docById.put(paper.getId(), doc);
+            liveDocCount++;
+            totalLength += length;
+
+            Postings[] terms = new Postings[termFreqs.size()];
+            int t = 0;
+            for (Map.Entry<String, Integer> entry : termFreqs.entrySet()) {
+                Postings list = postings.computeIfAbsent(entry.getKey(), k -> new Postings());
+                list.add(doc, entry.getValue());
+                terms[t++] = list;
+            }
+            docTerms[doc] = terms;
+            compactIfNeeded();
+        }
+
+        void remove(Long paperId) {
+            Integer doc = docById.remove(paperId);
+            if (doc != null) {
+                deleteDocument(doc);
+                compactIfNeeded();
+            }
+        }
+
+        List<Hit> search(Set<String> terms, int limit, ScoreBuffer buffer) {
+            if (liveDocCount == 0) {
+                return Collections.emptyList();
+            }
+            double avgLength = (double) totalLength / liveDocCount;
+            float[] scores = buffer.scores(docCount);
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // 只計存活文件：更新過的論文在倒排列表中留下的舊項目不影響 idf
+                int df = list.live;
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocCount - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc)) {
+                        continue;
+                    }
+                    int tf = list.freqs[i];
+                    double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                    if (scores[doc] == 0f) {
+                        buffer.touch(doc);
+                    }
+                    scores[doc] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+                }
+            }
+
+            // 以最小堆保留前 limit 名
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::getScore));
+            for (int i = 0; i < buffer.touchedCount; i++) {
+                int doc = buffer.touched[i];
+                if (top.size() < limit) {
+                    top.add(new Hit(docIds[doc], scores[doc]));
+                } else if (scores[doc] > top.peek().getScore()) {
+                    top.poll();
+                    top.add(new Hit(docIds[doc], scores[doc]));
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top);
+            hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+            return hits;
+        }
+
+        private void deleteDocument(int doc) {
+            if (!deleted.get(doc)) {
+                deleted.set(doc);
+                liveDocCount--;
+                totalLength -= docLengths[doc];
+                for (Postings list : docTerms[doc]) {
+                    list.live--;
+                }
+                docTerms[doc] = null;
+            }
+        }
+
+        /**
+         * 已刪除的序號過多時，重新編號並移除倒排列表中的失效項目
+         */
+        private void compactIfNeeded() {
+            int deletedCount = docCount - liveDocCount;
+            if (docCount < COMPACT_MIN_DOCS || deletedCount < docCount * COMPACT_RATIO) {
+                return;
+            }
+
+            int[] remap = new int[docCount];
+            int next = 0;
+            for (int doc = 0; doc < docCount; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                } else {
+                    remap[doc] = next;
+                    docIds[next] = docIds[doc];
+                    docLengths[next] = docLengths[doc];
+                    docTerms[next] = docTerms[doc];
+                    docById.put(docIds[next], next);
+                    next++;
+                }
+            }
+
+            Arrays.fill(docTerms, next, docCount, null);
+
+            // 就地壓縮各倒排列表，docTerms 中的參照仍然有效
+            Iterator<Postings> lists = postings.values().iterator();
+            while (lists.hasNext()) {
+                Postings list = lists.next();
+                int kept = 0;
+                for (int i = 0; i < list.size; i++) {
+                    int doc = remap[list.docs[i]];
+                    if (doc >= 0) {
+                        list.docs[kept] = doc;
+                        list.freqs[kept] = list.freqs[i];
+                        kept++;
+                    }
+                }
+                list.size = kept;
+                if (kept == 0) {
+                    lists.remove();
+                }
+            }
+
+            deleted = new BitSet();
+            docCount = next;
+        }
+    }
+
+    private static int accumulate(Map<String, Integer> termFreqs, String text, int weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            termFreqs.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    /**
+     * 斷詞：英數字以非字母數字切開並轉小寫，中日韓文字逐字成詞
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isIdeographic(codePoint)) {
+                flushToken(current, tokens);
+                tokens.add(new String(Character.toChars(codePoint)));
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                current.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                flushToken(current, tokens);
+            }
+        }
+        flushToken(current, tokens);
+        return tokens;
+    }
+
+    private static void flushToken(StringBuilder current, List<String> tokens) {
+        if (current.length() > 0) {
+            String token = current.toString();
+            if (!STOP_WORDS.contains(token)) {
+                tokens.add(token);
+            }
+            current.setLength(0);
+        }
+    }
+
+    // 單一詞的倒排列表，以平行的原生陣列儲存文件序號與加權詞頻；live 為其中未刪除的文件數（即 df）
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] freqs = new int[4];
+        private int size;
+        private int live;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+            live++;
+        }
+    }
+
+    // 一次查詢的累計分數與有分數的文件序號；歸還前只清除有分數的位置
+    private static final class ScoreBuffer {
+        private float[] scores = new float[1024];
+        private int[] touched = new int[64];
+        private int touchedCount;
+
+        float[] scores(int docCount) {
+            if (scores.length < docCount) {
+                scores = new float[Math.max(docCount, scores.length * 2)];
+            }
+            return scores;
+        }
+
+        void touch(int doc) {
+            if (touchedCount == touched.length) {
+                touched = Arrays.copyOf(touched, touchedCount * 2);
+            }
+            touched[touchedCount++] = doc;
+        }
+
+        void clear() {
+            for (int i = 0; i < touchedCount; i++) {
+                scores[touched[i]] = 0f;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    public static final class Hit {
+        private final long paperId;
+        private final double score;
+
+        public Hit(long paperId, double score) {
+            this.paperId = paperId;
+            this.score = score;
+        }
+
+        public long getPaperId() {
+            return paperId;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.Crawler.CrawlBackend;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在 Python、Selenium、Jsoup 三種爬取方式之間選擇：每個方式有自己的斷路器，
+ * 依近期成功率與延遲（EWMA）排序，失敗時立即改用下一個；可選擇在請求超過時限後同時送出備援請求（hedging）。
+ * 健康狀態由背景探測更新，請求路徑上不再另外呼叫 /health。
+ * 一小部分請求會先送給排名較後的方式（exploration），讓恢復後的方式有機會重新累積紀錄、回到前面
+ */
+@Service
+public class CrawlBackendRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlBackendRouter.class);
+
+    // 成功率低於此值時以此值計算，避免除以零
+    private static final double MIN_SUCCESS_RATE = 0.05;
+
+    @Autowired
+    private List<CrawlBackend> backends;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 尚無紀錄時的優先順序，也作為分數相同時的順序
+    @Value("${crawler.routing.preference:python,selenium,jsoup}")
+    private List<String> preference;
+
+    // 連續失敗幾次後開啟斷路器
+    @Value("${crawler.routing.failure-threshold:3}")
+    private int failureThreshold;
+
+    // 斷路器開啟後多久允許一次試探請求
+    @Value("${crawler.routing.open-ms:30000}")
+    private long openMs;
+
+    // EWMA 權重，越大越重視最近的結果
+    @Value("${crawler.routing.ewma-alpha:0.2}")
+    private double ewmaAlpha;
+
+    @Value("${crawler.routing.probe-interval-ms:10000}")
+    private long probeIntervalMs;
+
+    // 大於 0 時，首選方式超過此時間仍未完成就同時向下一個方式送出請求，取先成功者
+    @Value("${crawler.routing.hedge-after-ms:0}")
+    private long hedgeAfterMs;
+
+    // 同時進行中的備援請求執行緒上限，用滿時不再送出備援、改為依序嘗試
+    @Value("${crawler.routing.hedge-max-threads:8}")
+    private int hedgeMaxThreads;
+
+    // 改送給排名較後（但斷路器未開啟）的方式的請求比例
+    @Value("${crawler.routing.explore-ratio:0.05}")
+    private double exploreRatio;
+
+    private final Map<String, BackendState> states = new LinkedHashMap<>();
+    private ScheduledExecutorService prober;
+    private ThreadPoolExecutor hedgeExecutor;
+
+    @PostConstruct
+    public void init() {
+        List<CrawlBackend> ordered = new ArrayList<>(backends);
+        ordered.sort(Comparator.comparingInt(backend -> preferenceIndex(backend.name())));
+        for (CrawlBackend backend : ordered) {
+            BackendState state = new BackendState(backend, preferenceIndex(backend.name()));
+            states.put(backend.name(), state);
+            Gauge.builder("crawler.backend.latency.ewma", state, s -> s.ewmaLatencyMs)
+                .description("Exponentially weighted average latency of successful crawls")
+                .baseUnit("milliseconds")
+                .tag("backend", backend.name())
+                .register(meterRegistry);
+            Gauge.builder("crawler.backend.success.rate", state, s -> s.successRate)
+                .description("Exponentially weighted success rate of crawls")
+                .tag("backend", backend.name())
+                .register(meterRegistry);
+            Gauge.builder("crawler.backend.circuit.state", state, s -> s.circuit.ordinal())
+                .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .tag("backend", backend.name())
+                .register(meterRegistry);
+        }
+        if (hedgeAfterMs > 0) {
+            AtomicInteger threadCount = new AtomicInteger();
+            // 不排隊：執行緒用滿時 submit 直接被拒絕，由呼叫端改為依序嘗試
+            hedgeExecutor = new ThreadPoolExecutor(hedgeMaxThreads, hedgeMaxThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "crawl-hedge-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            hedgeExecutor.allowCoreThreadTimeOut(true);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startProbing() {
+        prober = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "crawl-backend-prober");
+            thread.setDaemon(true);
+            return thread;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, 0, probeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (prober != null) {
+            prober.shutdownNow();
+        }
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 依目前排名爬取單一關鍵字；全部方式都失敗或斷路器都開啟時拋出例外
+     */
+    public List<Paper> crawl(CrawlerRequest request) {
+        List<BackendState> candidates = rank();
+        if (hedgeExecutor != null && candidates.size() > 1) {
+            return crawlHedged(request, candidates);
+        }
+        return crawlSequential(request, candidates);
+    }
+
+    private List<Paper> crawlSequential(CrawlerRequest request, List<BackendState> candidates) {
+        Exception lastFailure = null;
+        for (BackendState state : candidates) {
+            if (!state.tryAcquire()) {
+                continue;
+            }
+            try {
+                return call(state, request);
+            } catch (Exception e) {
+                lastFailure = e;
+                logger.warn("爬蟲方式 {} 失敗，改用下一個: {}", state.backend.name(), e.getMessage());
+            }
+        }
+        throw failure(lastFailure);
+    }
+
+    private List<Paper> crawlHedged(CrawlerRequest request, List<BackendState> candidates) {
+        ExecutorCompletionService<List<Paper>> completion = new ExecutorCompletionService<>(hedgeExecutor);
+        Map<Future<List<Paper>>, BackendState> inFlight = new HashMap<>();
+        Iterator<BackendState> remaining = candidates.iterator();
+        Exception lastFailure = null;
+        try {
+            if (!launchNext(remaining, completion, inFlight, request)) {
+                // 備援執行緒已用滿，在目前的執行緒上依序嘗試
+                return crawlSequential(request, candidates);
+            }
+            while (!inFlight.isEmpty()) {
+                Future<List<Paper>> done = completion.poll(hedgeAfterMs, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    // 超過時限仍未完成：同時向下一個方式送出請求
+                    if (launchNext(remaining, completion, inFlight, request)) {
+                        logger.info("爬取關鍵字 '{}' 超過 {} ms，送出備援請求", request.getKeyword(), hedgeAfterMs);
+                    }
+                    continue;
+                }
+                BackendState state = inFlight.remove(done);
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    lastFailure = e.getCause() instanceof Exception cause ? cause : e;
+                    logger.warn("爬蟲方式 {} 失敗，改用下一個: {}", state.backend.name(), lastFailure.getMessage());
+                    launchNext(remaining, completion, inFlight, request);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("爬取被中斷", e);
+        } finally {
+            // 其餘仍在進行的請求不再需要
+            inFlight.keySet().forEach(future -> future.cancel(true));
+        }
+        throw failure(lastFailure);
+    }
+
+    private boolean launchNext(Iterator<BackendState> remaining, ExecutorCompletionService<List<Paper>> completion,
+                               Map<Future<List<Paper>>, BackendState> inFlight, CrawlerRequest request) {
+        while (remaining.hasNext()) {
+            BackendState state = remaining.next();
+            if (state.tryAcquire()) {
+                try {
+                    inFlight.put(completion.submit(() -> call(state, request)), state);
+                } catch (RejectedExecutionException e) {
+                    state.release();
+                    logger.debug("備援執行緒已用滿，不再送出備援請求");
+                    return false;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Paper> call(BackendState state, CrawlerRequest request) throws Exception {
+        long start = System.nanoTime();
+        try {
+            List<Paper> papers = state.backend.crawl(request);
+            state.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), true);
+            return papers;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException || Thread.currentThread().isInterrupted()) {
+                // 被取消的備援請求不算失敗（捕捉 InterruptedException 時中斷旗標已被清除）
+                state.release();
+            } else {
+                state.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), false);
+            }
+            throw e;
+        }
+    }
+
+    private RuntimeException failure(Exception lastFailure) {
+        if (lastFailure == null) {
+            return new IllegalStateException("所有爬蟲方式的斷路器都已開啟，請稍後再試");
+        }
+        return new RuntimeException("所有爬蟲方案都失敗", lastFailure);
+    }
+
+    /**
+     * 指定方式目前是否可以接受請求；可以時會佔用半開狀態的試探名額，呼叫端必須接著呼叫 record
+     */
+    public boolean tryAcquire(String backendName) {
+        BackendState state = states.get(backendName);
+        return state != null && state.tryAcquire();
+    }
+
+    /**
+     * 回報不經由 crawl() 的請求結果（例如 Python 批量爬取），latencyMs 應換算成單一關鍵字的時間
+     */
+    public void record(String backendName, long latencyMs, boolean success) {
+        BackendState state = states.get(backendName);
+        if (state != null) {
+            state.record(latencyMs, success);
+        }
+    }
+
+    /**
+     * 放棄 tryAcquire 取得的名額而不計入結果（例如失敗的是呼叫端自己的處理，與爬取方式無關）
+     */
+    public void release(String backendName) {
+        BackendState state = states.get(backendName);
+        if (state != null) {
+            state.release();
+        }
+    }
+
+    /**
+     * 背景探測得到的最新健康狀態
+     */
+    public boolean isHealthy(String backendName) {
+        BackendState state = states.get(backendName);
+        return state != null && state.lastProbeHealthy;
+    }
+
+    /**
+     * 各方式的排名與狀態，依目前的選擇順序排列
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (BackendState state : rankAll()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("backend", state.backend.name());
+            entry.put("circuit", state.circuit.name());
+            entry.put("healthy", state.lastProbeHealthy);
+            entry.put("successRate", state.successRate);
+            entry.put("latencyMs", state.sampled ? Math.round(state.ewmaLatencyMs) : null);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * 可接受請求的方式，依預期成本（延遲 / 成功率）排序；尚無成功紀錄的方式依設定順序排在後面
+     */
+    private List<BackendState> rank() {
+        List<BackendState> candidates = new ArrayList<>();
+        for (BackendState state : rankAll()) {
+            if (state.allowsRequests()) {
+                candidates.add(state);
+            }
+        }
+        // 只看 EWMA 時，排在後面的方式永遠拿不到流量，紀錄也不會更新；偶爾先試一個排名較後的方式
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (candidates.size() > 1 && random.nextDouble() < exploreRatio) {
+            candidates.add(0, candidates.remove(1 + random.nextInt(candidates.size() - 1)));
+        }
+        return candidates;
+    }
+
+    private List<BackendState> rankAll() {
+        List<BackendState> ordered = new ArrayList<>(states.values());
+        ordered.sort(Comparator
+            .comparing((BackendState state) -> !state.sampled)
+            .thenComparingDouble(BackendState::expectedCost)
+            .thenComparingInt(state -> state.preferenceIndex));
+        return ordered;
+    }
+
+    private void probeAll() {
+        for (BackendState state : states.values()) {
+            boolean healthy;
+            try {
+                healthy = state.backend.probe();
+            } catch (Exception e) {
+                healthy = false;
+            }
+            state.onProbe(healthy);
+        }
+    }
+
+    private int preferenceIndex(String name) {
+        int index = preference.indexOf(name);
+        return index >= 0 ? index : preference.size();
+    }
+
+    private enum Circuit { CLOSED, HALF_OPEN, OPEN }
+
+    private final class BackendState {
+        private final CrawlBackend backend;
+        private final int preferenceIndex;
+
+        private volatile Circuit circuit = Circuit.CLOSED;
+        private volatile double ewmaLatencyMs;
+        private volatile double successRate = 1.0;
+        private volatile boolean sampled;
+        private volatile boolean lastProbeHealthy = true;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean openedByProbe;
+        private boolean trialInFlight;
+
+        BackendState(CrawlBackend backend, int preferenceIndex) {
+            this.backend = backend;
+            this.preferenceIndex = preferenceIndex;
+        }
+
+        double expectedCost() {
+            return ewmaLatencyMs / Math.max(successRate, MIN_SUCCESS_RATE);
+        }
+
+        synchronized boolean allowsRequests() {
+            return switch (circuit) {
+                case CLOSED -> true;
+                case HALF_OPEN -> !trialInFlight;
+                case OPEN -> !openedByProbe && System.currentTimeMillis() - openedAt >= openMs;
+            };
+        }
+
+        /**
+         * 關閉時直接允許；開啟且冷卻結束、或半開時，只放行一個試探請求
+         */
+        synchronized boolean tryAcquire() {
+            if (!allowsRequests()) {
+                return false;
+            }
+            if (circuit != Circuit.CLOSED) {
+                circuit = Circuit.HALF_OPEN;
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized void record(long latencyMs, boolean success) {
+            trialInFlight = false;
+            successRate += ewmaAlpha * ((success ? 1.0 : 0.0) - successRate);
+            if (success) {
+                if (circuit != Circuit.CLOSED) {
+                    // 試探請求成功：斷路器開啟前累積的低成功率不應讓它一直排在最後
+                    logger.info("爬蟲方式 {} 恢復，斷路器關閉", backend.name());
+                    resetStats();
+                }
+                ewmaLatencyMs = sampled ? ewmaLatencyMs + ewmaAlpha * (latencyMs - ewmaLatencyMs) : latencyMs;
+                sampled = true;
+                consecutiveFailures = 0;
+                circuit = Circuit.CLOSED;
+                return;
+            }
+            consecutiveFailures++;
+            if (circuit == Circuit.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+                open(false);
+            }
+        }
+
+        synchronized void onProbe(boolean healthy) {
+            lastProbeHealthy = healthy;
+            if (!healthy && circuit != Circuit.OPEN) {
+                logger.warn("爬蟲方式 {} 健康檢查失敗", backend.name());
+                open(true);
+            } else if (healthy && circuit == Circuit.OPEN && openedByProbe) {
+                // 健康檢查恢復：放行一個試探請求確認實際爬取也正常；故障期間的紀錄不再代表現況，重新累積
+                circuit = Circuit.HALF_OPEN;
+                openedByProbe = false;
+                resetStats();
+            }
+        }
+
+        private void resetStats() {
+            successRate = 1.0;
+            sampled = false;
+            consecutiveFailures = 0;
+        }
+
+        private void open(boolean byProbe) {
+            if (circuit != Circuit.OPEN && !byProbe) {
+                logger.warn("爬蟲方式 {} 斷路器開啟（連續失敗 {} 次）", backend.name(), consecutiveFailures);
+            }
+            circuit = Circuit.OPEN;
+            openedAt = System.currentTimeMillis();
+            openedByProbe = byProbe;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.DTO.CrawlJob;
+import com.alex.paper.DTO.CrawlJobRequest;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 非同步爬取工作：請求只負責建立工作並回傳 ID，爬取在有上限的執行緒池中進行，
+ * 不佔用 Tomcat 的請求執行緒
+ */
+@Service
+public class CrawlJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlJobService.class);
+
+    // 保留最近完成的工作筆數
+    private static final int HISTORY_SIZE = 100;
+
+    @Autowired
+    private CrawlerService crawlerService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${crawler.job.pool-size:4}")
+    private int poolSize;
+
+    @Value("${crawler.job.queue-capacity:100}")
+    private int queueCapacity;
+
+    private final Map<String, CrawlJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Future<?>> futures = new ConcurrentHashMap<>();
+    // 正在把結果交給寫入佇列或資料庫的工作；取消時不中斷，避免中斷 journal 的 FileChannel
+    private final Set<String> persisting = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "crawl-job-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        executor = ExecutorServiceMetrics.monitor(meterRegistry, pool, "crawler.jobs");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 建立工作並排入執行緒池；佇列已滿時拋出 RejectedExecutionException
+     */
+    public CrawlJob submit(CrawlJobRequest request) {
+        List<String> keywords = request.getKeywords();
+        if (keywords == null || keywords.stream().allMatch(keyword -> keyword == null || keyword.isBlank())) {
+            throw new IllegalArgumentException("關鍵字列表不能為空");
+        }
+        int maxResults = request.getMaxResultsPerKeyword() != null ? request.getMaxResultsPerKeyword() : 5;
+        CrawlJob job = new CrawlJob(UUID.randomUUID().toString(), keywords, maxResults, request.isSave());
+
+        jobs.put(job.getJobId(), job);
+        try {
+            futures.put(job.getJobId(), executor.submit(() -> run(job, request)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw e;
+        }
+        trimHistory();
+        logger.info("建立爬取工作 {}：{} 個關鍵字", job.getJobId(), keywords.size());
+        return job;
+    }
+
+    public CrawlJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    public Collection<CrawlJob> getAllJobs() {
+        return jobs.values();
+    }
+
+    /**
+     * 取消工作；爬取中的請求會被中斷（等待中的結果頁一併取消），正在儲存的一批則等它寫完，
+     * 工作執行緒在下一個關鍵字之前發現已取消後結束。已取得的部分結果保留
+     */
+    public CrawlJob cancel(String jobId) {
+        CrawlJob job = jobs.get(jobId);
+        if (job == null) {
+            return null;
+        }
+        // 與 crawlKeyword 進入儲存階段互斥：中斷只會發生在爬取階段
+        synchronized (job) {
+            if (job.cancel()) {
+                Future<?> future = futures.remove(jobId);
+                if (future != null) {
+                    future.cancel(!persisting.contains(jobId));
+                }
+                logger.info("已取消爬取工作 {}", jobId);
+            }
+        }
+        return job;
+    }
+
+    private void run(CrawlJob job, CrawlJobRequest request) {
+        if (!job.start()) {
+            return; // 排隊時就被取消
+        }
+        try {
+            List<String> keywords = job.getKeywords();
+            for (int i = 0; i < keywords.size(); i++) {
+                if (job.isCancelled() || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                String keyword = keywords.get(i);
+                if (keyword == null || keyword.isBlank()) {
+                    job.recordFailedKeyword(keyword);
+                    continue;
+                }
+                // 請求間隔由 HostRateLimiter 統一控制
+                crawlKeyword(job, request, keyword.trim());
+            }
+            job.complete();
+            logger.info("爬取工作 {} 完成：{} 篇論文，儲存 {} 篇，耗時 {} ms",
+                job.getJobId(), job.getPaperCount(), job.getSavedCount(), job.getElapsedMillis());
+        } catch (Exception e) {
+            logger.error("爬取工作 {} 失敗: {}", job.getJobId(), e.getMessage());
+            job.fail(e.getMessage());
+        } finally {
+            futures.remove(job.getJobId());
+        }
+    }
+
+    private void crawlKeyword(CrawlJob job, CrawlJobRequest request, String keyword) {
+        try {
+            CrawlerRequest crawlerRequest = new CrawlerRequest(keyword, job.getMaxResultsPerKeyword());
+            crawlerRequest.setYearFrom(request.getYearFrom());
+            crawlerRequest.setYearTo(request.getYearTo());
+            List<Paper> papers = crawlerService.crawlGoogleScholar(crawlerRequest);
+            int saved = 0;
+            if (job.isSave()) {
+                synchronized (job) {
+                    if (job.isCancelled()) {
+                        return;
+                    }
+                    persisting.add(job.getJobId());
+                }
+                try {
+                    saved = crawlerService.saveSelectedPapers(papers).size();
+                } finally {
+                    persisting.remove(job.getJobId());
+                }
+            } else if (job.isCancelled()) {
+                return;
+            }
+            job.recordKeyword(papers, saved);
+        } catch (RuntimeException e) {
+            logger.error("爬取工作 {} 的關鍵字 '{}' 失敗: {}", job.getJobId(), keyword, e.getMessage());
+            job.recordFailedKeyword(keyword);
+        }
+    }
+
+    private void trimHistory() {
+        if (jobs.size() <= HISTORY_SIZE) {
+            return;
+        }
+        jobs.values().stream()
+            .filter(CrawlJob::isFinished)
+            .sorted(Comparator.comparingLong(CrawlJob::getCreatedAt))
+            .limit(jobs.size() - HISTORY_SIZE)
+            .forEach(finished -> jobs.remove(finished.getJobId()));
+    }
+}
@@ -1,15 +1,29 @@
 package com.alex.paper.Service;
 
-import com.alex.paper.Crawler.GoogleScholarCrawler;
+import com.alex.paper.Cache.CrawlResultCache;
 import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Ingest.PaperIngestionQueue;
 import com.alex.paper.Model.Paper;
+import com.alex.paper.Util.PaperFingerprint;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -18,42 +32,52 @@ public class CrawlerService {
     private static final Logger logger = LoggerFactory.getLogger(CrawlerService.class);
 
     @Autowired
-    private GoogleScholarCrawler googleScholarCrawler;
+    private PythonCrawlerService pythonCrawlerService;
 
+    // 在 Python、Selenium、Jsoup 之間依近期表現選擇爬取方式
     @Autowired
-    private PythonCrawlerService pythonCrawlerService;
+    private CrawlBackendRouter crawlBackendRouter;
 
     @Autowired
     private PaperService paperService;
 
+    @Autowired
+    private PaperFingerprintIndex paperFingerprintIndex;
+
+    @Autowired
+    private PaperIngestionQueue paperIngestionQueue;
+
+    @Autowired
+    private PaperNearDuplicateIndex paperNearDuplicateIndex;
+
+    @Autowired
+    private CrawlResultCache crawlResultCache;
+
+    // 近似重複論文的處理方式：skip 略過、flag 保留並標示 nearDuplicateOf、off 不檢查
+    @Value("${paper.dedup.near-duplicate.action:skip}")
+    private String nearDuplicateAction = "skip";
+
+    // 批量爬取並儲存時，每累積這麼多篇新論文就先交給寫入佇列或資料庫
+    @Value("${crawler.batch.save-chunk-size:50}")
+    private int saveChunkSize = 50;
+
+    @Timed(value = "crawler.service", histogram = true)
     public List<Paper> crawlGoogleScholar(CrawlerRequest request) {
-        List<Paper> crawledPapers = new ArrayList<>();
-        
-        try {
-            // 優先使用 Python BeautifulSoup 爬蟲
-            logger.info("嘗試使用 Python BeautifulSoup 爬蟲服務");
-            crawledPapers = pythonCrawlerService.crawlWithPython(request);
-            logger.info("Python 爬蟲服務成功爬取 {} 篇論文", crawledPapers.size());
-            
-        } catch (Exception e) {
-            logger.warn("Python 爬蟲服務失敗，切換到 jsoup 備用方案: {}", e.getMessage());
-            
-            try {
-                // 備用方案：使用 jsoup 爬蟲
-                crawledPapers = googleScholarCrawler.crawlPapers(
-                    request.getKeyword(), 
-                    request.getMaxResults()
-                );
-                logger.info("jsoup 備用方案成功爬取 {} 篇論文", crawledPapers.size());
-                
-            } catch (Exception jsoupException) {
-                logger.error("jsoup 備用方案也失敗: {}", jsoupException.getMessage());
-                throw new RuntimeException("所有爬蟲方案都失敗", jsoupException);
-            }
+        return crawlGoogleScholar(request, new DuplicateFilter(false));
+    }
+
+    private List<Paper> crawlGoogleScholar(CrawlerRequest request, DuplicateFilter duplicateFilter) {
+        // 1. 相同查詢參數的結果已在快取中時，不再對外發出請求
+        List<Paper> crawledPapers = crawlResultCache.get(request);
+        if (crawledPapers != null) {
+            logger.info("使用快取的爬取結果：關鍵字 '{}'，{} 篇論文", request.getKeyword(), crawledPapers.size());
+        } else {
+            crawledPapers = fetchPapers(request);
+            crawlResultCache.put(request, crawledPapers);
         }
 
         // 2. 過濾重複論文
-        List<Paper> filteredPapers = filterDuplicatePapers(crawledPapers);
+        List<Paper> filteredPapers = duplicateFilter.filter(crawledPapers);
 
         // 3. 根據年份過濾（如果指定了年份範圍）
         if (request.getYearFrom() != null || request.getYearTo() != null) {
@@ -63,115 +87,255 @@ public class CrawlerService {
         return filteredPapers;
     }
 
+    private List<Paper> fetchPapers(CrawlerRequest request) {
+        // 依斷路器狀態與近期成功率、延遲選擇 Python / Selenium / Jsoup，失敗時依序改用下一個
+        List<Paper> crawledPapers = crawlBackendRouter.crawl(request);
+        logger.info("關鍵字 '{}' 爬取 {} 篇論文", request.getKeyword(), crawledPapers.size());
+        return crawledPapers;
+    }
+
     /**
      * 批量爬取多個關鍵字
      */
+    @Timed(value = "crawler.service", histogram = true)
     public List<Paper> crawlBatchGoogleScholar(List<String> keywords, int maxResultsPerKeyword) {
-        List<Paper> allPapers = new ArrayList<>();
+        // 邊解析邊過濾重複論文
+        DuplicateFilter duplicateFilter = new DuplicateFilter(false);
+        List<Paper> uniquePapers = new ArrayList<>();
+        crawlBatch(keywords, maxResultsPerKeyword, paper -> {
+            if (duplicateFilter.accept(paper)) {
+                uniquePapers.add(paper);
+            }
+        });
+        return uniquePapers;
+    }
+
+    /**
+     * consumer 拋出的例外（例如儲存失敗）直接往外拋，不視為爬取失敗，也不會改用其他方式重新爬取
+     */
+    private void crawlBatch(List<String> keywords, int maxResultsPerKeyword, Consumer<Paper> consumer) {
+        List<String> remaining = keywords;
+        // Python 的斷路器開啟時直接逐個關鍵字爬取，不必先等一次失敗
+        if (crawlBackendRouter.tryAcquire(PythonCrawlerService.BACKEND_NAME)) {
+            // 目前收到的論文所屬關鍵字位置；之前的關鍵字都已完整送達
+            AtomicInteger reached = new AtomicInteger();
+            long start = System.nanoTime();
+            try {
+                logger.info("嘗試使用 Python 批量爬蟲服務");
+                int count = pythonCrawlerService.crawlBatchWithPython(keywords, maxResultsPerKeyword, consumer,
+                    index -> reached.accumulateAndGet(index, Math::max));
+                // 換算成單一關鍵字的時間，才能與其他方式比較
+                long perKeywordMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / Math.max(1, keywords.size());
+                crawlBackendRouter.record(PythonCrawlerService.BACKEND_NAME, perKeywordMs, true);
+                logger.info("Python 批量爬蟲服務成功爬取 {} 篇論文", count);
+                return;
+                
+            } catch (PythonCrawlerService.PaperConsumerException e) {
+                crawlBackendRouter.release(PythonCrawlerService.BACKEND_NAME);
+                throw e.getCause();
+            } catch (Exception e) {
+                crawlBackendRouter.record(PythonCrawlerService.BACKEND_NAME, 0, false);
+                // 串流中途失敗時，只重新爬取最後收到的關鍵字（可能只送達一部分）與之後的關鍵字
+                remaining = keywords.subList(Math.min(reached.get(), keywords.size()), keywords.size());
+                logger.warn("Python 批量爬蟲服務失敗，其餘 {} 個關鍵字改為逐個爬取: {}", remaining.size(), e.getMessage());
+            }
+        }
         
-        try {
-            // 優先使用 Python 批量爬蟲
-            logger.info("嘗試使用 Python 批量爬蟲服務");
-            allPapers = pythonCrawlerService.crawlBatchWithPython(keywords, maxResultsPerKeyword);
-            logger.info("Python 批量爬蟲服務成功爬取 {} 篇論文", allPapers.size());
-            
-        } catch (Exception e) {
-            logger.warn("Python 批量爬蟲服務失敗，使用單個關鍵字爬取: {}", e.getMessage());
-            
-            // 備用方案：逐個關鍵字使用 jsoup 爬取
-            for (String keyword : keywords) {
-                try {
-                    CrawlerRequest request = new CrawlerRequest();
-                    request.setKeyword(keyword);
-                    request.setMaxResults(maxResultsPerKeyword);
-                    
-                    List<Paper> papers = googleScholarCrawler.crawlPapers(keyword, maxResultsPerKeyword);
-                    allPapers.addAll(papers);
-                    
-                    // 避免請求過於頻繁
-                    Thread.sleep(2000);
-                    
-                } catch (Exception keywordException) {
-                    logger.error("爬取關鍵字 '{}' 失敗: {}", keyword, keywordException.getMessage());
-                }
+        // 備用方案：逐個關鍵字交給路由選擇爬取方式；重新爬取時已收到的論文會由呼叫端的去重濾掉
+        for (String keyword : remaining) {
+            List<Paper> papers;
+            try {
+                papers = crawlBackendRouter.crawl(new CrawlerRequest(keyword, maxResultsPerKeyword));
+            } catch (Exception keywordException) {
+                logger.error("爬取關鍵字 '{}' 失敗: {}", keyword, keywordException.getMessage());
+                continue;
             }
+            papers.forEach(consumer);
         }
-
-        // 過濾重複論文
-        return filterDuplicatePapers(allPapers);
     }
 
+    @Timed(value = "crawler.service", histogram = true)
     public List<Paper> crawlAndSave(CrawlerRequest request) {
         // 1. 爬取論文
-        List<Paper> papers = crawlGoogleScholar(request);
-
-        // 2. 儲存到資料庫
-        List<Paper> savedPapers = new ArrayList<>();
-        for (Paper paper : papers) {
-            if (paperService.createPaper(paper)) {
-                savedPapers.add(paper);
-            }
-        }
+        DuplicateFilter duplicateFilter = new DuplicateFilter(false);
+        List<Paper> papers = crawlGoogleScholar(request, duplicateFilter);
 
+        // 2. 交給寫入佇列，或以單一交易批次儲存到資料庫
+        List<Paper> savedPapers = persist(papers);
+        duplicateFilter.resolveBatchMatches();
         return savedPapers;
     }
 
     /**
      * 批量爬取並儲存
      */
+    @Timed(value = "crawler.service", histogram = true)
     public List<Paper> crawlBatchAndSave(List<String> keywords, int maxResultsPerKeyword) {
-        // 1. 批量爬取論文
-        List<Paper> papers = crawlBatchGoogleScholar(keywords, maxResultsPerKeyword);
-
-        // 2. 儲存到資料庫
+        // 論文一邊從 Python 服務的回應中解析出來，一邊去重並每 saveChunkSize 篇交給寫入佇列或資料庫，
+        // 不必等整個批次爬完才開始儲存
+        DuplicateFilter duplicateFilter = new DuplicateFilter(false);
         List<Paper> savedPapers = new ArrayList<>();
-        for (Paper paper : papers) {
-            if (paperService.createPaper(paper)) {
-                savedPapers.add(paper);
+        List<Paper> chunk = new ArrayList<>(saveChunkSize);
+        crawlBatch(keywords, maxResultsPerKeyword, paper -> {
+            if (!duplicateFilter.accept(paper)) {
+                return;
+            }
+            chunk.add(paper);
+            if (chunk.size() >= saveChunkSize) {
+                savedPapers.addAll(persist(new ArrayList<>(chunk)));
+                chunk.clear();
             }
+        });
+        if (!chunk.isEmpty()) {
+            savedPapers.addAll(persist(chunk));
         }
-
+        duplicateFilter.resolveBatchMatches();
         return savedPapers;
     }
 
     // 批量儲存指定的論文
+    @Timed(value = "crawler.service", histogram = true)
     public List<Paper> saveSelectedPapers(List<Paper> papers) {
-        List<Paper> savedPapers = new ArrayList<>();
-        
-        for (Paper paper : papers) {
-            // 檢查論文是否已存在
-            if (!isPaperExists(paper)) {
-                if (paperService.createPaper(paper)) {
-                    savedPapers.add(paper);
-                }
-            }
-        }
-        
+        // 檢查論文是否已存在，再交給寫入佇列或以單一交易批次儲存；
+        // 使用者明確選擇的論文即使近似重複也照樣儲存，只標示 nearDuplicateOf
+        DuplicateFilter duplicateFilter = new DuplicateFilter(true);
+        List<Paper> savedPapers = persist(duplicateFilter.filter(papers));
+        duplicateFilter.resolveBatchMatches();
         return savedPapers;
     }
 
     /**
-     * 檢查爬蟲服務健康狀態
+     * 寫入佇列是否啟用；啟用時回傳的論文已寫入 journal 但尚未取得 id
+     */
+    public boolean isWriteBehind() {
+        return paperIngestionQueue.isAccepting();
+    }
+
+    private List<Paper> persist(List<Paper> papers) {
+        if (paperIngestionQueue.isAccepting()) {
+            paperIngestionQueue.submit(papers);
+            return papers;
+        }
+        return paperService.saveAll(papers);
+    }
+
+    /**
+     * 檢查爬蟲服務健康狀態（背景探測的最新結果）
      */
     public boolean isPythonCrawlerHealthy() {
-        return pythonCrawlerService.isHealthy();
+        return crawlBackendRouter.isHealthy(PythonCrawlerService.BACKEND_NAME);
     }
 
-    private List<Paper> filterDuplicatePapers(List<Paper> papers) {
-        // 簡單的去重邏輯：根據標題和作者
-        return papers.stream()
-            .filter(paper -> !isPaperExists(paper))
-            .collect(Collectors.toList());
+    /**
+     * 各爬取方式的斷路器狀態、成功率與延遲，依目前的選擇順序排列
+     */
+    public List<Map<String, Object>> getBackendStatus() {
+        return crawlBackendRouter.snapshot();
+    }
+
+    /**
+     * 逐篇判斷的去重狀態，可以在論文陸續到達時使用。
+     * 以正規化標題 + 作者的指紋去重：同批次內重複、已存在於資料庫中的都會被過濾；
+     * 再以 MinHash/LSH 找出標題或摘要略有差異的近似重複，依設定略過或標示
+     */
+    private final class DuplicateFilter {
+        private final boolean checkNearDuplicates = !"off".equalsIgnoreCase(nearDuplicateAction);
+        private final boolean skipNearDuplicates;
+        private final Set<String> seen = new HashSet<>();
+        private final List<int[]> acceptedSignatures = new ArrayList<>();
+        private final List<Paper> acceptedPapers = new ArrayList<>();
+        // 同批次已接受論文的 LSH 桶 → 在 acceptedPapers 中的位置，與 PaperNearDuplicateIndex 使用相同的分段
+        private final Map<Long, List<Integer>> batchBuckets = new HashMap<>();
+        // 標示為近似重複、對象是同批次論文者 → 對象論文，寫入取得 id 後再補上 nearDuplicateOf
+        private final Map<Paper, Paper> batchMatches = new IdentityHashMap<>();
+
+        /**
+         * @param explicitSelection 使用者明確選擇的論文：近似重複時只標示、不略過
+         */
+        DuplicateFilter(boolean explicitSelection) {
+            this.skipNearDuplicates = !explicitSelection && "skip".equalsIgnoreCase(nearDuplicateAction);
+        }
+
+        List<Paper> filter(List<Paper> papers) {
+            List<Paper> uniquePapers = new ArrayList<>(papers.size());
+            for (Paper paper : papers) {
+                if (accept(paper)) {
+                    uniquePapers.add(paper);
+                }
+            }
+            return uniquePapers;
+        }
+
+        boolean accept(Paper paper) {
+            String fingerprint = PaperFingerprint.of(paper);
+            if (!seen.add(fingerprint) || isPaperExists(fingerprint)) {
+                return false;
+            }
+            if (checkNearDuplicates) {
+                int[] signature = PaperNearDuplicateIndex.signature(paper);
+                Long existingId = paperNearDuplicateIndex.findNearDuplicate(signature, paper.getId());
+                Paper batchMatch = existingId == null ? findNearDuplicateInBatch(signature) : null;
+                if (existingId != null || batchMatch != null) {
+                    if (skipNearDuplicates) {
+                        logger.debug("略過近似重複論文: {}", paper.getTitle());
+                        return false;
+                    }
+                    if (existingId != null) {
+                        paper.setNearDuplicateOf(existingId);
+                    } else {
+                        paper.setNearDuplicateInBatch(true);
+                        batchMatches.put(paper, batchMatch);
+                    }
+                }
+                if (signature != null) {
+                    int position = acceptedPapers.size();
+                    acceptedSignatures.add(signature);
+                    acceptedPapers.add(paper);
+                    for (long key : PaperNearDuplicateIndex.bandKeys(signature)) {
+                        batchBuckets.computeIfAbsent(key, k -> new ArrayList<>(1)).add(position);
+                    }
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 寫入資料庫後呼叫：同批次的對象已取得 id 時補上 nearDuplicateOf（寫入佇列模式下尚無 id，只保留 nearDuplicateInBatch）。
+         * 標示只出現在本次回應中，不會寫入資料庫
+         */
+        void resolveBatchMatches() {
+            batchMatches.forEach((paper, match) -> {
+                if (match.getId() != null) {
+                    paper.setNearDuplicateOf(match.getId());
+                }
+            });
+        }
+
+        // 只比對落在同一桶的候選，不與整批兩兩比較
+        private Paper findNearDuplicateInBatch(int[] signature) {
+            if (signature == null) {
+                return null;
+            }
+            Set<Integer> compared = new HashSet<>();
+            for (long key : PaperNearDuplicateIndex.bandKeys(signature)) {
+                List<Integer> positions = batchBuckets.get(key);
+                if (positions == null) {
+                    continue;
+                }
+                for (int position : positions) {
+                    if (compared.add(position)
+                            && paperNearDuplicateIndex.isNearDuplicate(signature, acceptedSignatures.get(position))) {
+                        return acceptedPapers.get(position);
+                    }
+                }
+            }
+            return null;
+        }
     }
 
-    private boolean isPaperExists(Paper paper) {
-        // 檢查論文是否已存在於資料庫中
-        List<Paper> existingPapers = paperService.getAllPapers();
-        return existingPapers.stream()
-            .anyMatch(existing -> 
-                existing.getTitle().equalsIgnoreCase(paper.getTitle()) &&
-                existing.getAuthor().equalsIgnoreCase(paper.getAuthor())
-            );
+    private boolean isPaperExists(String fingerprint) {
+        // 檢查論文是否已存在於資料庫中（記憶體指紋索引，O(1)）
+        return paperFingerprintIndex.contains(fingerprint);
     }
 
     private List<Paper> filterByYear(List<Paper> papers, Integer yearFrom, Integer yearTo) {
@@ -0,0 +1,311 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.DTO.ImportProgress;
+import com.alex.paper.Import.ImportFormat;
+import com.alex.paper.Import.MalformedRecordException;
+import com.alex.paper.Import.PaperRecordReader;
+import com.alex.paper.Ingest.PaperIngestionQueue;
+import com.alex.paper.Model.Paper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 批次匯入：請求只負責把上傳內容寫入暫存檔並回傳匯入 ID，解析與寫入在背景執行緒進行，
+ * 進度可由 GET /papers/import/{importId} 查詢
+ */
+@Service
+public class PaperImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaperImportService.class);
+
+    // 對應資料表 VARCHAR(500) 欄位
+    private static final int MAX_COLUMN_LENGTH = 500;
+
+    // 對應 abstractText TEXT 欄位（65535 bytes，以 UTF-8 計算）
+    private static final int MAX_TEXT_BYTES = 65535;
+
+    // 保留最近完成的匯入紀錄筆數
+    private static final int HISTORY_SIZE = 50;
+
+    // 每次匯入最多記錄幾筆格式錯誤的紀錄，避免整個檔案格式不符時洗版
+    private static final int MAX_LOGGED_MALFORMED = 10;
+
+    @Autowired
+    private PaperService paperService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${paper.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${paper.import.max-bytes:536870912}")
+    private long maxBytes;
+
+    @Value("${paper.import.pool-size:1}")
+    private int poolSize;
+
+    @Value("${paper.import.queue-capacity:10}")
+    private int queueCapacity;
+
+    private final Map<String, ImportProgress> imports = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "paper-import-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        pool.allowCoreThreadTimeOut(true);
+        executor = pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 先把上傳內容寫入暫存檔（請求結束後 multipart 暫存檔與 request body 都無法再讀取），
+     * 再排入背景執行緒並立即回傳。格式無法判斷或超過 max-bytes 時回傳狀態為 FAILED 的紀錄；
+     * 排隊已滿時拋出 RejectedExecutionException
+     */
+    public ImportProgress submit(InputStream in, String format, String filename) {
+        ImportProgress progress = new ImportProgress(UUID.randomUUID().toString(), format, filename);
+        imports.put(progress.getImportId(), progress);
+        trimHistory();
+
+        Path spool = null;
+        try {
+            ImportFormat importFormat = ImportFormat.resolve(format, filename);
+            spool = Files.createTempFile("paper-import-", ".tmp");
+            copy(in, spool);
+            Path file = spool;
+            executor.execute(() -> run(progress, importFormat, file));
+            logger.info("已排入論文匯入 {}（格式: {}，{} bytes）", progress.getImportId(), importFormat, Files.size(file));
+        } catch (RejectedExecutionException e) {
+            imports.remove(progress.getImportId());
+            delete(spool);
+            throw e;
+        } catch (Exception e) {
+            logger.error("論文匯入失敗 {}: {}", progress.getImportId(), e.getMessage());
+            delete(spool);
+            progress.fail(e.getMessage());
+        }
+        return progress;
+    }
+
+    private void run(ImportProgress progress, ImportFormat importFormat, Path file) {
+        progress.start();
+        logger.info("開始匯入論文 {}（格式: {}）", progress.getImportId(), importFormat);
+        try (InputStream in = Files.newInputStream(file)) {
+            importPapers(in, importFormat, progress);
+            progress.complete();
+            logger.info("論文匯入完成 {}：讀取 {} 筆，新增 {} 筆，重複 {} 筆，無效 {} 筆，格式錯誤 {} 筆，耗時 {} ms",
+                progress.getImportId(), progress.getRecordsRead(), progress.getImported(),
+                progress.getDuplicates(), progress.getInvalid(), progress.getMalformed(), progress.getElapsedMillis());
+        } catch (Exception e) {
+            logger.error("論文匯入失敗 {}: {}", progress.getImportId(), e.getMessage());
+            progress.fail(e.getMessage());
+        } finally {
+            delete(file);
+        }
+    }
+
+    /**
+     * 串流解析上傳內容，每 batchSize 筆以一個交易寫入（寫入時依指紋去重）；
+     * 格式錯誤的單筆紀錄計入 malformed 後繼續，不影響其他紀錄
+     */
+    private void importPapers(InputStream in, ImportFormat importFormat, ImportProgress progress) throws IOException {
+        try (PaperRecordReader reader = importFormat.open(in, objectMapper)) {
+            List<Paper> batch = new ArrayList<>(batchSize);
+            while (true) {
+                Paper paper;
+                try {
+                    paper = reader.next();
+                } catch (MalformedRecordException e) {
+                    progress.recordRead();
+                    progress.recordMalformed();
+                    if (progress.getMalformed() <= MAX_LOGGED_MALFORMED) {
+                        logger.warn("匯入 {} 略過格式錯誤的紀錄: {}", progress.getImportId(), e.getMessage());
+                    }
+                    continue;
+                }
+                if (paper == null) {
+                    break;
+                }
+                progress.recordRead();
+                if (!prepare(paper)) {
+                    progress.recordInvalid();
+                    continue;
+                }
+                batch.add(paper);
+                if (batch.size() >= batchSize) {
+                    flush(batch, progress);
+                }
+            }
+            flush(batch, progress);
+        }
+    }
+
+    public ImportProgress getProgress(String importId) {
+        return imports.get(importId);
+    }
+
+    public Collection<ImportProgress> getAllProgress() {
+        return imports.values();
+    }
+
+    private void flush(List<Paper> batch, ImportProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        int saved;
+        int failed = 0;
+        try {
+            saved = paperService.saveAll(batch).size();
+        } catch (DataAccessException e) {
+            if (!PaperIngestionQueue.isPermanent(e)) {
+                throw e;
+            }
+            // 批次中有資料庫拒絕的紀錄：整批已回滾，改為逐筆寫入，被拒絕的紀錄計入 invalid
+            logger.warn("匯入 {} 批次寫入失敗，改為逐筆寫入: {}", progress.getImportId(), e.getMessage());
+            saved = 0;
+            for (Paper paper : batch) {
+                paper.setId(null);
+                try {
+                    saved += paperService.saveAll(List.of(paper)).size();
+                } catch (DataAccessException rowError) {
+                    if (!PaperIngestionQueue.isPermanent(rowError)) {
+                        throw rowError;
+                    }
+                    failed++;
+                    progress.recordInvalid();
+                    logger.debug("匯入 {} 略過無法寫入的紀錄 {}: {}", progress.getImportId(), paper.getTitle(), rowError.getMessage());
+                }
+            }
+        }
+        progress.recordBatch(saved, batch.size() - saved - failed);
+        batch.clear();
+        logger.debug("匯入 {} 進度：已讀取 {} 筆，已新增 {} 筆",
+            progress.getImportId(), progress.getRecordsRead(), progress.getImported());
+    }
+
+    /**
+     * 檢查並整理一筆匯入資料，標題為空者視為無效
+     */
+    private boolean prepare(Paper paper) {
+        if (paper.getTitle() == null || paper.getTitle().isBlank()) {
+            return false;
+        }
+        paper.setId(null);
+        paper.setVersion(null);
+        paper.setTitle(truncate(paper.getTitle().trim()));
+        paper.setAuthor(paper.getAuthor() != null ? truncate(paper.getAuthor().trim()) : "");
+        paper.setJournal(truncate(paper.getJournal()));
+        paper.setAbstractText(truncateText(paper.getAbstractText()));
+        return true;
+    }
+
+    /**
+     * 寫入暫存檔，超過 maxBytes 即中止
+     */
+    private void copy(InputStream in, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw new IOException("匯入檔案超過上限 " + maxBytes + " bytes");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("無法刪除匯入暫存檔 {}: {}", file, e.getMessage());
+        }
+    }
+
+    private static String truncate(String value) {
+        return value != null && value.length() > MAX_COLUMN_LENGTH ? value.substring(0, MAX_COLUMN_LENGTH) : value;
+    }
+
+    /**
+     * 截斷到 TEXT 欄位可容納的 UTF-8 長度，不切開代理對
+     */
+    static String truncateText(String value) {
+        // 每個 char 最多 3 bytes（代理對 2 個 char 共 4 bytes），不會超過時不必計算
+        if (value == null || value.length() <= MAX_TEXT_BYTES / 3) {
+            return value;
+        }
+        int bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int width;
+            if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                width = 4;
+            } else {
+                width = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+            }
+            if (bytes + width > MAX_TEXT_BYTES) {
+                return value.substring(0, i);
+            }
+            bytes += width;
+            if (width == 4) {
+                i++;
+            }
+        }
+        return value;
+    }
+
+    private void trimHistory() {
+        if (imports.size() <= HISTORY_SIZE) {
+            return;
+        }
+        imports.values().stream()
+            .filter(ImportProgress::isFinished)
+            .sorted(Comparator.comparingLong(ImportProgress::getSubmittedAt))
+            .limit(imports.size() - HISTORY_SIZE)
+            .forEach(finished -> imports.remove(finished.getImportId()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.Dao.AuthorDao;
+import com.alex.paper.Dao.PaperDao;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Search.PaperFacetSnapshot;
+import com.alex.paper.Search.PaperSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 啟動時建立所有記憶體索引：先回填舊資料的指紋與作者關聯，
+ * 再以一次串流讀取整張 paper 表，每一列同時交給指紋、全文檢索、分面統計與近似重複索引，
+ * 不必為每個索引各掃一次資料表
+ */
+@Component
+public class PaperIndexLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaperIndexLoader.class);
+
+    @Autowired
+    private PaperDao paperDao;
+
+    @Autowired
+    private AuthorDao authorDao;
+
+    @Autowired
+    private PaperFingerprintIndex paperFingerprintIndex;
+
+    @Autowired
+    private PaperSearchIndex paperSearchIndex;
+
+    @Autowired
+    private PaperFacetSnapshot paperFacetSnapshot;
+
+    @Autowired
+    private PaperNearDuplicateIndex paperNearDuplicateIndex;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        backfill();
+
+        long start = System.currentTimeMillis();
+        // 載入期間的寫入由各索引自行記下，於 finishLoad 時蓋過串流讀到的版本
+        paperFingerprintIndex.beginLoad();
+        paperSearchIndex.beginLoad();
+        paperFacetSnapshot.beginLoad();
+        paperNearDuplicateIndex.beginLoad();
+        try {
+            paperDao.streamAll(paper -> {
+                paperFingerprintIndex.loadRow(paper);
+                paperSearchIndex.loadRow(paper);
+                paperFacetSnapshot.loadRow(paper);
+                paperNearDuplicateIndex.loadRow(paper);
+            });
+            paperFingerprintIndex.finishLoad();
+            paperSearchIndex.finishLoad();
+            paperFacetSnapshot.finishLoad();
+            paperNearDuplicateIndex.finishLoad();
+            logger.info("記憶體索引載入完成：指紋 {} 筆、全文檢索 {} 篇、近似重複 {} 筆，耗時 {} ms",
+                paperFingerprintIndex.size(), paperSearchIndex.size(), paperNearDuplicateIndex.size(),
+                System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            paperFingerprintIndex.abortLoad();
+            paperSearchIndex.abortLoad();
+            paperFacetSnapshot.abortLoad();
+            paperNearDuplicateIndex.abortLoad();
+            logger.error("載入記憶體索引失敗: {}", e.getMessage());
+        }
+    }
+
+    // 兩者都只處理尚未回填的列（keyset 分批），與索引載入的串流無關
+    private void backfill() {
+        try {
+            int backfilled = paperDao.backfillFingerprints();
+            if (backfilled > 0) {
+                logger.info("已回填 {} 筆論文的指紋欄位", backfilled);
+            }
+        } catch (Exception e) {
+            logger.error("回填論文指紋欄位失敗: {}", e.getMessage());
+        }
+        try {
+            int linked = authorDao.backfillAuthors();
+            if (linked > 0) {
+                logger.info("已為 {} 篇論文建立作者關聯", linked);
+            }
+        } catch (Exception e) {
+            logger.error("回填作者關聯失敗: {}", e.getMessage());
+        }
+    }
+}
@@ -1,42 +1,98 @@
 package com.alex.paper.Service;
 
+import com.alex.paper.Crawler.CrawlBackend;
+import com.alex.paper.Crawler.HostRateLimiter;
 import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.DTO.PythonCrawledPaper;
 import com.alex.paper.Model.Paper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.hc.client5.http.ConnectTimeoutException;
+import org.apache.hc.core5.http.ConnectionRequestTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 @Service
-public class PythonCrawlerService {
+public class PythonCrawlerService implements CrawlBackend {
     
     private static final Logger logger = LoggerFactory.getLogger(PythonCrawlerService.class);
     
+    public static final String BACKEND_NAME = "python";
+    
+    // Python 服務最終請求的主機，與 Jsoup / Selenium 共用同一個令牌桶
+    private static final String TARGET_HOST = "scholar.google.com";
+    
+    @Autowired
+    private HostRateLimiter hostRateLimiter;
+    
     @Value("${python.crawler.url:http://localhost:5000}")
     private String pythonCrawlerUrl;
     
-    @Value("${python.crawler.timeout:30000}")
-    private int timeout;
+    @Value("${crawler.pagination.max-pages:10}")
+    private int maxPages = 10;
+    
+    // 連線池與逾時設定見 PythonCrawlerClientConfig
+    @Autowired
+    @Qualifier("pythonCrawlerRestTemplate")
+    private RestTemplate restTemplate;
     
-    private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final ObjectReader paperReader;
     
     public PythonCrawlerService() {
-        this.restTemplate = new RestTemplate();
         this.objectMapper = new ObjectMapper();
+        this.paperReader = objectMapper.readerFor(PythonCrawledPaper.class);
+    }
+    
+    @Override
+    public String name() {
+        return BACKEND_NAME;
+    }
+    
+    @Override
+    public List<Paper> crawl(CrawlerRequest request) {
+        return crawlWithPython(request);
+    }
+    
+    @Override
+    public boolean probe() {
+        return isHealthy();
     }
     
     /**
      * 使用 Python 爬蟲服務爬取論文
      */
     public List<Paper> crawlWithPython(CrawlerRequest request) {
+        List<Paper> papers = new ArrayList<>();
+        crawlWithPython(request, papers::add);
+        return papers;
+    }
+    
+    /**
+     * 使用 Python 爬蟲服務爬取論文，每解析出一篇就交給 consumer，回傳篇數
+     */
+    public int crawlWithPython(CrawlerRequest request, Consumer<Paper> consumer) {
+        RemoteCall call = new RemoteCall(pagesFor(request.getMaxResults()));
         try {
             logger.info("開始使用 Python 爬蟲服務爬取論文: {}", request.getKeyword());
             
@@ -47,44 +103,33 @@ public class PythonCrawlerService {
             requestBody.put("yearFrom", request.getYearFrom());
             requestBody.put("yearTo", request.getYearTo());
             
-            // 設定請求標頭
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+            // 發送請求到 Python 微服務（每個結果頁對 Google Scholar 發出一次請求，頁與頁的間隔由 Python 端控制）
+            hostRateLimiter.acquireForRemote(TARGET_HOST, call.reserved);
+            call.acquired = true;
+            int count = postForPapers("/crawl", requestBody, consumer, null, call);
+            hostRateLimiter.onSuccess(TARGET_HOST);
             
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
-            // 發送請求到 Python 微服務
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                pythonCrawlerUrl + "/crawl",
-                entity,
-                Map.class
-            );
-            
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                
-                if (Boolean.TRUE.equals(responseBody.get("success"))) {
-                    List<Map<String, Object>> papersData = (List<Map<String, Object>>) responseBody.get("papers");
-                    List<Paper> papers = convertToPapers(papersData);
-                    
-                    logger.info("Python 爬蟲服務成功爬取 {} 篇論文", papers.size());
-                    return papers;
-                } else {
-                    String error = (String) responseBody.get("error");
-                    logger.error("Python 爬蟲服務返回錯誤: {}", error);
-                    throw new RuntimeException("Python 爬蟲服務錯誤: " + error);
-                }
-            } else {
-                logger.error("Python 爬蟲服務請求失敗，狀態碼: {}", response.getStatusCode());
-                throw new RuntimeException("Python 爬蟲服務請求失敗");
-            }
+            logger.info("Python 爬蟲服務成功爬取 {} 篇論文", count);
+            return count;
             
+        } catch (PaperConsumerException e) {
+            throw e;
+        } catch (HttpStatusCodeException e) {
+            onErrorStatus(e, call);
+            logger.error("Python 爬蟲服務回應 {}: {}", e.getStatusCode(), e.getMessage());
+            throw new RuntimeException("Python 爬蟲服務調用失敗", e);
         } catch (ResourceAccessException e) {
+            onAccessError(e, call);
             logger.error("無法連接到 Python 爬蟲服務: {}", e.getMessage());
             throw new RuntimeException("Python 爬蟲服務無法連接", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Python 爬蟲服務調用被中斷", e);
         } catch (Exception e) {
             logger.error("Python 爬蟲服務調用失敗: {}", e.getMessage());
             throw new RuntimeException("Python 爬蟲服務調用失敗", e);
+        } finally {
+            settle(call);
         }
     }
     
@@ -92,6 +137,27 @@ public class PythonCrawlerService {
      * 批量爬取多個關鍵字
      */
     public List<Paper> crawlBatchWithPython(List<String> keywords, int maxResultsPerKeyword) {
+        List<Paper> papers = new ArrayList<>();
+        crawlBatchWithPython(keywords, maxResultsPerKeyword, papers::add);
+        return papers;
+    }
+    
+    /**
+     * 批量爬取多個關鍵字；Python 服務每爬完一個關鍵字就輸出該批論文，
+     * 解析到的論文立即交給 consumer，不等整個批次完成
+     */
+    public int crawlBatchWithPython(List<String> keywords, int maxResultsPerKeyword, Consumer<Paper> consumer) {
+        return crawlBatchWithPython(keywords, maxResultsPerKeyword, consumer, null);
+    }
+    
+    /**
+     * 同上；每收到一篇論文前先以其所屬關鍵字在 keywords 中的位置呼叫 keywordReached，
+     * 串流中斷時呼叫端可據此只重新爬取尚未完整送達的關鍵字
+     */
+    public int crawlBatchWithPython(List<String> keywords, int maxResultsPerKeyword, Consumer<Paper> consumer,
+                                    IntConsumer keywordReached) {
+        // 批量請求會依序爬取每個關鍵字的各頁，一次預支對應數量的許可，結束後依實際頁數歸還
+        RemoteCall call = new RemoteCall(Math.max(1, keywords.size()) * pagesFor(maxResultsPerKeyword));
         try {
             logger.info("開始批量爬取關鍵字: {}", keywords);
             
@@ -100,41 +166,195 @@ public class PythonCrawlerService {
             requestBody.put("keywords", keywords);
             requestBody.put("maxResultsPerKeyword", maxResultsPerKeyword);
             
-            // 設定請求標頭
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            
             // 發送請求到 Python 微服務
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                pythonCrawlerUrl + "/crawl/batch",
-                entity,
-                Map.class
-            );
+            hostRateLimiter.acquireForRemote(TARGET_HOST, call.reserved);
+            call.acquired = true;
+            int count = postForPapers("/crawl/batch", requestBody, consumer, keywordReached, call);
+            hostRateLimiter.onSuccess(TARGET_HOST);
             
-            if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
-                Map<String, Object> responseBody = response.getBody();
-                
-                if (Boolean.TRUE.equals(responseBody.get("success"))) {
-                    List<Map<String, Object>> papersData = (List<Map<String, Object>>) responseBody.get("papers");
-                    List<Paper> papers = convertToPapers(papersData);
-                    
-                    logger.info("Python 爬蟲服務成功批量爬取 {} 篇論文", papers.size());
-                    return papers;
-                } else {
-                    String error = (String) responseBody.get("error");
-                    logger.error("Python 爬蟲服務批量爬取返回錯誤: {}", error);
-                    throw new RuntimeException("Python 爬蟲服務批量爬取錯誤: " + error);
-                }
-            } else {
-                logger.error("Python 爬蟲服務批量爬取請求失敗，狀態碼: {}", response.getStatusCode());
-                throw new RuntimeException("Python 爬蟲服務批量爬取請求失敗");
-            }
+            logger.info("Python 爬蟲服務成功批量爬取 {} 篇論文", count);
+            return count;
             
+        } catch (PaperConsumerException e) {
+            throw e;
+        } catch (HttpStatusCodeException e) {
+            onErrorStatus(e, call);
+            logger.error("Python 爬蟲服務批量爬取回應 {}: {}", e.getStatusCode(), e.getMessage());
+            throw new RuntimeException("Python 爬蟲服務批量爬取失敗", e);
+        } catch (ResourceAccessException e) {
+            onAccessError(e, call);
+            logger.error("Python 爬蟲服務批量爬取失敗: {}", e.getMessage());
+            throw new RuntimeException("Python 爬蟲服務批量爬取失敗", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Python 爬蟲服務批量爬取被中斷", e);
         } catch (Exception e) {
             logger.error("Python 爬蟲服務批量爬取失敗: {}", e.getMessage());
             throw new RuntimeException("Python 爬蟲服務批量爬取失敗", e);
+        } finally {
+            settle(call);
+        }
+    }
+    
+    // Google Scholar 每頁 10 筆，Python 服務依 maxResults 抓取所需頁數
+    private int pagesFor(int maxResults) {
+        return Math.min(maxPages, Math.max(1, (maxResults + 9) / 10));
+    }
+    
+    private int postForPapers(String path, Map<String, Object> requestBody, Consumer<Paper> consumer,
+                              IntConsumer keywordReached, RemoteCall call) {
+        Integer count = restTemplate.execute(
+            pythonCrawlerUrl + path,
+            HttpMethod.POST,
+            request -> {
+                request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON));
+                objectMapper.writeValue(request.getBody(), requestBody);
+            },
+            response -> {
+                call.reached = true;
+                return readPapers(response.getBody(), consumer, keywordReached, call);
+            }
+        );
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * 以串流方式解析 Python 服務的回應：papers 陣列中的元素逐一解碼成 Paper 交給 consumer，
+     * 不先把整個回應建成 Map。回傳交給 consumer 的篇數；
+     * consumer 拋出的例外包成 PaperConsumerException，與 Python 服務本身的失敗區分
+     */
+    private int readPapers(InputStream body, Consumer<Paper> consumer, IntConsumer keywordReached,
+                           RemoteCall call) throws IOException {
+        int count = 0;
+        boolean success = false;
+        String error = null;
+        
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Python 爬蟲服務回應格式錯誤");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "papers" -> {
+                        if (value == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                PythonCrawledPaper data = paperReader.readValue(parser);
+                                if (keywordReached != null && data != null && data.getKeywordIndex() != null) {
+                                    keywordReached.accept(data.getKeywordIndex());
+                                }
+                                Paper paper = toPaper(data);
+                                if (paper != null) {
+                                    try {
+                                        consumer.accept(paper);
+                                    } catch (RuntimeException e) {
+                                        throw new PaperConsumerException(e);
+                                    }
+                                    count++;
+                                }
+                            }
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    case "success" -> success = value == JsonToken.VALUE_TRUE;
+                    case "throttled" -> call.throttled = value == JsonToken.VALUE_TRUE;
+                    case "pages" -> call.pages = value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+                    case "error" -> error = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        
+        // 批量串流中途被限流時狀態碼已送出，改由結尾的 throttled 欄位告知（見 settle）；已解析的論文仍然有效
+        if (!success) {
+            logger.error("Python 爬蟲服務返回錯誤（已取得 {} 篇）: {}", count, error);
+            throw new IllegalStateException("Python 爬蟲服務錯誤: " + error);
+        }
+        return count;
+    }
+    
+    /**
+     * 處理已解析論文的 consumer（例如寫入資料庫）失敗；不代表 Python 服務有問題，呼叫端不應計入斷路器
+     */
+    public static final class PaperConsumerException extends RuntimeException {
+        
+        PaperConsumerException(RuntimeException cause) {
+            super(cause.getMessage(), cause);
+        }
+        
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+    
+    /**
+     * Python 服務被 Google Scholar 限流時回傳 429（或 503），同步降低本地速率；
+     * 錯誤回應中的 pages 欄位為實際送出的頁數
+     */
+    private void onErrorStatus(HttpStatusCodeException e, RemoteCall call) {
+        call.reached = true;
+        if (e instanceof HttpClientErrorException.TooManyRequests
+                || e instanceof HttpServerErrorException.ServiceUnavailable) {
+            call.throttled = true;
+        }
+        try {
+            JsonNode pages = objectMapper.readTree(e.getResponseBodyAsByteArray()).path("pages");
+            if (pages.canConvertToInt()) {
+                call.pages = pages.intValue();
+            }
+        } catch (IOException | RuntimeException ignored) {
+            // 錯誤回應不是 JSON（例如 gunicorn 的錯誤頁面），視為頁數未知
+        }
+    }
+    
+    /**
+     * 連線建立失敗或等不到連線池的連線時，請求沒有送達 Python 服務
+     */
+    private static void onAccessError(ResourceAccessException e, RemoteCall call) {
+        Throwable cause = e.getCause();
+        if (cause instanceof ConnectException
+                || cause instanceof ConnectTimeoutException
+                || cause instanceof ConnectionRequestTimeoutException) {
+            call.reached = false;
+        }
+    }
+    
+    /**
+     * 歸還沒有用到的預支許可後再套用限流：Python 回報頁數時依實際頁數歸還，請求沒有送達時全部歸還，
+     * 其餘情況（例如串流中斷、舊版服務沒有回報頁數）無法得知用量，不歸還
+     */
+    private void settle(RemoteCall call) {
+        if (!call.acquired) {
+            return;
+        }
+        int unused = 0;
+        if (call.pages != null) {
+            unused = call.reserved - Math.max(0, call.pages);
+        } else if (!call.reached) {
+            unused = call.reserved;
+        }
+        hostRateLimiter.refund(TARGET_HOST, unused);
+        if (call.throttled) {
+            hostRateLimiter.onThrottled(TARGET_HOST);
+        }
+    }
+    
+    /**
+     * 一次對 Python 服務的呼叫預支的頁數與實際用量
+     */
+    private static final class RemoteCall {
+        final int reserved;
+        boolean acquired;
+        boolean reached;
+        boolean throttled;
+        Integer pages;
+        
+        RemoteCall(int reserved) {
+            this.reserved = reserved;
         }
     }
     
@@ -156,56 +376,26 @@ public class PythonCrawlerService {
     }
     
     /**
-     * 將 Python 服務返回的資料轉換為 Paper 物件
+     * 將 Python 服務返回的資料轉換為 Paper 物件；沒有標題的結果略過
      */
-    private List<Paper> convertToPapers(List<Map<String, Object>> papersData) {
-        List<Paper> papers = new ArrayList<>();
+    private Paper toPaper(PythonCrawledPaper data) {
+        if (data == null || data.getTitle() == null || data.getTitle().isBlank()) {
+            return null;
+        }
+        Paper paper = new Paper();
+        paper.setTitle(data.getTitle());
+        paper.setAuthor(data.getAuthor());
+        paper.setJournal(data.getJournal());
+        paper.setAbstractText(data.getAbstractText());
         
-        for (Map<String, Object> paperData : papersData) {
+        String year = data.getYear();
+        if (year != null && !year.isBlank()) {
             try {
-                Paper paper = new Paper();
-                
-                // 設定基本資訊
-                paper.setTitle((String) paperData.get("title"));
-                paper.setAuthor((String) paperData.get("author"));
-                paper.setJournal((String) paperData.get("journal"));
-                paper.setAbstractText((String) paperData.get("abstractText"));
-                
-                // 設定年份
-                Object yearObj = paperData.get("year");
-                if (yearObj != null) {
-                    if (yearObj instanceof Integer) {
-                        paper.setYear((Integer) yearObj);
-                    } else if (yearObj instanceof String) {
-                        try {
-                            paper.setYear(Integer.parseInt((String) yearObj));
-                        } catch (NumberFormatException e) {
-                            logger.warn("無法解析年份: {}", yearObj);
-                        }
-                    }
-                }
-                
-                // 設定引用數（如果 Paper 類別有這個欄位）
-                Object citationsObj = paperData.get("citations");
-                if (citationsObj != null && citationsObj instanceof Integer) {
-                    // 如果 Paper 類別有 citations 欄位，可以在這裡設定
-                    // paper.setCitations((Integer) citationsObj);
-                }
-                
-                // 設定 PDF URL（如果 Paper 類別有這個欄位）
-                String pdfUrl = (String) paperData.get("pdfUrl");
-                if (pdfUrl != null && !pdfUrl.isEmpty()) {
-                    // 如果 Paper 類別有 pdfUrl 欄位，可以在這裡設定
-                    // paper.setPdfUrl(pdfUrl);
-                }
-                
-                papers.add(paper);
-                
-            } catch (Exception e) {
-                logger.error("轉換論文資料失敗: {}", e.getMessage());
+                paper.setYear(Integer.parseInt(year.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("無法解析年份: {}", year);
             }
         }
-        
-        return papers;
+        return paper;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package com.alex.paper.Util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 作者欄位是以逗號串接的自由文字，這裡負責拆成個別作者
+ */
+public final class AuthorNames {
+
+    private AuthorNames() {}
+
+    /**
+     * 拆分作者字串，去除 Google Scholar 截斷作者列表時留下的 "…" 與空白項目
+     */
+    public static List<String> split(String authorField) {
+        List<String> authors = new ArrayList<>();
+        if (authorField == null || authorField.isBlank()) {
+            return authors;
+        }
+        for (String part : authorField.split(",|\\s+and\\s+|;")) {
+            String name = part.replace("…", "").replace("...", "").trim();
+            if (!name.isEmpty()) {
+                authors.add(name);
+            }
+        }
+        return authors;
+    }
+}
@@ -0,0 +1,68 @@
+package com.alex.paper.Util;
+
+import com.alex.paper.Model.Paper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * 論文指紋：正規化後的標題 + 作者取 SHA-256，作為重複判斷的依據
+ */
+public final class PaperFingerprint {
+
+    private PaperFingerprint() {}
+
+    public static String of(Paper paper) {
+        return of(paper.getTitle(), paper.getAuthor());
+    }
+
+    public static String of(String title, String author) {
+        String key = normalize(title) + "\n" + normalize(author);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支援 SHA-256", e);
+        }
+    }
+
+    /**
+     * 取指紋前 64 位元作為記憶體索引用的 long 值
+     */
+    public static long toLong(String fingerprint) {
+        return Long.parseUnsignedLong(fingerprint.substring(0, 16), 16);
+    }
+
+    /**
+     * 正規化字串：去除重音、轉小寫，非字母數字一律視為單一空白
+     */
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < folded.length(); ) {
+            int codePoint = folded.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.getType(codePoint) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.appendCodePoint(codePoint);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,22 @@
+-- 既有資料表升級腳本：只由 Spring Boot 啟動時執行（不掛進 MySQL 的 docker-entrypoint-initdb.d）
+-- 先查 information_schema，欄位或索引已存在時執行 DO 0，重複啟動不會失敗；其他 DDL 錯誤仍會中止啟動
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'paper' AND COLUMN_NAME = 'fingerprint') = 0,
+              'ALTER TABLE paper ADD COLUMN fingerprint CHAR(64)', 'DO 0');
+PREPARE upgrade_stmt FROM @ddl;
+EXECUTE upgrade_stmt;
+DEALLOCATE PREPARE upgrade_stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.STATISTICS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'paper' AND INDEX_NAME = 'uk_paper_fingerprint') = 0,
+              'ALTER TABLE paper ADD UNIQUE INDEX uk_paper_fingerprint (fingerprint)', 'DO 0');
+PREPARE upgrade_stmt FROM @ddl;
+EXECUTE upgrade_stmt;
+DEALLOCATE PREPARE upgrade_stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.COLUMNS
+               WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'paper' AND COLUMN_NAME = 'version') = 0,
+              'ALTER TABLE paper ADD COLUMN version INT NOT NULL DEFAULT 0', 'DO 0');
+PREPARE upgrade_stmt FROM @ddl;
+EXECUTE upgrade_stmt;
+DEALLOCATE PREPARE upgrade_stmt;
@@ -4,5 +4,26 @@ CREATE TABLE IF NOT EXISTS paper (
     author VARCHAR(500) NOT NULL,
     journal VARCHAR(500),
     year INT,
-    abstractText TEXT
+    abstractText TEXT,
+    fingerprint CHAR(64),
+    version INT NOT NULL DEFAULT 0,
+    UNIQUE INDEX uk_paper_fingerprint (fingerprint)
+    );
+
+
+CREATE TABLE IF NOT EXISTS author (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    normalized_name VARCHAR(255) COLLATE utf8mb4_bin NOT NULL,
+    UNIQUE INDEX uk_author_normalized_name (normalized_name)
+    );
+
+CREATE TABLE IF NOT EXISTS paper_author (
+    author_id BIGINT NOT NULL,
+    paper_id BIGINT NOT NULL,
+    position INT NOT NULL,
+    PRIMARY KEY (author_id, paper_id),
+    INDEX idx_paper_author_paper (paper_id),
+    CONSTRAINT fk_paper_author_author FOREIGN KEY (author_id) REFERENCES author (id),
+    CONSTRAINT fk_paper_author_paper FOREIGN KEY (paper_id) REFERENCES paper (id) ON DELETE CASCADE
     );
@@ -0,0 +1,25 @@
+package com.alex.paper.Cache;
+
+import com.alex.paper.DTO.CrawlerRequest;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrawlResultCacheTest {
+
+    @Test
+    void keyIgnoresCaseAndWhitespaceOnly() {
+        assertThat(key("  Deep   Learning\t")).isEqualTo(key("deep learning"));
+    }
+
+    @Test
+    void punctuationAndOperatorsStayInTheKey() {
+        assertThat(key("C++ templates")).isNotEqualTo(key("C# templates")).isNotEqualTo(key("C templates"));
+        assertThat(key("\"exact phrase\"")).isNotEqualTo(key("exact phrase"));
+        assertThat(key("author:smith")).isNotEqualTo(key("smith"));
+    }
+
+    private static String key(String keyword) {
+        return CrawlResultCache.key(new CrawlerRequest(keyword, 10));
+    }
+}
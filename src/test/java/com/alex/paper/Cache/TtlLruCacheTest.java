@@ -0,0 +1,57 @@
+package com.alex.paper.Cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlLruCacheTest {
+
+    @Test
+    void loadedValueIsCached() {
+        TtlLruCache<Long, String> cache = new TtlLruCache<>(10, 60_000);
+
+        assertThat(cache.get(1L, id -> "v1")).isEqualTo("v1");
+        assertThat(cache.get(1L, id -> "reloaded")).isEqualTo("v1");
+    }
+
+    @Test
+    void loadInvalidatedMidwayIsNotWrittenBack() {
+        TtlLruCache<Long, String> cache = new TtlLruCache<>(10, 60_000);
+
+        // 載入讀到舊資料後、寫回之前，另一個請求更新並使快取失效
+        String loaded = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return "stale";
+        });
+
+        assertThat(loaded).isEqualTo("stale");
+        assertThat(cache.getIfPresent(1L)).isNull();
+        assertThat(cache.get(1L, id -> "fresh")).isEqualTo("fresh");
+        assertThat(cache.getIfPresent(1L)).isEqualTo("fresh");
+    }
+
+    @Test
+    void explicitPutDuringLoadWins() {
+        TtlLruCache<Long, String> cache = new TtlLruCache<>(10, 60_000);
+
+        cache.get(1L, id -> {
+            cache.put(id, "newer");
+            return "older";
+        });
+
+        assertThat(cache.getIfPresent(1L)).isEqualTo("newer");
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedByWeight() {
+        TtlLruCache<String, String> cache = new TtlLruCache<>(10, 10, 60_000, String::length);
+        cache.put("a", "xxxx");
+        cache.put("b", "xxxx");
+        cache.getIfPresent("a");
+        cache.put("c", "xxxx");
+
+        assertThat(cache.getIfPresent("b")).isNull();
+        assertThat(cache.getIfPresent("a")).isNotNull();
+        assertThat(cache.weight()).isEqualTo(8);
+    }
+}
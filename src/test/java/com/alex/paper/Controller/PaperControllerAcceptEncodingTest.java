@@ -0,0 +1,29 @@
+package com.alex.paper.Controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaperControllerAcceptEncodingTest {
+
+    @Test
+    void gzipIsChosenWhenListedWithPositiveQuality() {
+        assertThat(PaperController.acceptsGzip("gzip")).isTrue();
+        assertThat(PaperController.acceptsGzip("deflate, gzip;q=0.5")).isTrue();
+        assertThat(PaperController.acceptsGzip("br;q=1.0, GZIP ; Q=0.1")).isTrue();
+    }
+
+    @Test
+    void gzipWithZeroQualityIsRefused() {
+        assertThat(PaperController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(PaperController.acceptsGzip("gzip;q=0.000, *;q=1")).isFalse();
+    }
+
+    @Test
+    void wildcardAppliesOnlyWhenGzipIsNotListed() {
+        assertThat(PaperController.acceptsGzip("*")).isTrue();
+        assertThat(PaperController.acceptsGzip("br, *;q=0")).isFalse();
+        assertThat(PaperController.acceptsGzip("identity")).isFalse();
+        assertThat(PaperController.acceptsGzip(null)).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package com.alex.paper.Controller;
+
+import com.alex.paper.Service.PaperService;
+import com.alex.paper.Service.PaperService.PatchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PaperControllerPatchTest {
+
+    private PaperService paperService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        paperService = mock(PaperService.class);
+        PaperController controller = new PaperController();
+        ReflectionTestUtils.setField(controller, "paperService", paperService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void ifMatchVersionIsUsedAndNextEtagReturned() throws Exception {
+        when(paperService.patchPaper(eq(1L), eq(Map.of("title", "New")), eq(3))).thenReturn(PatchResult.UPDATED);
+
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""));
+    }
+
+    @Test
+    void weakEtagIsAccepted() throws Exception {
+        when(paperService.patchPaper(eq(1L), anyMap(), eq(7))).thenReturn(PatchResult.UPDATED);
+
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "W/\"1-7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"year\":2021}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-8\""));
+    }
+
+    @Test
+    void versionSentAsStringIsParsed() throws Exception {
+        when(paperService.patchPaper(eq(1L), eq(Map.of("title", "New")), eq(3))).thenReturn(PatchResult.UPDATED);
+
+        mockMvc.perform(patch("/papers/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\",\"version\":\"3\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""));
+    }
+
+    @Test
+    void nonIntegerVersionIsBadRequest() throws Exception {
+        mockMvc.perform(patch("/papers/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\",\"version\":\"abc\"}"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/papers/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\",\"version\":1.5}"))
+            .andExpect(status().isBadRequest());
+        verify(paperService, never()).patchPaper(eq(1L), anyMap(), anyInt());
+    }
+
+    @Test
+    void missingVersionIsPreconditionRequired() throws Exception {
+        mockMvc.perform(patch("/papers/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\"}"))
+            .andExpect(status().isPreconditionRequired());
+    }
+
+    @Test
+    void etagForAnotherPaperIsPreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "\"2-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\",\"version\":3}"))
+            .andExpect(status().isPreconditionFailed());
+        verify(paperService, never()).patchPaper(eq(1L), anyMap(), anyInt());
+    }
+
+    @Test
+    void malformedIfMatchIsPreconditionFailed() throws Exception {
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-abc\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\"}"))
+            .andExpect(status().isPreconditionFailed());
+        verify(paperService, never()).patchPaper(eq(1L), anyMap(), anyInt());
+    }
+
+    @Test
+    void emptyPatchIsBadRequest() throws Exception {
+        when(paperService.patchPaper(eq(1L), eq(Map.of()), eq(3))).thenThrow(new IllegalArgumentException("沒有要修改的欄位"));
+
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void staleVersionIsConflict() throws Exception {
+        when(paperService.patchPaper(eq(1L), anyMap(), eq(2))).thenReturn(PatchResult.CONFLICT);
+
+        mockMvc.perform(patch("/papers/1")
+                .header(HttpHeaders.IF_MATCH, "\"1-2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"New\"}"))
+            .andExpect(status().isConflict())
+            .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
@@ -0,0 +1,116 @@
+package com.alex.paper.Crawler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HostRateLimiterTest {
+
+    private static final String HOST = "scholar.google.com";
+
+    private HostRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new HostRateLimiter();
+        ReflectionTestUtils.setField(limiter, "meterRegistry", new SimpleMeterRegistry());
+        // 每秒 20 次，每個許可 50 ms
+        ReflectionTestUtils.setField(limiter, "initialRate", 20.0);
+        ReflectionTestUtils.setField(limiter, "minRate", 2.0);
+        ReflectionTestUtils.setField(limiter, "maxRate", 22.0);
+        ReflectionTestUtils.setField(limiter, "burst", 1.0);
+        ReflectionTestUtils.setField(limiter, "increaseStep", 1.0);
+        ReflectionTestUtils.setField(limiter, "decreaseFactor", 0.5);
+        ReflectionTestUtils.setField(limiter, "penaltyMs", 200L);
+    }
+
+    @Test
+    void rateIncreasesAdditivelyAndDecreasesMultiplicatively() {
+        limiter.onSuccess(HOST);
+        assertThat(limiter.currentRate(HOST)).isCloseTo(21.0, within(1e-9));
+        limiter.onSuccess(HOST);
+        limiter.onSuccess(HOST);
+        assertThat(limiter.currentRate(HOST)).isCloseTo(22.0, within(1e-9));
+
+        limiter.onThrottled(HOST);
+        assertThat(limiter.currentRate(HOST)).isCloseTo(11.0, within(1e-9));
+        for (int i = 0; i < 10; i++) {
+            limiter.onThrottled(HOST);
+        }
+        assertThat(limiter.currentRate(HOST)).isCloseTo(2.0, within(1e-9));
+    }
+
+    @Test
+    void requestsBeyondBurstAreSpacedByRate() throws InterruptedException {
+        limiter.acquire(HOST);
+
+        long start = System.nanoTime();
+        limiter.acquire(HOST);
+        limiter.acquire(HOST);
+
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(90);
+    }
+
+    @Test
+    void throttlingPausesTheHost() throws InterruptedException {
+        limiter.acquire(HOST);
+        // 速率降為每秒 10 次，並預支 200 ms 的許可
+        limiter.onThrottled(HOST);
+
+        long start = System.nanoTime();
+        limiter.acquire(HOST);
+
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(250);
+    }
+
+    @Test
+    void remoteCallWaitsForOnePermitAndChargesTheRest() throws InterruptedException {
+        long start = System.nanoTime();
+        limiter.acquireForRemote(HOST, 5);
+        assertThat(elapsedMillis(start)).isLessThan(150);
+
+        // 遠端服務自行間隔的 4 頁已預支，本機下一個請求需等到這些額度用完
+        start = System.nanoTime();
+        limiter.acquire(HOST);
+        assertThat(elapsedMillis(start)).isGreaterThanOrEqualTo(200);
+    }
+
+    @Test
+    void unusedRemotePermitsCanBeRefunded() throws InterruptedException {
+        limiter.acquireForRemote(HOST, 10);
+        // 遠端只抓了 1 頁，其餘 9 頁的額度歸還
+        limiter.refund(HOST, 9);
+
+        long start = System.nanoTime();
+        limiter.acquire(HOST);
+        assertThat(elapsedMillis(start)).isLessThan(150);
+    }
+
+    @Test
+    void interruptedWaitRefundsItsPermits() throws InterruptedException {
+        limiter.acquire(HOST);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire(HOST, 10);
+            } catch (InterruptedException e) {
+                // 預期被中斷
+            }
+        });
+        waiter.start();
+        Thread.sleep(50);
+        waiter.interrupt();
+        waiter.join();
+
+        long start = System.nanoTime();
+        limiter.acquire(HOST);
+        assertThat(elapsedMillis(start)).isLessThan(200);
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
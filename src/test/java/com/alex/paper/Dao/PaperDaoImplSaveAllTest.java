@@ -0,0 +1,95 @@
+package com.alex.paper.Dao;
+
+import com.alex.paper.Model.Paper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaperDaoImplSaveAllTest {
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private Savepoint savepoint;
+    private PaperDaoImpl paperDao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        savepoint = mock(Savepoint.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(connection.setSavepoint()).thenReturn(savepoint);
+        when(connection.prepareStatement(anyString(), anyInt())).thenReturn(statement);
+
+        paperDao = new PaperDaoImpl();
+        ReflectionTestUtils.setField(paperDao, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(paperDao, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(paperDao, "batchSize", 2);
+    }
+
+    @Test
+    void duplicateInSecondChunkRollsBackEarlierChunksAndClearsKeys() throws Exception {
+        ResultSet firstKeys = mock(ResultSet.class);
+        when(firstKeys.next()).thenReturn(true, true, false);
+        when(firstKeys.getLong(1)).thenReturn(1L, 2L);
+        when(statement.getGeneratedKeys()).thenReturn(firstKeys);
+        when(statement.executeBatch())
+            .thenReturn(new int[]{1, 1})
+            .thenThrow(new BatchUpdateException("Duplicate entry for key 'uk_paper_fingerprint'", "23000", 1062,
+                new int[]{1, Statement.EXECUTE_FAILED}));
+        List<Paper> papers = List.of(paper("one"), paper("two"), paper("three"), paper("dup"));
+
+        assertThatThrownBy(() -> paperDao.saveAll(papers)).isInstanceOf(DataIntegrityViolationException.class);
+
+        // 第一段已回填主鍵、第二段的 "three" 已寫入但沒有主鍵：全部撤銷，逐筆重試時才不會被當成重複略過
+        verify(connection).rollback(savepoint);
+        verify(connection, never()).releaseSavepoint(savepoint);
+        assertThat(papers).allSatisfy(paper -> {
+            assertThat(paper.getId()).isNull();
+            assertThat(paper.getVersion()).isNull();
+        });
+    }
+
+    @Test
+    void successfulBatchReleasesSavepointAndAssignsKeys() throws Exception {
+        ResultSet keys = mock(ResultSet.class);
+        when(keys.next()).thenReturn(true, true, false);
+        when(keys.getLong(1)).thenReturn(1L, 2L);
+        when(statement.getGeneratedKeys()).thenReturn(keys);
+        when(statement.executeBatch()).thenReturn(new int[]{1, 1});
+        List<Paper> papers = List.of(paper("one"), paper("two"));
+
+        assertThat(paperDao.saveAll(papers)).isEqualTo(2);
+
+        verify(connection).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback(savepoint);
+        assertThat(papers).extracting(Paper::getId).containsExactly(1L, 2L);
+    }
+
+    private static Paper paper(String title) {
+        return new Paper(null, title, "Author", null, "Journal", 2020);
+    }
+}
@@ -0,0 +1,112 @@
+package com.alex.paper.Dedup;
+
+import com.alex.paper.Dedup.PaperFingerprintIndex.LongCounts;
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaperFingerprintIndexTest {
+
+    @Test
+    void countsTrackIncrementsAndDecrements() {
+        LongCounts counts = new LongCounts();
+        counts.increment(42L);
+        counts.increment(42L);
+        counts.increment(-7L);
+
+        assertThat(counts.get(42L)).isEqualTo(2);
+        assertThat(counts.size()).isEqualTo(2);
+
+        counts.decrement(42L);
+        assertThat(counts.get(42L)).isEqualTo(1);
+        counts.decrement(42L);
+        assertThat(counts.get(42L)).isZero();
+        assertThat(counts.size()).isEqualTo(1);
+
+        // 不存在的鍵不受影響
+        counts.decrement(99L);
+        assertThat(counts.get(-7L)).isEqualTo(1);
+    }
+
+    @Test
+    void removingFromCollisionChainKeepsLaterKeysReachable() {
+        LongCounts counts = new LongCounts();
+        // 高 32 位元與低 32 位元折疊後落在同一個槽
+        long a = 1L;
+        long b = 1L << 32;
+        long c = (2L << 32) | 3L;
+        counts.increment(a);
+        counts.increment(b);
+        counts.increment(c);
+
+        counts.decrement(a);
+
+        assertThat(counts.get(a)).isZero();
+        assertThat(counts.get(b)).isEqualTo(1);
+        assertThat(counts.get(c)).isEqualTo(1);
+    }
+
+    @Test
+    void matchesReferenceMapAcrossResizes() {
+        LongCounts counts = new LongCounts();
+        Map<Long, Integer> reference = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 300_000; i++) {
+            // 鍵的範圍較小，讓同一鍵反覆增減
+            long key = random.nextInt(100_000) * 0x9E3779B97F4A7C15L;
+            if (random.nextInt(3) == 0) {
+                counts.decrement(key);
+                reference.computeIfPresent(key, (k, v) -> v > 1 ? v - 1 : null);
+            } else {
+                counts.increment(key);
+                reference.merge(key, 1, Integer::sum);
+            }
+        }
+
+        assertThat(counts.size()).isEqualTo(reference.size());
+        reference.forEach((key, count) -> assertThat(counts.get(key)).isEqualTo(count));
+        for (int i = 0; i < 1_000; i++) {
+            long key = (100_000L + i) * 0x9E3779B97F4A7C15L;
+            assertThat(counts.get(key)).isZero();
+        }
+    }
+
+    @Test
+    void writesDuringLoadAreNotCountedTwice() {
+        PaperFingerprintIndex index = new PaperFingerprintIndex();
+        Paper inserted = paper(1L, "Inserted before the stream reached it");
+        Paper original = paper(2L, "Original title");
+        Paper renamed = paper(2L, "Renamed title");
+        Paper deleted = paper(3L, "Deleted while loading");
+
+        index.beginLoad();
+        // 新增已提交、串流也讀到同一筆
+        index.add(inserted);
+        index.loadRow(inserted);
+        // 串流讀到舊標題之後才改名
+        index.loadRow(original);
+        index.remove(original);
+        index.add(renamed);
+        index.loadRow(deleted);
+        index.remove(deleted);
+        index.finishLoad();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.contains(inserted)).isTrue();
+        assertThat(index.contains(renamed)).isTrue();
+        assertThat(index.contains(original)).isFalse();
+        assertThat(index.contains(deleted)).isFalse();
+
+        index.remove(inserted);
+        assertThat(index.contains(inserted)).isFalse();
+    }
+
+    private static Paper paper(Long id, String title) {
+        return new Paper(id, title, "Author", null, null, null);
+    }
+}
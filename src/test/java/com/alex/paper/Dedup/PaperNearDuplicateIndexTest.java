@@ -0,0 +1,124 @@
+package com.alex.paper.Dedup;
+
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaperNearDuplicateIndexTest {
+
+    private static final String TITLE = "Deep residual learning for image recognition";
+    private static final String ABSTRACT = "Deeper neural networks are more difficult to train. We present a residual "
+        + "learning framework to ease the training of networks that are substantially deeper than those used previously.";
+
+    @Test
+    void identicalTextAfterNormalizationHasIdenticalSignature() {
+        int[] original = PaperNearDuplicateIndex.signature(paper(TITLE, ABSTRACT));
+        int[] restyled = PaperNearDuplicateIndex.signature(paper("Deep Residual Learning for Image Recognition.", ABSTRACT));
+
+        assertThat(restyled).containsExactly(original);
+    }
+
+    @Test
+    void smallVariationsAreNearDuplicatesAndUnrelatedPapersAreNot() {
+        PaperNearDuplicateIndex index = new PaperNearDuplicateIndex();
+        int[] original = PaperNearDuplicateIndex.signature(paper(TITLE, ABSTRACT));
+        // Google Scholar 常見的差異：標題大小寫與標點不同、摘要片段被截短
+        int[] variant = PaperNearDuplicateIndex.signature(paper(TITLE.toUpperCase() + "!",
+            ABSTRACT.substring(0, ABSTRACT.length() - 10)));
+        int[] unrelated = PaperNearDuplicateIndex.signature(paper("Attention is all you need",
+            "The dominant sequence transduction models are based on complex recurrent or convolutional neural networks."));
+
+        assertThat(index.isNearDuplicate(original, variant)).isTrue();
+        assertThat(index.isNearDuplicate(original, unrelated)).isFalse();
+    }
+
+    @Test
+    void thresholdDecidesPartialOverlap() {
+        // 標題與前半段摘要相同、後半段不同：Jaccard 相似度約 0.4
+        String half = ABSTRACT.substring(0, ABSTRACT.length() / 2);
+        int[] left = PaperNearDuplicateIndex.signature(paper(TITLE, ABSTRACT));
+        int[] right = PaperNearDuplicateIndex.signature(paper(TITLE,
+            half + " Our approach replaces plain stacks with shortcut connections across every pair of layers."));
+
+        assertThat(withThreshold(0.8).isNearDuplicate(left, right)).isFalse();
+        assertThat(withThreshold(0.2).isNearDuplicate(left, right)).isTrue();
+    }
+
+    @Test
+    void tooShortTextHasNoSignature() {
+        assertThat(PaperNearDuplicateIndex.signature(paper("AI", null))).isNull();
+        assertThat(new PaperNearDuplicateIndex().isNearDuplicate(null, null)).isFalse();
+    }
+
+    @Test
+    void indexFindsStoredNearDuplicateThroughLshBuckets() {
+        PaperNearDuplicateIndex index = new PaperNearDuplicateIndex();
+        index.add(withId(paper(TITLE, ABSTRACT), 42L));
+        index.add(withId(paper("Attention is all you need", "Transformers rely entirely on attention mechanisms."), 7L));
+
+        Paper variant = paper(TITLE + ".", ABSTRACT.substring(0, ABSTRACT.length() - 10));
+        assertThat(index.findNearDuplicate(variant)).isEqualTo(42L);
+        // 與自己比對不算重複
+        assertThat(index.findNearDuplicate(PaperNearDuplicateIndex.signature(variant), 42L)).isNull();
+
+        index.remove(42L);
+        assertThat(index.findNearDuplicate(variant)).isNull();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void manyAddsAndRemovesKeepBucketsConsistent() {
+        PaperNearDuplicateIndex index = new PaperNearDuplicateIndex();
+        for (long id = 0; id < 2_000; id++) {
+            index.add(withId(distinctPaper(id), id));
+        }
+        for (long id = 0; id < 2_000; id += 2) {
+            index.remove(id);
+        }
+
+        assertThat(index.size()).isEqualTo(1_000);
+        assertThat(index.findNearDuplicate(distinctPaper(10))).isNull();
+        assertThat(index.findNearDuplicate(distinctPaper(11))).isEqualTo(11L);
+        assertThat(index.findNearDuplicate(distinctPaper(0))).isNull();
+    }
+
+    @Test
+    void writesDuringLoadWinOverStreamedRows() {
+        PaperNearDuplicateIndex index = new PaperNearDuplicateIndex();
+        index.beginLoad();
+        index.loadRow(withId(distinctPaper(1), 1L));
+        // 載入期間更新 2、刪除 3，之後串流才讀到這兩篇的舊版本
+        index.add(withId(distinctPaper(20), 2L));
+        index.remove(3L);
+        index.loadRow(withId(distinctPaper(2), 2L));
+        index.loadRow(withId(distinctPaper(3), 3L));
+        index.finishLoad();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.findNearDuplicate(distinctPaper(1))).isEqualTo(1L);
+        assertThat(index.findNearDuplicate(distinctPaper(20))).isEqualTo(2L);
+        assertThat(index.findNearDuplicate(distinctPaper(2))).isNull();
+        assertThat(index.findNearDuplicate(distinctPaper(3))).isNull();
+    }
+
+    private static PaperNearDuplicateIndex withThreshold(double threshold) {
+        PaperNearDuplicateIndex index = new PaperNearDuplicateIndex();
+        ReflectionTestUtils.setField(index, "threshold", threshold);
+        return index;
+    }
+
+    private static Paper distinctPaper(long i) {
+        return paper("Recorded paper " + Long.toHexString(i * 0x9E3779B97F4A7C15L), null);
+    }
+
+    private static Paper paper(String title, String abstractText) {
+        return new Paper(null, title, "Author", abstractText, null, null);
+    }
+
+    private static Paper withId(Paper paper, long id) {
+        paper.setId(id);
+        return paper;
+    }
+}
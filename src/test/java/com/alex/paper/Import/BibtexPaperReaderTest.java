@@ -0,0 +1,100 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BibtexPaperReaderTest {
+
+    @Test
+    void parsesBracedQuotedAndBareValues() throws IOException {
+        List<Paper> papers = readAll("""
+            @article{he2016,
+              title = {Deep {Residual} Learning
+                       for Image Recognition},
+              author = "He, Kaiming and Zhang, Xiangyu",
+              journal = {CVPR},
+              year = 2016,
+              abstract = {Deeper networks are harder to train.}
+            }
+            """);
+
+        assertThat(papers).hasSize(1);
+        Paper paper = papers.get(0);
+        assertThat(paper.getTitle()).isEqualTo("Deep Residual Learning for Image Recognition");
+        assertThat(paper.getAuthor()).isEqualTo("He, Kaiming, Zhang, Xiangyu");
+        assertThat(paper.getJournal()).isEqualTo("CVPR");
+        assertThat(paper.getYear()).isEqualTo(2016);
+        assertThat(paper.getAbstractText()).isEqualTo("Deeper networks are harder to train.");
+    }
+
+    @Test
+    void skipsCommentsStringsAndEntriesWithoutTitle() throws IOException {
+        List<Paper> papers = readAll("""
+            Text between entries is ignored.
+            @comment{ anything {nested} here }
+            @string{cvpr = "Computer Vision and Pattern Recognition"}
+            @misc{notitle, author = {Nobody}}
+            @inproceedings(vaswani2017,
+              title = "Attention is all you need",
+              booktitle = {NeurIPS},
+              year = {2017}
+            )
+            """);
+
+        assertThat(papers).hasSize(1);
+        assertThat(papers.get(0).getTitle()).isEqualTo("Attention is all you need");
+        assertThat(papers.get(0).getJournal()).isEqualTo("NeurIPS");
+        assertThat(papers.get(0).getYear()).isEqualTo(2017);
+    }
+
+    @Test
+    void readsConsecutiveEntries() throws IOException {
+        List<Paper> papers = readAll("@article{a, title={First}}@article{b, title={Second}, year={n.d.}}");
+
+        assertThat(papers).extracting(Paper::getTitle).containsExactly("First", "Second");
+        assertThat(papers.get(1).getYear()).isNull();
+    }
+
+    @Test
+    void oversizedValueFailsTheEntryAndReadingResumesAtTheNextEntry() throws IOException {
+        String bibtex = "@article{a, title={Unterminated " + "x".repeat(200) + "\n@article{b, title={Next}}";
+        try (BibtexPaperReader reader = open(bibtex, 100)) {
+            assertThatThrownBy(reader::next).isInstanceOf(MalformedRecordException.class).hasMessageContaining("100");
+            assertThat(reader.next().getTitle()).isEqualTo("Next");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void valueUnterminatedAtEndOfFileIsMalformed() throws IOException {
+        try (BibtexPaperReader reader = open("@article{a, title={First}}@article{b, title=\"Unterminated", 100)) {
+            assertThat(reader.next().getTitle()).isEqualTo("First");
+            assertThatThrownBy(reader::next).isInstanceOf(MalformedRecordException.class);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static BibtexPaperReader open(String bibtex, int maxRecordChars) {
+        return new BibtexPaperReader(new ByteArrayInputStream(bibtex.getBytes(StandardCharsets.UTF_8)), maxRecordChars);
+    }
+
+    private static List<Paper> readAll(String bibtex) throws IOException {
+        List<Paper> papers = new ArrayList<>();
+        try (BibtexPaperReader reader = new BibtexPaperReader(new ByteArrayInputStream(bibtex.getBytes(StandardCharsets.UTF_8)))) {
+            Paper paper;
+            while ((paper = reader.next()) != null) {
+                papers.add(paper);
+            }
+        }
+        return papers;
+    }
+}
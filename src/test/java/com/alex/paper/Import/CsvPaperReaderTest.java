@@ -0,0 +1,77 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvPaperReaderTest {
+
+    @Test
+    void headerColumnsMayBeInAnyOrderAndAliased() throws IOException {
+        List<Paper> papers = readAll("\uFEFFYear,Authors,Title,Abstract\r\n"
+            + "2016,He,Deep residual learning,Residual nets\r\n");
+
+        assertThat(papers).hasSize(1);
+        Paper paper = papers.get(0);
+        assertThat(paper.getTitle()).isEqualTo("Deep residual learning");
+        assertThat(paper.getAuthor()).isEqualTo("He");
+        assertThat(paper.getAbstractText()).isEqualTo("Residual nets");
+        assertThat(paper.getYear()).isEqualTo(2016);
+        assertThat(paper.getJournal()).isNull();
+    }
+
+    @Test
+    void quotedFieldsKeepCommasNewlinesAndEscapedQuotes() throws IOException {
+        List<Paper> papers = readAll("title,author,journal\n"
+            + "\"Attention, \"\"all\"\" you need\",\"Vaswani,\nShazeer\",NeurIPS\n");
+
+        assertThat(papers).hasSize(1);
+        assertThat(papers.get(0).getTitle()).isEqualTo("Attention, \"all\" you need");
+        assertThat(papers.get(0).getAuthor()).isEqualTo("Vaswani,\nShazeer");
+        assertThat(papers.get(0).getJournal()).isEqualTo("NeurIPS");
+    }
+
+    @Test
+    void blankLinesAreSkippedAndShortOrBadValuesBecomeNull() throws IOException {
+        List<Paper> papers = readAll("title,author,year\n\nFirst,A,20x6\n\nSecond\n");
+
+        assertThat(papers).extracting(Paper::getTitle).containsExactly("First", "Second");
+        assertThat(papers.get(0).getYear()).isNull();
+        assertThat(papers.get(1).getAuthor()).isNull();
+    }
+
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertThat(readAll("")).isEmpty();
+        assertThat(readAll("title,author\n")).isEmpty();
+    }
+
+    @Test
+    void unterminatedQuoteFailsTheRecordOnceTheLimitIsReached() throws IOException {
+        String csv = "title,author\n\"Unterminated,A\n" + "x".repeat(200) + "\nNext,B\n";
+        try (CsvPaperReader reader = new CsvPaperReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), 100)) {
+            assertThatThrownBy(reader::next).isInstanceOf(MalformedRecordException.class);
+            assertThat(reader.next().getTitle()).isEqualTo("Next");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    private static List<Paper> readAll(String csv) throws IOException {
+        List<Paper> papers = new ArrayList<>();
+        try (CsvPaperReader reader = new CsvPaperReader(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)))) {
+            Paper paper;
+            while ((paper = reader.next()) != null) {
+                papers.add(paper);
+            }
+        }
+        return papers;
+    }
+}
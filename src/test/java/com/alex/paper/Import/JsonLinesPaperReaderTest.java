@@ -0,0 +1,110 @@
+package com.alex.paper.Import;
+
+import com.alex.paper.Model.Paper;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonLinesPaperReaderTest {
+
+    // 與 Spring Boot 預設相同：忽略未知欄位
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    @Test
+    void readsOneRecordPerLineSkippingBlankLines() throws IOException {
+        List<Object> records = readAll("{\"title\":\"First\",\"year\":2016,\"extra\":true}\n\n"
+            + "{\"title\":\"Second\",\"author\":\"B\"}\n");
+
+        assertThat(records).hasSize(2);
+        assertThat(((Paper) records.get(0)).getYear()).isEqualTo(2016);
+        assertThat(((Paper) records.get(1)).getAuthor()).isEqualTo("B");
+    }
+
+    @Test
+    void malformedLineIsReportedAndReadingContinues() throws IOException {
+        List<Object> records = readAll("{\"title\":\"First\"}\n"
+            + "{\"title\": \"truncated\n"
+            + "{\"title\":\"Third\",\"year\":\"not a year\"}\n"
+            + "{\"title\":\"Fourth\"}\n");
+
+        assertThat(records).hasSize(4);
+        assertThat(((Paper) records.get(0)).getTitle()).isEqualTo("First");
+        assertThat((String) records.get(1)).contains("第 2 行");
+        assertThat((String) records.get(2)).contains("第 3 行");
+        assertThat(((Paper) records.get(3)).getTitle()).isEqualTo("Fourth");
+    }
+
+    @Test
+    void oversizedLineIsReportedAndReadingContinues() throws IOException {
+        String content = "{\"title\":\"First\"}\n"
+            + "{\"title\":\"" + "x".repeat(200) + "\"}\r\n"
+            + "{\"title\":\"Third\"}\r\n";
+        try (JsonLinesPaperReader reader = new JsonLinesPaperReader(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper, 100)) {
+            assertThat(reader.next().getTitle()).isEqualTo("First");
+            assertThatThrownBy(reader::next).isInstanceOf(MalformedRecordException.class).hasMessageContaining("第 2 行");
+            assertThat(reader.next().getTitle()).isEqualTo("Third");
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void unterminatedLastLineWithoutNewlineIsMalformed() throws IOException {
+        List<Object> records = readAll("{\"title\":\"First\"}\n{\"title\": \"unterminated");
+
+        assertThat(records).hasSize(2);
+        assertThat(((Paper) records.get(0)).getTitle()).isEqualTo("First");
+        assertThat((String) records.get(1)).contains("第 2 行");
+    }
+
+    @Test
+    void topLevelArrayIsReadElementByElement() throws IOException {
+        List<Object> records = readAll("\uFEFF\n  [\n {\"title\":\"First\"},\n {\"title\":\"Second\"}\n]\n");
+
+        assertThat(records).extracting(record -> ((Paper) record).getTitle()).containsExactly("First", "Second");
+    }
+
+    @Test
+    void malformedArrayAbortsBecauseItCannotResynchronize() throws IOException {
+        try (JsonLinesPaperReader reader = open("[{\"title\":\"First\"}, {oops}]")) {
+            assertThat(reader.next().getTitle()).isEqualTo("First");
+            assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .isNotInstanceOf(MalformedRecordException.class);
+        }
+    }
+
+    /**
+     * 依序讀取所有紀錄，格式錯誤的紀錄以錯誤訊息字串表示
+     */
+    private List<Object> readAll(String content) throws IOException {
+        List<Object> records = new ArrayList<>();
+        try (JsonLinesPaperReader reader = open(content)) {
+            while (true) {
+                try {
+                    Paper paper = reader.next();
+                    if (paper == null) {
+                        return records;
+                    }
+                    records.add(paper);
+                } catch (MalformedRecordException e) {
+                    records.add(e.getMessage());
+                }
+            }
+        }
+    }
+
+    private JsonLinesPaperReader open(String content) {
+        return new JsonLinesPaperReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), objectMapper);
+    }
+}
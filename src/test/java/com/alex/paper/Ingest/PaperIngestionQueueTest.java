@@ -0,0 +1,211 @@
+package com.alex.paper.Ingest;
+
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Service.PaperService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaperIngestionQueueTest {
+
+    @TempDir
+    Path journalDir;
+
+    private PaperService paperService;
+    private PaperIngestionQueue queue;
+    private final List<String> savedTitles = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        paperService = mock(PaperService.class);
+        queue = new PaperIngestionQueue();
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        ReflectionTestUtils.setField(queue, "paperService", paperService);
+        ReflectionTestUtils.setField(queue, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(queue, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(queue, "queueCapacity", 10);
+        ReflectionTestUtils.setField(queue, "batchSize", 10);
+        ReflectionTestUtils.setField(queue, "flushIntervalMs", 10L);
+        ReflectionTestUtils.setField(queue, "offerTimeoutMs", 100L);
+        ReflectionTestUtils.setField(queue, "journalRotateBytes", 1L << 20);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    void permanentFailureDeadLettersOnlyTheBadRow() throws Exception {
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Paper> papers = invocation.getArgument(0);
+            for (Paper paper : papers) {
+                if (paper.getTitle().startsWith("bad")) {
+                    throw new DataIntegrityViolationException("Data too long for column 'title'");
+                }
+            }
+            return recordSaved(papers);
+        });
+        queue.start();
+
+        queue.submit(List.of(paper("first"), paper("bad row"), paper("second")));
+        awaitCheckpoint(3);
+
+        assertThat(savedTitles).containsExactlyInAnyOrder("first", "second");
+        List<String> deadLetters = Files.readAllLines(journalDir.resolve("papers.deadletter"), StandardCharsets.UTF_8);
+        assertThat(deadLetters).hasSize(1);
+        assertThat(deadLetters.get(0)).contains("\"seq\":2").contains("bad row").contains("Data too long");
+
+        // 佇列容量已釋放，後續的論文照常寫入
+        List<Paper> more = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            more.add(paper("more " + i));
+        }
+        queue.submit(more);
+        awaitCheckpoint(13);
+        assertThat(savedTitles).hasSize(12);
+    }
+
+    @Test
+    void transientFailureIsRetriedWithoutDeadLetter() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                throw new CannotGetJdbcConnectionException("Communications link failure");
+            }
+            return recordSaved(invocation.getArgument(0));
+        });
+        queue.start();
+
+        queue.submit(List.of(paper("retried")));
+        awaitCheckpoint(1);
+
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(savedTitles).containsExactly("retried");
+        assertThat(journalDir.resolve("papers.deadletter")).doesNotExist();
+    }
+
+    @Test
+    void replaysEntriesAfterCheckpointAndSkipsTornLine() throws Exception {
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> recordSaved(invocation.getArgument(0)));
+        Files.writeString(journalDir.resolve("papers.journal"),
+            "{\"seq\":1,\"paper\":{\"title\":\"committed\",\"author\":\"A\"}}\n"
+                + "{\"seq\":2,\"paper\":{\"title\":\"pending one\",\"author\":\"A\"}}\n"
+                + "{\"seq\":3,\"paper\":{\"title\":\"pending two\",\"author\":\"B\"}}\n"
+                + "{\"seq\":4,\"pap", StandardCharsets.UTF_8);
+        Files.writeString(journalDir.resolve("papers.checkpoint"), "1", StandardCharsets.UTF_8);
+
+        queue.start();
+        awaitCheckpoint(3);
+
+        assertThat(savedTitles).containsExactly("pending one", "pending two");
+
+        // 新的論文接續在重播的最後一個 seq 之後
+        queue.submit(List.of(paper("after restart")));
+        awaitCheckpoint(4);
+    }
+
+    @Test
+    void closedJournalIsReopenedForLaterSubmits() throws Exception {
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> recordSaved(invocation.getArgument(0)));
+        queue.start();
+        queue.submit(List.of(paper("before")));
+        awaitCheckpoint(1);
+
+        // 模擬呼叫端執行緒在寫入 journal 時被中斷（ClosedByInterruptException 會關閉 channel）；
+        // 先發現的一方（submit 或背景執行緒）負責重新開啟
+        ((FileChannel) ReflectionTestUtils.getField(queue, "journal")).close();
+        try {
+            queue.submit(List.of(paper("racing")));
+        } catch (IllegalStateException e) {
+            assertThat(e).hasCauseInstanceOf(ClosedChannelException.class);
+        }
+
+        assertThat(queue.isAccepting()).isTrue();
+        queue.submit(List.of(paper("after")));
+        awaitCheckpoint(3);
+        assertThat(savedTitles).startsWith("before").endsWith("after");
+        assertThat(Files.readAllLines(journalDir.resolve("papers.journal"), StandardCharsets.UTF_8))
+            .last().asString().contains("\"seq\":3");
+    }
+
+    @Test
+    void drainerWritesCopiesAndLeavesSubmittedPapersUntouched() throws Exception {
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Paper> papers = invocation.getArgument(0);
+            long id = 100;
+            for (Paper paper : papers) {
+                paper.setId(id++);
+                paper.setVersion(0);
+            }
+            return recordSaved(papers);
+        });
+        queue.start();
+
+        Paper submitted = paper("response object");
+        queue.submit(List.of(submitted));
+        awaitCheckpoint(1);
+
+        assertThat(savedTitles).containsExactly("response object");
+        assertThat(submitted.getId()).isNull();
+        assertThat(submitted.getVersion()).isNull();
+    }
+
+    @Test
+    void classifiesDataErrorsAsPermanentAndConnectionErrorsAsTransient() {
+        assertThat(PaperIngestionQueue.isPermanent(new DataIntegrityViolationException("too long"))).isTrue();
+        assertThat(PaperIngestionQueue.isPermanent(new CannotGetJdbcConnectionException("down"))).isFalse();
+        assertThat(PaperIngestionQueue.isPermanent(new QueryTimeoutException("timeout"))).isFalse();
+        assertThat(PaperIngestionQueue.isPermanent(new IllegalStateException("other"))).isFalse();
+    }
+
+    private List<Paper> recordSaved(List<Paper> papers) {
+        for (Paper paper : papers) {
+            savedTitles.add(paper.getTitle());
+        }
+        return papers;
+    }
+
+    private void awaitCheckpoint(long seq) throws IOException, InterruptedException {
+        Path checkpoint = journalDir.resolve("papers.checkpoint");
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (Files.exists(checkpoint) && Files.readString(checkpoint).trim().equals(Long.toString(seq))) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertThat(Files.readString(checkpoint).trim()).isEqualTo(Long.toString(seq));
+    }
+
+    private static Paper paper(String title) {
+        return new Paper(null, title, "Author", null, "Journal", 2020);
+    }
+}
@@ -0,0 +1,126 @@
+package com.alex.paper.Search;
+
+import com.alex.paper.DTO.PaperFacets;
+import com.alex.paper.DTO.PaperFacets.FacetCount;
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PaperFacetSnapshotTest {
+
+    @Test
+    void unfilteredAndYearFilteredCountsAgree() {
+        PaperFacetSnapshot snapshot = new PaperFacetSnapshot();
+        snapshot.upsert(paper(1L, "Alice, Bob", "Nature", 2020));
+        snapshot.upsert(paper(2L, "alice", "nature", 2021));
+        snapshot.upsert(paper(3L, "Carol", "Science", null));
+
+        PaperFacets all = snapshot.facets(null, null, 10);
+        assertThat(all.getTotal()).isEqualTo(3);
+        assertThat(all.getJournals()).extracting(FacetCount::getValue, FacetCount::getCount)
+            .containsExactly(tuple("Nature", 2), tuple("Science", 1));
+        assertThat(all.getAuthors()).extracting(FacetCount::getValue, FacetCount::getCount)
+            .startsWith(tuple("Alice", 2));
+        assertThat(all.getYears()).extracting(FacetCount::getValue).containsExactly("2021", "2020");
+
+        // 指定年份時沒有年份的論文不列入
+        PaperFacets recent = snapshot.facets(2021, null, 10);
+        assertThat(recent.getTotal()).isEqualTo(1);
+        // 正規化後相同的作者顯示第一次出現的寫法
+        assertThat(recent.getAuthors()).extracting(FacetCount::getValue).containsExactly("Alice");
+    }
+
+    @Test
+    void updatesAndDeletesAdjustRunningCounts() {
+        PaperFacetSnapshot snapshot = new PaperFacetSnapshot();
+        snapshot.upsert(paper(1L, "Alice", "Nature", 2020));
+        snapshot.upsert(paper(2L, "Bob", "Nature", 2020));
+
+        snapshot.upsert(paper(1L, "Alice", "Science", 2022));
+        snapshot.remove(2L);
+
+        PaperFacets facets = snapshot.facets(null, null, 10);
+        assertThat(facets.getTotal()).isEqualTo(1);
+        assertThat(facets.getJournals()).extracting(FacetCount::getValue).containsExactly("Science");
+        assertThat(facets.getAuthors()).extracting(FacetCount::getValue).containsExactly("Alice");
+        assertThat(facets.getYears()).extracting(FacetCount::getValue).containsExactly("2022");
+    }
+
+    @Test
+    void compactionKeepsCountsAndDropsUnusedDictionaryEntries() {
+        PaperFacetSnapshot snapshot = new PaperFacetSnapshot();
+        for (long id = 0; id < 2_000; id++) {
+            snapshot.upsert(paper(id, "Author " + id + ", Shared", "Journal " + (id % 50), 2000 + (int) (id % 20)));
+        }
+        // 刪除奇數 id，過程中觸發壓縮；奇數 id 對應的期刊編號也是奇數，刪除後只剩 25 種期刊
+        for (long id = 1; id < 2_000; id += 2) {
+            snapshot.remove(id);
+        }
+
+        PaperFacets facets = snapshot.facets(null, null, 100);
+        assertThat(facets.getTotal()).isEqualTo(1_000);
+        assertThat(facets.getJournals()).hasSize(25).allMatch(journal -> journal.getCount() == 40);
+        assertThat(facets.getAuthors().get(0)).extracting(FacetCount::getValue, FacetCount::getCount)
+            .containsExactly("Shared", 1_000);
+
+        PaperFacets filtered = snapshot.facets(2000, 2009, 100);
+        assertThat(filtered.getTotal()).isEqualTo(500);
+        assertThat(sum(filtered.getYears())).isEqualTo(500);
+
+        // 壓縮後新增的論文可以重新使用被移除的期刊名稱
+        snapshot.upsert(paper(5_001L, "Someone", "Journal 1", 2030));
+        assertThat(snapshot.facets(2030, 2030, 10).getJournals()).extracting(FacetCount::getValue)
+            .containsExactly("Journal 1");
+        assertThat(snapshot.facets(null, null, 100).getJournals()).hasSize(26);
+    }
+
+    @Test
+    void writesDuringLoadWinOverStreamedRows() {
+        PaperFacetSnapshot snapshot = new PaperFacetSnapshot();
+        snapshot.beginLoad();
+        snapshot.loadRow(paper(1L, "Alice", "Nature", 2020));
+        // 載入期間更新 2、刪除 3，之後串流才讀到這兩篇的舊版本
+        snapshot.upsert(paper(2L, "Bob", "Science", 2021));
+        snapshot.remove(3L);
+        snapshot.loadRow(paper(2L, "Bob", "Nature", 2019));
+        snapshot.loadRow(paper(3L, "Carol", "Nature", 2019));
+        snapshot.finishLoad();
+
+        PaperFacets facets = snapshot.facets(null, null, 10);
+        assertThat(facets.getTotal()).isEqualTo(2);
+        assertThat(facets.getJournals()).extracting(FacetCount::getValue, FacetCount::getCount)
+            .containsExactlyInAnyOrder(tuple("Nature", 1), tuple("Science", 1));
+        assertThat(facets.getYears()).extracting(FacetCount::getValue).containsExactly("2021", "2020");
+    }
+
+    @Test
+    void queriesSeePreviousSnapshotDuringLoadAndAbortKeepsIt() {
+        PaperFacetSnapshot snapshot = new PaperFacetSnapshot();
+        snapshot.upsert(paper(1L, "Alice", "Nature", 2020));
+        snapshot.upsert(paper(2L, "Bob", "Science", 2021));
+
+        snapshot.beginLoad();
+        snapshot.loadRow(paper(1L, "Alice", "Nature", 2020));
+        // 載入中的快照尚未換上，查詢仍看到完整的舊快照
+        assertThat(snapshot.facets(null, null, 10).getTotal()).isEqualTo(2);
+        snapshot.upsert(paper(3L, "Carol", "Cell", 2022));
+        snapshot.abortLoad();
+
+        PaperFacets facets = snapshot.facets(null, null, 10);
+        assertThat(facets.getTotal()).isEqualTo(3);
+        assertThat(facets.getJournals()).extracting(FacetCount::getValue)
+            .containsExactlyInAnyOrder("Nature", "Science", "Cell");
+    }
+
+    private static int sum(List<FacetCount> counts) {
+        return counts.stream().mapToInt(FacetCount::getCount).sum();
+    }
+
+    private static Paper paper(Long id, String author, String journal, Integer year) {
+        return new Paper(id, "Title " + id, author, null, journal, year);
+    }
+}
@@ -0,0 +1,133 @@
+package com.alex.paper.Search;
+
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PaperSearchIndexTest {
+
+    @Test
+    void scoreFollowsBm25WithFieldWeights() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        index.index(paper(1L, "Graph neural networks", "Alice", null));
+        index.index(paper(2L, "Convolutional networks", "Bob", null));
+
+        List<PaperSearchIndex.Hit> hits = index.search("graph", 10);
+
+        // 標題命中權重 3：tf = 3；加權長度 doc1 = 3×3 + 1×2 = 11、doc2 = 2×3 + 1×2 = 8
+        double idf = Math.log(1 + (2 - 1 + 0.5) / (1 + 0.5));
+        double norm = 1.2 * (1 - 0.75 + 0.75 * 11 / 9.5);
+        assertThat(hits).extracting(PaperSearchIndex.Hit::getPaperId).containsExactly(1L);
+        assertThat(hits.get(0).getScore()).isCloseTo(idf * 3 * 2.2 / (3 + norm), within(1e-5));
+    }
+
+    @Test
+    void titleMatchOutranksAbstractMatchAndRareTermsWeighMore() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        index.index(paper(1L, "Transformers for vision", "Alice", "We study attention."));
+        index.index(paper(2L, "Attention is all you need", "Bob", "A model built on transformers."));
+        index.index(paper(3L, "Residual learning", "Carol", "Deep attention networks."));
+
+        assertThat(index.search("transformers", 10)).extracting(PaperSearchIndex.Hit::getPaperId)
+            .containsExactly(1L, 2L);
+        // "attention" 出現在三篇中，"residual" 只出現在一篇
+        assertThat(index.search("attention residual", 10).get(0).getPaperId()).isEqualTo(3L);
+        // 停用詞不參與檢索
+        assertThat(index.search("the of", 10)).isEmpty();
+        assertThat(index.search("attention", 2)).hasSize(2);
+    }
+
+    @Test
+    void repeatedQueriesReuseBuffersWithoutLeakingScores() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        index.index(paper(1L, "Graph neural networks", "Alice", null));
+        index.index(paper(2L, "Graph databases", "Bob", null));
+
+        double first = index.search("graph", 10).get(0).getScore();
+        index.search("neural networks", 10);
+        assertThat(index.search("graph", 10).get(0).getScore()).isEqualTo(first);
+    }
+
+    @Test
+    void updatesRemovalsAndCompactionKeepResultsConsistent() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        for (long id = 0; id < 2_000; id++) {
+            index.index(paper(id, "Paper number " + id, "Author", "common words"));
+        }
+        for (long id = 0; id < 1_500; id++) {
+            index.remove(id);
+        }
+        index.index(paper(1_999L, "Renamed paper", "Author", "common words"));
+
+        assertThat(index.size()).isEqualTo(500);
+        assertThat(index.search("common", 1_000)).hasSize(500);
+        assertThat(index.search("1999", 10)).isEmpty();
+        assertThat(index.search("renamed", 10)).extracting(PaperSearchIndex.Hit::getPaperId).containsExactly(1_999L);
+        assertThat(index.search("10", 10)).isEmpty();
+    }
+
+    @Test
+    void updatedDocumentsDoNotInflateDocumentFrequency() {
+        PaperSearchIndex updated = new PaperSearchIndex();
+        updated.index(paper(1L, "Graph neural networks", "Alice", null));
+        updated.index(paper(2L, "Convolutional networks", "Bob", null));
+        // 第 2 篇反覆更新：每次都在 "graph" 的倒排列表留下已刪除的舊項目，最後改回不含 "graph"
+        for (int i = 0; i < 5; i++) {
+            updated.index(paper(2L, "Graph revision " + i, "Bob", null));
+        }
+        updated.index(paper(2L, "Convolutional networks", "Bob", null));
+
+        PaperSearchIndex fresh = new PaperSearchIndex();
+        fresh.index(paper(1L, "Graph neural networks", "Alice", null));
+        fresh.index(paper(2L, "Convolutional networks", "Bob", null));
+
+        List<PaperSearchIndex.Hit> hits = updated.search("graph", 10);
+        assertThat(hits).extracting(PaperSearchIndex.Hit::getPaperId).containsExactly(1L);
+        assertThat(hits.get(0).getScore()).isCloseTo(fresh.search("graph", 10).get(0).getScore(), within(1e-6));
+        assertThat(updated.search("revision", 10)).isEmpty();
+    }
+
+    @Test
+    void loadSwapsInNewIndexAndKeepsWritesMadeDuringLoad() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        index.index(paper(9L, "Stale paper", "Old", null));
+
+        index.beginLoad();
+        index.loadRow(paper(1L, "Original title", "Alice", null));
+        index.loadRow(paper(2L, "Deleted later", "Bob", null));
+        // 載入期間的寫入先套用到目前的索引，查詢仍看到原本的內容
+        index.index(paper(1L, "Updated title", "Alice", null));
+        index.remove(2L);
+        assertThat(index.search("stale", 10)).hasSize(1);
+        index.loadRow(paper(3L, "Streamed after write", "Carol", null));
+        index.finishLoad();
+
+        assertThat(index.search("stale", 10)).isEmpty();
+        assertThat(index.search("original", 10)).isEmpty();
+        assertThat(index.search("updated", 10)).extracting(PaperSearchIndex.Hit::getPaperId).containsExactly(1L);
+        assertThat(index.search("deleted", 10)).isEmpty();
+        assertThat(index.search("streamed", 10)).extracting(PaperSearchIndex.Hit::getPaperId).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void abortedLoadKeepsCurrentIndex() {
+        PaperSearchIndex index = new PaperSearchIndex();
+        index.index(paper(1L, "Kept paper", "Alice", null));
+
+        index.beginLoad();
+        index.loadRow(paper(2L, "Partial load", "Bob", null));
+        index.abortLoad();
+
+        assertThat(index.search("kept", 10)).hasSize(1);
+        assertThat(index.search("partial", 10)).isEmpty();
+    }
+
+    private static Paper paper(long id, String title, String author, String abstractText) {
+        return new Paper(id, title, author, abstractText, null, null);
+    }
+}
@@ -0,0 +1,262 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.Crawler.CrawlBackend;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CrawlBackendRouterTest {
+
+    private static final CrawlerRequest REQUEST = new CrawlerRequest("keyword", 10);
+
+    private CrawlBackendRouter router;
+
+    @AfterEach
+    void tearDown() {
+        if (router != null) {
+            router.shutdown();
+        }
+    }
+
+    @Test
+    void circuitOpensAfterFailureThreshold() {
+        StubBackend backend = new StubBackend("python");
+        backend.fail = true;
+        router = router(0, 60_000, backend);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> router.crawl(REQUEST)).hasMessageContaining("都失敗");
+        }
+
+        // 斷路器已開啟：不再呼叫
+        assertThatThrownBy(() -> router.crawl(REQUEST)).isInstanceOf(IllegalStateException.class);
+        assertThat(backend.calls.get()).isEqualTo(3);
+        assertThat(circuit("python")).isEqualTo("OPEN");
+    }
+
+    @Test
+    void halfOpenAdmitsOnlyOneTrial() throws InterruptedException {
+        StubBackend backend = new StubBackend("python");
+        router = router(0, 50, backend);
+        failTimes("python", 3);
+
+        assertThat(router.tryAcquire("python")).isFalse();
+        Thread.sleep(80);
+
+        assertThat(router.tryAcquire("python")).isTrue();
+        assertThat(circuit("python")).isEqualTo("HALF_OPEN");
+        assertThat(router.tryAcquire("python")).isFalse();
+
+        router.record("python", 10, true);
+        assertThat(circuit("python")).isEqualTo("CLOSED");
+        assertThat(router.tryAcquire("python")).isTrue();
+        assertThat(router.tryAcquire("python")).isTrue();
+    }
+
+    @Test
+    void failedHalfOpenTrialReopensTheCircuit() throws InterruptedException {
+        StubBackend backend = new StubBackend("python");
+        router = router(0, 50, backend);
+        failTimes("python", 3);
+        Thread.sleep(80);
+
+        assertThat(router.tryAcquire("python")).isTrue();
+        router.record("python", 10, false);
+
+        assertThat(circuit("python")).isEqualTo("OPEN");
+        assertThat(router.tryAcquire("python")).isFalse();
+    }
+
+    @Test
+    void probeOpenedCircuitWaitsForAHealthyProbe() {
+        StubBackend backend = new StubBackend("python");
+        // 冷卻時間為 0：若依時間恢復，會立即放行
+        router = router(0, 0, backend);
+
+        backend.healthy = false;
+        probeAll();
+        assertThat(circuit("python")).isEqualTo("OPEN");
+        assertThat(router.isHealthy("python")).isFalse();
+        assertThat(router.tryAcquire("python")).isFalse();
+
+        backend.healthy = true;
+        probeAll();
+        assertThat(circuit("python")).isEqualTo("HALF_OPEN");
+        assertThat(router.tryAcquire("python")).isTrue();
+        assertThat(router.tryAcquire("python")).isFalse();
+    }
+
+    @Test
+    void failureOpenedCircuitIgnoresHealthyProbesUntilCooldownEnds() throws InterruptedException {
+        StubBackend backend = new StubBackend("python");
+        router = router(0, 100, backend);
+        failTimes("python", 3);
+
+        // /health 正常不代表爬取正常，仍須等冷卻結束
+        probeAll();
+        assertThat(circuit("python")).isEqualTo("OPEN");
+        assertThat(router.tryAcquire("python")).isFalse();
+
+        Thread.sleep(130);
+        assertThat(router.tryAcquire("python")).isTrue();
+        assertThat(circuit("python")).isEqualTo("HALF_OPEN");
+    }
+
+    @Test
+    void hedgeFiresAfterDelayAndCancelsTheLoser() throws InterruptedException {
+        StubBackend slow = new StubBackend("python");
+        slow.delayMs = 5_000;
+        StubBackend fast = new StubBackend("selenium");
+        router = router(50, 60_000, slow, fast);
+
+        long start = System.nanoTime();
+        List<Paper> papers = router.crawl(REQUEST);
+
+        assertThat(papers).extracting(Paper::getTitle).containsExactly("selenium");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(50).isLessThan(2_000);
+        assertThat(slow.interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        awaitIdleHedgeThreads();
+
+        // 被取消的請求不計入失敗
+        Map<String, Object> python = status("python");
+        assertThat(python.get("circuit")).isEqualTo("CLOSED");
+        assertThat(python.get("successRate")).isEqualTo(1.0);
+    }
+
+    @Test
+    void saturatedHedgePoolFallsBackToSequentialCalls() throws InterruptedException {
+        StubBackend first = new StubBackend("python");
+        StubBackend second = new StubBackend("selenium");
+        router = router(50, 60_000, 1, first, second);
+        ThreadPoolExecutor hedgeExecutor = (ThreadPoolExecutor) ReflectionTestUtils.getField(router, "hedgeExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch occupied = new CountDownLatch(1);
+        hedgeExecutor.execute(() -> {
+            occupied.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        occupied.await();
+
+        try {
+            List<Paper> papers = router.crawl(REQUEST);
+
+            assertThat(papers).extracting(Paper::getTitle).containsExactly("python");
+            assertThat(first.lastThread).isEqualTo(Thread.currentThread().getName());
+            assertThat(second.calls.get()).isZero();
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private CrawlBackendRouter router(long hedgeAfterMs, long openMs, CrawlBackend... backends) {
+        return router(hedgeAfterMs, openMs, 2, backends);
+    }
+
+    private CrawlBackendRouter router(long hedgeAfterMs, long openMs, int hedgeMaxThreads, CrawlBackend... backends) {
+        CrawlBackendRouter router = new CrawlBackendRouter();
+        ReflectionTestUtils.setField(router, "backends", List.of(backends));
+        ReflectionTestUtils.setField(router, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(router, "preference", List.of("python", "selenium", "jsoup"));
+        ReflectionTestUtils.setField(router, "failureThreshold", 3);
+        ReflectionTestUtils.setField(router, "openMs", openMs);
+        ReflectionTestUtils.setField(router, "ewmaAlpha", 0.2);
+        ReflectionTestUtils.setField(router, "probeIntervalMs", 10_000L);
+        ReflectionTestUtils.setField(router, "hedgeAfterMs", hedgeAfterMs);
+        ReflectionTestUtils.setField(router, "hedgeMaxThreads", hedgeMaxThreads);
+        // 不隨機改變順序
+        ReflectionTestUtils.setField(router, "exploreRatio", 0.0);
+        router.init();
+        return router;
+    }
+
+    private void failTimes(String backend, int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(router.tryAcquire(backend)).isTrue();
+            router.record(backend, 10, false);
+        }
+        assertThat(circuit(backend)).isEqualTo("OPEN");
+    }
+
+    private void probeAll() {
+        ReflectionTestUtils.invokeMethod(router, "probeAll");
+    }
+
+    private void awaitIdleHedgeThreads() throws InterruptedException {
+        ThreadPoolExecutor hedgeExecutor = (ThreadPoolExecutor) ReflectionTestUtils.getField(router, "hedgeExecutor");
+        long deadline = System.currentTimeMillis() + 2_000;
+        while (hedgeExecutor.getActiveCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private String circuit(String backend) {
+        return (String) status(backend).get("circuit");
+    }
+
+    private Map<String, Object> status(String backend) {
+        return router.snapshot().stream()
+            .filter(entry -> backend.equals(entry.get("backend")))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    private static final class StubBackend implements CrawlBackend {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        private volatile boolean fail;
+        private volatile boolean healthy = true;
+        private volatile long delayMs;
+        private volatile String lastThread;
+
+        StubBackend(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public List<Paper> crawl(CrawlerRequest request) throws Exception {
+            calls.incrementAndGet();
+            lastThread = Thread.currentThread().getName();
+            if (delayMs > 0) {
+                try {
+                    Thread.sleep(delayMs);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+            if (fail) {
+                throw new IllegalStateException(name + " failed");
+            }
+            return List.of(new Paper(null, name, "author", null, null, null));
+        }
+
+        @Override
+        public boolean probe() {
+            return healthy;
+        }
+    }
+}
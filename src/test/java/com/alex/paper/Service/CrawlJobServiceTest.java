@@ -0,0 +1,100 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.DTO.CrawlJob;
+import com.alex.paper.DTO.CrawlJobRequest;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Model.Paper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CrawlJobServiceTest {
+
+    private CrawlerService crawlerService;
+    private CrawlJobService crawlJobService;
+
+    @BeforeEach
+    void setUp() {
+        crawlerService = mock(CrawlerService.class);
+        crawlJobService = new CrawlJobService();
+        ReflectionTestUtils.setField(crawlJobService, "crawlerService", crawlerService);
+        ReflectionTestUtils.setField(crawlJobService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(crawlJobService, "poolSize", 1);
+        ReflectionTestUtils.setField(crawlJobService, "queueCapacity", 10);
+        crawlJobService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        crawlJobService.shutdown();
+    }
+
+    @Test
+    void cancelDuringPersistDoesNotInterruptTheWriteAndLaterJobsStillSave() throws Exception {
+        when(crawlerService.crawlGoogleScholar(any(CrawlerRequest.class)))
+            .thenAnswer(invocation -> List.of(paper(((CrawlerRequest) invocation.getArgument(0)).getKeyword())));
+        CountDownLatch persisting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean interruptedDuringPersist = new AtomicBoolean();
+        AtomicInteger persistCalls = new AtomicInteger();
+        when(crawlerService.saveSelectedPapers(anyList())).thenAnswer(invocation -> {
+            if (persistCalls.incrementAndGet() == 1) {
+                persisting.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            // 寫入 journal 時若被中斷，FileChannel 會被關閉
+            if (Thread.currentThread().isInterrupted()) {
+                interruptedDuringPersist.set(true);
+            }
+            return invocation.getArgument(0);
+        });
+
+        CrawlJob first = crawlJobService.submit(request(List.of("first", "skipped")));
+        assertThat(persisting.await(5, TimeUnit.SECONDS)).isTrue();
+        crawlJobService.cancel(first.getJobId());
+        release.countDown();
+
+        CrawlJob second = crawlJobService.submit(request(List.of("second")));
+        awaitFinished(second);
+
+        assertThat(interruptedDuringPersist).isFalse();
+        assertThat(first.getStatus()).isEqualTo("CANCELLED");
+        // 取消後不再爬取下一個關鍵字
+        assertThat(first.getCompletedKeywords()).isEqualTo(1);
+        assertThat(second.getStatus()).isEqualTo("COMPLETED");
+        assertThat(second.getSavedCount()).isEqualTo(1);
+        assertThat(persistCalls.get()).isEqualTo(2);
+    }
+
+    private static CrawlJobRequest request(List<String> keywords) {
+        CrawlJobRequest request = new CrawlJobRequest();
+        request.setKeywords(keywords);
+        request.setSave(true);
+        return request;
+    }
+
+    private static void awaitFinished(CrawlJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static Paper paper(String title) {
+        return new Paper(null, title, "Author", null, null, null);
+    }
+}
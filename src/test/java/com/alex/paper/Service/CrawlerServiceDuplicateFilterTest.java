@@ -0,0 +1,123 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.Cache.CrawlResultCache;
+import com.alex.paper.DTO.CrawlerRequest;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Ingest.PaperIngestionQueue;
+import com.alex.paper.Model.Paper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CrawlerServiceDuplicateFilterTest {
+
+    private static final String ABSTRACT = "Deeper neural networks are more difficult to train. We present a residual "
+        + "learning framework to ease the training of networks that are substantially deeper than those used previously.";
+
+    private CrawlerService crawlerService;
+    private PaperFingerprintIndex fingerprintIndex;
+    private PaperNearDuplicateIndex nearDuplicateIndex;
+    private PaperService paperService;
+    private CrawlResultCache crawlResultCache;
+
+    @BeforeEach
+    void setUp() {
+        fingerprintIndex = new PaperFingerprintIndex();
+        nearDuplicateIndex = new PaperNearDuplicateIndex();
+        paperService = mock(PaperService.class);
+        crawlResultCache = mock(CrawlResultCache.class);
+        PaperIngestionQueue ingestionQueue = mock(PaperIngestionQueue.class);
+        when(ingestionQueue.isAccepting()).thenReturn(false);
+
+        crawlerService = new CrawlerService();
+        ReflectionTestUtils.setField(crawlerService, "paperFingerprintIndex", fingerprintIndex);
+        ReflectionTestUtils.setField(crawlerService, "paperNearDuplicateIndex", nearDuplicateIndex);
+        ReflectionTestUtils.setField(crawlerService, "paperService", paperService);
+        ReflectionTestUtils.setField(crawlerService, "paperIngestionQueue", ingestionQueue);
+        ReflectionTestUtils.setField(crawlerService, "crawlResultCache", crawlResultCache);
+    }
+
+    @Test
+    void exactDuplicatesAndExistingPapersAreDropped() {
+        Paper existing = paper("Existing paper title", "Someone", null);
+        fingerprintIndex.add(existing);
+
+        List<Paper> accepted = crawl(List.of(
+            paper("Existing paper title", "Someone", null),
+            paper("A new paper title", "Someone", null),
+            paper("A New Paper Title!", "someone", null)));
+
+        assertThat(accepted).extracting(Paper::getTitle).containsExactly("A new paper title");
+    }
+
+    @Test
+    void skipModeDropsNearDuplicateOfStoredPaper() {
+        Paper stored = paper("Deep residual learning for image recognition", "He", ABSTRACT);
+        stored.setId(7L);
+        nearDuplicateIndex.add(stored);
+
+        List<Paper> accepted = crawl(List.of(
+            paper("Deep residual learning for image recognition.", "K. He", ABSTRACT.substring(0, 180))));
+
+        assertThat(accepted).isEmpty();
+    }
+
+    @Test
+    void flagModeMarksStoredAndInBatchMatches() {
+        ReflectionTestUtils.setField(crawlerService, "nearDuplicateAction", "flag");
+        Paper stored = paper("Deep residual learning for image recognition", "He", ABSTRACT);
+        stored.setId(7L);
+        nearDuplicateIndex.add(stored);
+
+        List<Paper> accepted = crawl(List.of(
+            paper("Deep residual learning for image recognition.", "K. He", ABSTRACT.substring(0, 180)),
+            paper("Attention is all you need", "Vaswani", "Transformers rely entirely on attention mechanisms."),
+            paper("Attention Is All You Need.", "A. Vaswani", "Transformers rely entirely on attention mechanisms.")));
+
+        assertThat(accepted).hasSize(3);
+        assertThat(accepted.get(0).getNearDuplicateOf()).isEqualTo(7L);
+        assertThat(accepted.get(1).getNearDuplicateOf()).isNull();
+        assertThat(accepted.get(1).getNearDuplicateInBatch()).isNull();
+        // 對象尚未寫入資料庫，沒有 id 可標示
+        assertThat(accepted.get(2).getNearDuplicateOf()).isNull();
+        assertThat(accepted.get(2).getNearDuplicateInBatch()).isTrue();
+    }
+
+    @Test
+    void explicitSelectionIsNeverSkippedAndInBatchMatchGetsIdAfterSave() {
+        AtomicLong ids = new AtomicLong(100);
+        when(paperService.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Paper> papers = invocation.getArgument(0);
+            papers.forEach(paper -> paper.setId(ids.incrementAndGet()));
+            return papers;
+        });
+
+        List<Paper> saved = crawlerService.saveSelectedPapers(List.of(
+            paper("Attention is all you need", "Vaswani", "Transformers rely entirely on attention mechanisms."),
+            paper("Attention Is All You Need.", "A. Vaswani", "Transformers rely entirely on attention mechanisms.")));
+
+        assertThat(saved).hasSize(2);
+        assertThat(saved.get(1).getNearDuplicateInBatch()).isTrue();
+        assertThat(saved.get(1).getNearDuplicateOf()).isEqualTo(saved.get(0).getId());
+    }
+
+    // 爬取結果由快取取得，不對外發出請求
+    private List<Paper> crawl(List<Paper> crawled) {
+        when(crawlResultCache.get(any(CrawlerRequest.class))).thenReturn(crawled);
+        return crawlerService.crawlGoogleScholar(new CrawlerRequest("keyword", 10));
+    }
+
+    private static Paper paper(String title, String author, String abstractText) {
+        return new Paper(null, title, author, abstractText, null, null);
+    }
+}
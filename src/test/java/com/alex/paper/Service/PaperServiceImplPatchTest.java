@@ -0,0 +1,170 @@
+package com.alex.paper.Service;
+
+import com.alex.paper.Cache.PaperListResponseCache;
+import com.alex.paper.Dao.AuthorDao;
+import com.alex.paper.Dao.PaperDao;
+import com.alex.paper.Dedup.PaperFingerprintIndex;
+import com.alex.paper.Dedup.PaperNearDuplicateIndex;
+import com.alex.paper.Feed.PaperChangeFeed;
+import com.alex.paper.Model.Paper;
+import com.alex.paper.Search.PaperFacetSnapshot;
+import com.alex.paper.Search.PaperSearchIndex;
+import com.alex.paper.Service.PaperService.PatchResult;
+import com.alex.paper.Util.PaperFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaperServiceImplPatchTest {
+
+    @Mock
+    private PaperDao paperDao;
+    @Mock
+    private AuthorDao authorDao;
+    @Mock
+    private PaperFingerprintIndex paperFingerprintIndex;
+    @Mock
+    private PaperNearDuplicateIndex paperNearDuplicateIndex;
+    @Mock
+    private PaperSearchIndex paperSearchIndex;
+    @Mock
+    private PaperFacetSnapshot paperFacetSnapshot;
+    @Mock
+    private PaperChangeFeed paperChangeFeed;
+    @Mock
+    private PaperListResponseCache paperListResponseCache;
+
+    @InjectMocks
+    private PaperServiceImpl paperService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(paperService, "cacheMaxSize", 100);
+        ReflectionTestUtils.setField(paperService, "cacheTtlSeconds", 60L);
+        paperService.initCache();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void patchLoadsOnlyUnchangedColumnsAndBumpsVersion() {
+        when(paperDao.findById(eq(1L), anySet())).thenReturn(stored(3));
+        when(paperDao.patch(1L, Map.of("abstractText", "new abstract"), null, 3)).thenReturn(1);
+
+        PatchResult result = paperService.patchPaper(1L, Map.of("abstractText", "new abstract"), 3);
+
+        assertThat(result).isEqualTo(PatchResult.UPDATED);
+        ArgumentCaptor<Set<String>> fields = ArgumentCaptor.forClass(Set.class);
+        verify(paperDao).findById(eq(1L), fields.capture());
+        assertThat(fields.getValue()).contains("id", "title", "author", "version").doesNotContain("abstractText");
+
+        ArgumentCaptor<Paper> published = ArgumentCaptor.forClass(Paper.class);
+        verify(paperChangeFeed).updated(published.capture());
+        assertThat(published.getValue().getVersion()).isEqualTo(4);
+        assertThat(published.getValue().getAbstractText()).isEqualTo("new abstract");
+        assertThat(published.getValue().getTitle()).isEqualTo("Stored title");
+    }
+
+    @Test
+    void indexesAreUpdatedOnlyAfterTheTransactionCommits() throws Exception {
+        when(paperDao.findById(eq(1L), anySet())).thenReturn(stored(3));
+        when(paperDao.patch(1L, Map.of("author", "New Author"), PaperFingerprint.of("Stored title", "New Author"), 3))
+            .thenReturn(1);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertThat(paperService.patchPaper(1L, Map.of("author", "New Author"), 3)).isEqualTo(PatchResult.UPDATED);
+            verify(authorDao).relinkAuthors(any(Paper.class));
+            verify(paperSearchIndex, never()).index(any(Paper.class));
+            verify(paperFingerprintIndex, never()).add(any(Paper.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(paperSearchIndex).index(any(Paper.class));
+            verify(paperFingerprintIndex).add(any(Paper.class));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(PaperServiceImpl.class.getMethod("patchPaper", Long.class, Map.class, int.class)
+            .isAnnotationPresent(Transactional.class)).isTrue();
+        assertThat(PaperServiceImpl.class.getMethod("updatePaper", Paper.class)
+            .isAnnotationPresent(Transactional.class)).isTrue();
+        assertThat(PaperServiceImpl.class.getMethod("createPaper", Paper.class)
+            .isAnnotationPresent(Transactional.class)).isTrue();
+    }
+
+    @Test
+    void staleVersionIsConflictWithoutWriting() {
+        when(paperDao.findById(eq(1L), anySet())).thenReturn(stored(4));
+
+        assertThat(paperService.patchPaper(1L, Map.of("year", 2021), 3)).isEqualTo(PatchResult.CONFLICT);
+        verify(paperDao, never()).patch(any(), anyMap(), any(), anyInt());
+    }
+
+    @Test
+    void concurrentUpdateBetweenReadAndWriteIsConflict() {
+        when(paperDao.findById(eq(1L), anySet())).thenReturn(stored(3));
+        when(paperDao.patch(1L, Map.of("year", 2021), null, 3)).thenReturn(0);
+
+        assertThat(paperService.patchPaper(1L, Map.of("year", 2021), 3)).isEqualTo(PatchResult.CONFLICT);
+        verifyNoInteractions(paperChangeFeed);
+    }
+
+    @Test
+    void titleCollidingWithAnotherPaperIsDuplicate() {
+        when(paperDao.findById(eq(1L), anySet())).thenReturn(stored(3));
+        Paper collision = new Paper(null, "Other title", "Stored Author", null, null, null);
+        when(paperFingerprintIndex.contains(PaperFingerprint.of(collision))).thenReturn(true);
+
+        assertThat(paperService.patchPaper(1L, Map.of("title", "Other title"), 3)).isEqualTo(PatchResult.DUPLICATE);
+        verify(paperDao, never()).patch(any(), anyMap(), any(), anyInt());
+    }
+
+    @Test
+    void emptyPatchIsRejectedBeforeTouchingTheDatabase() {
+        assertThatThrownBy(() -> paperService.patchPaper(1L, Map.of(), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(paperDao);
+    }
+
+    @Test
+    void unknownOrMistypedFieldsAreRejected() {
+        assertThatThrownBy(() -> paperService.patchPaper(1L, Map.of("id", 5), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paperService.patchPaper(1L, Map.of("year", "2021"), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paperService.patchPaper(1L, Map.of("title", " "), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> paperService.patchPaper(1L, Map.of("year", 2020.7), 3))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(paperDao);
+    }
+
+    private static Paper stored(int version) {
+        Paper paper = new Paper(1L, "Stored title", "Stored Author", null, "Journal", 2020);
+        paper.setVersion(version);
+        return paper;
+    }
+}